@@ -1,24 +1,40 @@
 package com.aronalvarenga.gerador;
 
 import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.LayoutGuia;
 import com.aronalvarenga.gerador.service.CodigoBarrasService;
+import com.aronalvarenga.gerador.service.GeracaoIncrementalGuia;
+import com.aronalvarenga.gerador.service.LayoutGuiaService;
 import com.aronalvarenga.gerador.service.PdfService;
 import com.aronalvarenga.gerador.service.PixService;
 import com.aronalvarenga.gerador.ui.GuiaPagamentoPanel;
+import com.aronalvarenga.gerador.ui.ListaLoteGuiasPanel;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 public class GeradorGuiaPagamentoApp extends JFrame {
 
+    // Espera após a última tecla antes de atualizar a visualização
+    private static final int ATRASO_VISUALIZACAO_MS = 250;
+
     private JTextField nomeProprietarioField;
     private JTextField cpfField;
     private JTextField enderecoField;
@@ -29,6 +45,25 @@ public class GeradorGuiaPagamentoApp extends JFrame {
     private JTextField numeroGuiaField;
 
     private GuiaPagamentoPanel guiaPanel;
+    private ListaLoteGuiasPanel loteGuiasPanel;
+    private JTabbedPane abas;
+
+    private JButton gerarButton;
+    private JButton baixarPdfButton;
+    private JButton cancelarButton;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private JCheckBox visualizacaoAutomaticaCheck;
+    private Timer visualizacaoTimer;
+    private TarefaGuia<?> tarefaAtual;
+    private VisualizacaoTask visualizacaoAtual;
+    private boolean visualizacaoPendente;
+
+    private final CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
+    private final PixService pixService = new PixService();
+    private final PdfService pdfService = new PdfService();
+    private final GeracaoIncrementalGuia geracaoIncremental = new GeracaoIncrementalGuia(codigoBarrasService, pixService);
+    private final LayoutGuiaService layoutGuiaService = new LayoutGuiaService();
 
     public GeradorGuiaPagamentoApp() {
         initializeComponents();
@@ -65,6 +100,16 @@ public class GeradorGuiaPagamentoApp extends JFrame {
         numeroGuiaField.setText("2025010001");
 
         guiaPanel = new GuiaPagamentoPanel();
+        loteGuiasPanel = new ListaLoteGuiasPanel();
+        loteGuiasPanel.addAcaoAbrir(guia -> {
+            guiaPanel.exibirGuia(guia);
+            abas.setSelectedIndex(0);
+        });
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        statusLabel = new JLabel(" ");
     }
 
     private void setupLayout() {
@@ -75,7 +120,12 @@ public class GeradorGuiaPagamentoApp extends JFrame {
 
         JScrollPane scrollPane = new JScrollPane(guiaPanel);
         scrollPane.setPreferredSize(new Dimension(850, 400));
-        add(scrollPane, BorderLayout.CENTER);
+
+        // Guias geradas na sessão, para conferência antes do envio; duplo clique abre na visualização
+        abas = new JTabbedPane();
+        abas.addTab("Visualização", scrollPane);
+        abas.addTab("Guias Geradas (0)", loteGuiasPanel);
+        add(abas, BorderLayout.CENTER);
 
         JPanel buttonPanel = createButtonPanel();
         add(buttonPanel, BorderLayout.SOUTH);
@@ -135,28 +185,117 @@ public class GeradorGuiaPagamentoApp extends JFrame {
     }
 
     private JPanel createButtonPanel() {
-        JPanel panel = new JPanel(new FlowLayout());
+        JPanel panel = new JPanel(new BorderLayout());
+        JPanel botoesPanel = new JPanel(new FlowLayout());
 
-        JButton gerarButton = new JButton("Gerar Guia de Pagamento");
+        gerarButton = new JButton("Gerar Guia de Pagamento");
         gerarButton.setPreferredSize(new Dimension(200, 35));
         gerarButton.addActionListener(new GerarGuiaListener());
 
         JButton limparButton = new JButton("Limpar");
         limparButton.addActionListener(e -> limparCampos());
 
-        JButton baixarPdfButton = new JButton("Baixar PDF");
+        baixarPdfButton = new JButton("Baixar PDF");
         baixarPdfButton.addActionListener(new BaixarPdfListener());
 
-        panel.add(gerarButton);
-        panel.add(limparButton);
-        panel.add(baixarPdfButton);
+        visualizacaoAutomaticaCheck = new JCheckBox("Visualização automática", true);
+        visualizacaoAutomaticaCheck.setToolTipText("Atualiza a visualização enquanto os campos são editados");
+        visualizacaoAutomaticaCheck.addActionListener(e -> agendarVisualizacao());
+
+        cancelarButton = new JButton("Cancelar");
+        cancelarButton.setEnabled(false);
+        cancelarButton.addActionListener(e -> cancelarTarefa());
+
+        botoesPanel.add(gerarButton);
+        botoesPanel.add(limparButton);
+        botoesPanel.add(baixarPdfButton);
+        botoesPanel.add(cancelarButton);
+        botoesPanel.add(visualizacaoAutomaticaCheck);
+
+        JPanel progressoPanel = new JPanel(new BorderLayout(10, 0));
+        progressoPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 5, 10));
+        progressoPanel.add(statusLabel, BorderLayout.CENTER);
+        progressoPanel.add(progressBar, BorderLayout.EAST);
+
+        panel.add(botoesPanel, BorderLayout.NORTH);
+        panel.add(progressoPanel, BorderLayout.SOUTH);
 
         return panel;
     }
 
-    private void setupEventListeners() {}
+    private void setupEventListeners() {
+        visualizacaoTimer = new Timer(ATRASO_VISUALIZACAO_MS, e -> atualizarVisualizacao());
+        visualizacaoTimer.setRepeats(false);
+
+        DocumentListener edicao = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                agendarVisualizacao();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                agendarVisualizacao();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                agendarVisualizacao();
+            }
+        };
+        JTextField[] campos = {nomeProprietarioField, cpfField, enderecoField, chavePIXField, valorField,
+                descricaoField, vencimentoField, numeroGuiaField};
+        for (JTextField campo : campos) {
+            campo.getDocument().addDocumentListener(edicao);
+        }
+    }
+
+    /**
+     * Reinicia a espera a cada edição: a visualização só é atualizada quando a digitação para
+     */
+    private void agendarVisualizacao() {
+        if (visualizacaoAutomaticaCheck.isSelected()) {
+            visualizacaoTimer.restart();
+        } else {
+            visualizacaoTimer.stop();
+        }
+    }
+
+    /**
+     * Atualiza a visualização com os campos atuais em uma {@link VisualizacaoTask}, substituindo a anterior;
+     * campos incompletos mantêm a visualização anterior. Durante uma tarefa, a atualização fica pendente até
+     * ela terminar.
+     */
+    private void atualizarVisualizacao() {
+        if (!visualizacaoAutomaticaCheck.isSelected()) {
+            return;
+        }
+        if (tarefaAtual != null) {
+            visualizacaoPendente = true;
+            return;
+        }
+        GuiaPagamento guia;
+        try {
+            guia = criarGuiaPagamento();
+        } catch (IllegalArgumentException e) {
+            statusLabel.setText("Visualização: " + e.getMessage());
+            return;
+        }
+        cancelarVisualizacao();
+        visualizacaoAtual = new VisualizacaoTask(guia);
+        visualizacaoAtual.execute();
+    }
+
+    private void cancelarVisualizacao() {
+        if (visualizacaoAtual != null) {
+            visualizacaoAtual.cancel(true);
+            visualizacaoAtual = null;
+        }
+    }
 
     private void limparCampos() {
+        cancelarTarefa();
+        cancelarVisualizacao();
         nomeProprietarioField.setText("");
         cpfField.setText("");
         enderecoField.setText("");
@@ -171,21 +310,21 @@ public class GeradorGuiaPagamentoApp extends JFrame {
     private class GerarGuiaListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
+            GuiaPagamento guia;
             try {
-                GuiaPagamento guia = criarGuiaPagamento();
-                guiaPanel.exibirGuia(guia);
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(
-                        GeradorGuiaPagamentoApp.this,
-                        "Erro ao gerar guia: " + ex.getMessage(),
-                        "Erro",
-                        JOptionPane.ERROR_MESSAGE
-                );
+                guia = criarGuiaPagamento();
+            } catch (IllegalArgumentException ex) {
+                mostrarErro("Erro ao gerar guia: " + ex.getMessage());
+                return;
             }
+            executar(new GeracaoGuiaTask(guia));
         }
     }
 
-    private GuiaPagamento criarGuiaPagamento() throws Exception {
+    /**
+     * Valida os campos e monta a guia na thread da interface; os códigos são gerados em {@link GeracaoGuiaTask}
+     */
+    private GuiaPagamento criarGuiaPagamento() {
         if (nomeProprietarioField.getText().trim().isEmpty()) {
             throw new IllegalArgumentException("Nome do proprietário é obrigatório");
         }
@@ -222,15 +361,6 @@ public class GeradorGuiaPagamentoApp extends JFrame {
         guia.setVencimento(vencimento);
         guia.setNumeroGuia(numeroGuiaField.getText().trim());
 
-        CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
-        PixService pixService = new PixService();
-
-        String codigoBarras = codigoBarrasService.gerarCodigoBarras(guia);
-        String qrCodePix = pixService.gerarQRCodePix(guia);
-
-        guia.setCodigoBarras(codigoBarras);
-        guia.setQrCodePix(qrCodePix);
-
         return guia;
     }
 
@@ -247,6 +377,13 @@ public class GeradorGuiaPagamentoApp extends JFrame {
                 return;
             }
 
+            // O PDF usa o layout já calculado para a visualização
+            LayoutGuia layout = guiaPanel.getLayoutGuia();
+            if (layout == null) {
+                mostrarErro("Não foi possível montar a página da guia para o PDF");
+                return;
+            }
+
             JFileChooser fileChooser = new JFileChooser();
             fileChooser.setDialogTitle("Salvar Guia de Pagamento");
             fileChooser.setSelectedFile(new File("GuiaPagamento.pdf"));
@@ -261,25 +398,245 @@ public class GeradorGuiaPagamentoApp extends JFrame {
                     filePath += ".pdf";
                 }
 
-                try {
-                    PdfService pdfService = new PdfService();
-                    pdfService.gerarPdf(guiaPanel.getGuia(), filePath);
-
-                    JOptionPane.showMessageDialog(
-                            GeradorGuiaPagamentoApp.this,
-                            "Guia salva com sucesso em:\n" + filePath,
-                            "Sucesso",
-                            JOptionPane.INFORMATION_MESSAGE
-                    );
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(
-                            GeradorGuiaPagamentoApp.this,
-                            "Erro ao gerar PDF: " + ex.getMessage(),
-                            "Erro",
-                            JOptionPane.ERROR_MESSAGE
-                    );
+                executar(new ExportacaoPdfTask(layout, Path.of(filePath)));
+            }
+        }
+    }
+
+    /**
+     * Inicia a tarefa em segundo plano, bloqueando os botões de geração até ela terminar ou ser cancelada
+     */
+    private void executar(TarefaGuia<?> tarefa) {
+        cancelarTarefa();
+        cancelarVisualizacao();
+        tarefaAtual = tarefa;
+        gerarButton.setEnabled(false);
+        baixarPdfButton.setEnabled(false);
+        cancelarButton.setEnabled(true);
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        tarefa.addPropertyChangeListener(evento -> {
+            if ("progress".equals(evento.getPropertyName()) && tarefa == tarefaAtual) {
+                progressBar.setValue((Integer) evento.getNewValue());
+            }
+        });
+        tarefa.execute();
+    }
+
+    private void cancelarTarefa() {
+        if (tarefaAtual != null) {
+            tarefaAtual.cancel(true);
+        }
+    }
+
+    private void finalizarTarefa(TarefaGuia<?> tarefa) {
+        if (tarefa != tarefaAtual) {
+            return;
+        }
+        tarefaAtual = null;
+        gerarButton.setEnabled(true);
+        baixarPdfButton.setEnabled(true);
+        cancelarButton.setEnabled(false);
+        progressBar.setVisible(false);
+        // Edições feitas durante a tarefa ainda não chegaram à visualização
+        if (visualizacaoPendente) {
+            visualizacaoPendente = false;
+            agendarVisualizacao();
+        }
+    }
+
+    private void mostrarErro(String mensagem) {
+        JOptionPane.showMessageDialog(
+                GeradorGuiaPagamentoApp.this,
+                mensagem,
+                "Erro",
+                JOptionPane.ERROR_MESSAGE
+        );
+    }
+
+    /**
+     * Trabalho pesado fora da thread da interface: cada etapa atualiza a barra de progresso e a mensagem de
+     * status; o resultado, a falha ou o cancelamento são tratados de volta na thread da interface
+     *
+     * {@link SwingWorker} em vez de uma thread virtual: a entrega de progresso, resultado e cancelamento na
+     * thread da interface já vem pronta, e cada ação tem uma única tarefa por vez, sem ganho em threads baratas.
+     */
+    private abstract class TarefaGuia<T> extends SwingWorker<T, String> {
+
+        protected void etapa(int progresso, String status) {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            setProgress(progresso);
+            publish(status);
+        }
+
+        @Override
+        protected void process(List<String> status) {
+            if (this == tarefaAtual) {
+                statusLabel.setText(status.get(status.size() - 1));
+            }
+        }
+
+        @Override
+        protected final void done() {
+            boolean atual = this == tarefaAtual;
+            finalizarTarefa(this);
+            try {
+                concluir(get());
+            } catch (CancellationException e) {
+                if (atual) {
+                    statusLabel.setText(mensagemCancelamento());
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                statusLabel.setText(" ");
+                mostrarErro(mensagemErro() + causa.getMessage());
+            }
+        }
+
+        protected abstract void concluir(T resultado);
+
+        protected abstract String mensagemCancelamento();
+
+        protected abstract String mensagemErro();
+    }
+
+    /**
+     * Código de barras, payload PIX e layout da visualização fora da thread da interface, sem progresso nem
+     * diálogo de erro; só a última atualização pedida chega ao painel
+     */
+    private class VisualizacaoTask extends SwingWorker<LayoutGuia, Void> {
+        private final GuiaPagamento guia;
+
+        private VisualizacaoTask(GuiaPagamento guia) {
+            this.guia = guia;
+        }
+
+        @Override
+        protected LayoutGuia doInBackground() throws Exception {
+            // Uma tarefa cancelada pode ainda estar calculando quando a seguinte começa
+            synchronized (geracaoIncremental) {
+                geracaoIncremental.atualizar(guia);
+                return layoutGuiaService.calcular(guia);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (this != visualizacaoAtual) {
+                return;
+            }
+            visualizacaoAtual = null;
+            try {
+                guiaPanel.exibirGuia(guia, get());
+                statusLabel.setText(" ");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                statusLabel.setText("Visualização: " + causa.getMessage());
+            }
+        }
+    }
+
+    private class GeracaoGuiaTask extends TarefaGuia<GuiaPagamento> {
+        private final GuiaPagamento guia;
+
+        private GeracaoGuiaTask(GuiaPagamento guia) {
+            this.guia = guia;
+        }
+
+        @Override
+        protected GuiaPagamento doInBackground() throws Exception {
+            etapa(10, "Calculando código de barras...");
+            guia.setCodigoBarras(codigoBarrasService.gerarCodigoBarras(guia));
+
+            etapa(40, "Gerando payload PIX...");
+            guia.setQrCodePix(pixService.gerarQRCodePix(guia));
+
+            // Símbolos prontos no cache: a primeira pintura da visualização não codifica nada
+            etapa(70, "Preparando código de barras e QR Code...");
+            CacheSimbolos cacheSimbolos = CacheSimbolos.getCompartilhado();
+            cacheSimbolos.obterBarrasItf(guia.getCodigoBarras());
+            cacheSimbolos.obterModulosQRCode(guia.getQrCodePix());
+
+            etapa(100, "Guia gerada");
+            return guia;
+        }
+
+        @Override
+        protected void concluir(GuiaPagamento resultado) {
+            guiaPanel.exibirGuia(resultado);
+            loteGuiasPanel.adicionar(resultado);
+            abas.setTitleAt(1, "Guias Geradas (" + loteGuiasPanel.getQuantidade() + ")");
+            abas.setSelectedIndex(0);
+            statusLabel.setText("Guia " + resultado.getNumeroGuia() + " gerada");
+        }
+
+        @Override
+        protected String mensagemCancelamento() {
+            return "Geração cancelada";
+        }
+
+        @Override
+        protected String mensagemErro() {
+            return "Erro ao gerar guia: ";
+        }
+    }
+
+    /**
+     * Gera o PDF em um arquivo temporário na mesma pasta e só então o move para o destino, então um
+     * cancelamento não deixa arquivo incompleto
+     */
+    private class ExportacaoPdfTask extends TarefaGuia<Path> {
+        private final LayoutGuia layout;
+        private final Path destino;
+
+        private ExportacaoPdfTask(LayoutGuia layout, Path destino) {
+            this.layout = layout;
+            this.destino = destino;
+        }
+
+        @Override
+        protected Path doInBackground() throws Exception {
+            etapa(10, "Gerando PDF...");
+            Path diretorio = destino.toAbsolutePath().getParent();
+            Path temporario = Files.createTempFile(diretorio, ".guia-", ".pdf.tmp");
+            try {
+                pdfService.gerarPdf(layout, temporario.toString());
+
+                etapa(80, "Gravando " + destino.getFileName() + "...");
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporario);
             }
+
+            setProgress(100);
+            return destino;
+        }
+
+        @Override
+        protected void concluir(Path resultado) {
+            statusLabel.setText("PDF salvo em " + resultado);
+            JOptionPane.showMessageDialog(
+                    GeradorGuiaPagamentoApp.this,
+                    "Guia salva com sucesso em:\n" + resultado,
+                    "Sucesso",
+                    JOptionPane.INFORMATION_MESSAGE
+            );
+        }
+
+        @Override
+        protected String mensagemCancelamento() {
+            return "Exportação cancelada";
+        }
+
+        @Override
+        protected String mensagemErro() {
+            return "Erro ao gerar PDF: ";
         }
     }
 
@@ -0,0 +1,149 @@
+package com.aronalvarenga.gerador.model;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.util.List;
+
+/**
+ * Página da guia já diagramada: textos posicionados, barras do código ITF e módulos do QR Code
+ *
+ * Calculada uma vez por guia e desenhada por qualquer saída (PDF, {@code Graphics2D} ou imagem) sem refazer
+ * medidas nem símbolos. Coordenadas em pontos, com origem no canto inferior esquerdo da página. O fundo
+ * (título, seções e rótulos) é a mesma lista em todas as guias; os textos são os valores desta guia.
+ *
+ * Imutável depois de criada: pode ser guardada e desenhada por várias threads. As barras e os módulos vêm
+ * do cache de símbolos e não devem ser alterados.
+ */
+public final class LayoutGuia {
+
+    /**
+     * Código de barras com as zonas de silêncio, canto inferior esquerdo em (x, y)
+     */
+    public static final class CodigoBarras {
+        private final int[] barras;
+        private final float x;
+        private final float y;
+        private final float larguraModulo;
+        private final float largura;
+        private final float altura;
+
+        public CodigoBarras(int[] barras, float x, float y, float larguraModulo, float largura, float altura) {
+            this.barras = barras;
+            this.x = x;
+            this.y = y;
+            this.larguraModulo = larguraModulo;
+            this.largura = largura;
+            this.altura = altura;
+        }
+
+        /**
+         * Larguras em módulos, alternando barra e espaço, sem a zona de silêncio
+         */
+        public int[] getBarras() {
+            return barras;
+        }
+
+        public float getX() {
+            return x;
+        }
+
+        public float getY() {
+            return y;
+        }
+
+        public float getLarguraModulo() {
+            return larguraModulo;
+        }
+
+        public float getLargura() {
+            return largura;
+        }
+
+        public float getAltura() {
+            return altura;
+        }
+    }
+
+    /**
+     * QR Code quadrado de lado {@code tamanho}, canto inferior esquerdo em (x, y)
+     */
+    public static final class QRCode {
+        private final BitMatrix modulos;
+        private final float x;
+        private final float y;
+        private final float tamanho;
+
+        public QRCode(BitMatrix modulos, float x, float y, float tamanho) {
+            this.modulos = modulos;
+            this.x = x;
+            this.y = y;
+            this.tamanho = tamanho;
+        }
+
+        /**
+         * Um bit por módulo, com a zona de silêncio; linha 0 no topo
+         */
+        public BitMatrix getModulos() {
+            return modulos;
+        }
+
+        public float getX() {
+            return x;
+        }
+
+        public float getY() {
+            return y;
+        }
+
+        public float getTamanho() {
+            return tamanho;
+        }
+    }
+
+    private final float largura;
+    private final float altura;
+    private final List<TrechoTexto> fundo;
+    private final List<TrechoTexto> textos;
+    private final CodigoBarras codigoBarras;
+    private final QRCode qrCode;
+
+    public LayoutGuia(float largura, float altura, List<TrechoTexto> fundo, List<TrechoTexto> textos,
+                      CodigoBarras codigoBarras, QRCode qrCode) {
+        this.largura = largura;
+        this.altura = altura;
+        this.fundo = List.copyOf(fundo);
+        this.textos = List.copyOf(textos);
+        this.codigoBarras = codigoBarras;
+        this.qrCode = qrCode;
+    }
+
+    public float getLargura() {
+        return largura;
+    }
+
+    public float getAltura() {
+        return altura;
+    }
+
+    /**
+     * Textos fixos, iguais em todas as guias
+     */
+    public List<TrechoTexto> getFundo() {
+        return fundo;
+    }
+
+    /**
+     * Valores desta guia
+     */
+    public List<TrechoTexto> getTextos() {
+        return textos;
+    }
+
+    public CodigoBarras getCodigoBarras() {
+        return codigoBarras;
+    }
+
+    public QRCode getQRCode() {
+        return qrCode;
+    }
+}
@@ -0,0 +1,73 @@
+package com.aronalvarenga.gerador.model;
+
+/**
+ * Perfis de geração do PDF: resolução e codificação dos símbolos e compressão do arquivo
+ */
+public enum PerfilRenderizacao {
+
+    /**
+     * Símbolos como retângulos vetoriais, nítidos em qualquer resolução
+     */
+    VETORIAL(0, Simbolos.VETORIAL, -1, false),
+
+    /**
+     * Conferência rápida: imagens de 1 bit a 96 DPI com Flate rápido e tabela de referências comum
+     */
+    RASCUNHO(96, Simbolos.FLATE, 1, false),
+
+    /**
+     * Visualização e e-mail: imagens de 1 bit a 150 DPI em CCITT G4 e compressão completa
+     */
+    TELA(150, Simbolos.CCITT_G4, -1, true),
+
+    /**
+     * Impressão: imagens de 1 bit a 600 DPI em CCITT G4 e compressão máxima
+     */
+    IMPRESSAO(600, Simbolos.CCITT_G4, 9, true);
+
+    /**
+     * Como o código de barras e o QR Code entram no PDF
+     */
+    public enum Simbolos {
+        VETORIAL,
+        CCITT_G4,
+        FLATE
+    }
+
+    private final int dpi;
+    private final Simbolos simbolos;
+    private final int nivelCompressao;
+    private final boolean compressaoCompleta;
+
+    PerfilRenderizacao(int dpi, Simbolos simbolos, int nivelCompressao, boolean compressaoCompleta) {
+        this.dpi = dpi;
+        this.simbolos = simbolos;
+        this.nivelCompressao = nivelCompressao;
+        this.compressaoCompleta = compressaoCompleta;
+    }
+
+    /**
+     * Resolução das imagens dos símbolos; 0 quando vetoriais
+     */
+    public int getDpi() {
+        return dpi;
+    }
+
+    public Simbolos getSimbolos() {
+        return simbolos;
+    }
+
+    /**
+     * Nível do Flate dos streams do PDF (0 a 9, ou -1 para o padrão do zlib)
+     */
+    public int getNivelCompressao() {
+        return nivelCompressao;
+    }
+
+    /**
+     * Object streams e tabela de referências em stream (PDF 1.5)
+     */
+    public boolean isCompressaoCompleta() {
+        return compressaoCompleta;
+    }
+}
@@ -0,0 +1,71 @@
+package com.aronalvarenga.gerador.model;
+
+public class ResumoConciliacao {
+
+    private long registrosLidos;
+    private long conciliados;
+    private long naoEncontrados;
+    private long divergentes;
+    private long registrosIgnorados;
+    private long totalPagoCentavos;
+
+    public long getRegistrosLidos() {
+        return registrosLidos;
+    }
+
+    public void setRegistrosLidos(long registrosLidos) {
+        this.registrosLidos = registrosLidos;
+    }
+
+    public long getConciliados() {
+        return conciliados;
+    }
+
+    public void setConciliados(long conciliados) {
+        this.conciliados = conciliados;
+    }
+
+    public long getNaoEncontrados() {
+        return naoEncontrados;
+    }
+
+    public void setNaoEncontrados(long naoEncontrados) {
+        this.naoEncontrados = naoEncontrados;
+    }
+
+    public long getDivergentes() {
+        return divergentes;
+    }
+
+    public void setDivergentes(long divergentes) {
+        this.divergentes = divergentes;
+    }
+
+    public long getRegistrosIgnorados() {
+        return registrosIgnorados;
+    }
+
+    public void setRegistrosIgnorados(long registrosIgnorados) {
+        this.registrosIgnorados = registrosIgnorados;
+    }
+
+    public long getTotalPagoCentavos() {
+        return totalPagoCentavos;
+    }
+
+    public void setTotalPagoCentavos(long totalPagoCentavos) {
+        this.totalPagoCentavos = totalPagoCentavos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumoConciliacao{" +
+                "registrosLidos=" + registrosLidos +
+                ", conciliados=" + conciliados +
+                ", naoEncontrados=" + naoEncontrados +
+                ", divergentes=" + divergentes +
+                ", registrosIgnorados=" + registrosIgnorados +
+                ", totalPagoCentavos=" + totalPagoCentavos +
+                '}';
+    }
+}
@@ -0,0 +1,146 @@
+package com.aronalvarenga.gerador.model;
+
+public class ResumoRenderizacao {
+
+    private long guiasRenderizadas;
+    private long guiasGravadas;
+    private long falhas;
+    private long colisoes;
+    private long bytesGravados;
+    private long nanosRenderizacao;
+    private long nanosGravacao;
+    private long nanosDecorridos;
+    private int threadsRenderizacao;
+    private int threadsGravacao;
+
+    public long getGuiasRenderizadas() {
+        return guiasRenderizadas;
+    }
+
+    public void setGuiasRenderizadas(long guiasRenderizadas) {
+        this.guiasRenderizadas = guiasRenderizadas;
+    }
+
+    public long getGuiasGravadas() {
+        return guiasGravadas;
+    }
+
+    public void setGuiasGravadas(long guiasGravadas) {
+        this.guiasGravadas = guiasGravadas;
+    }
+
+    public long getFalhas() {
+        return falhas;
+    }
+
+    public void setFalhas(long falhas) {
+        this.falhas = falhas;
+    }
+
+    /**
+     * Guias recusadas porque o código de barras já tinha sido emitido para outra guia (incluídas nas falhas)
+     */
+    public long getColisoes() {
+        return colisoes;
+    }
+
+    public void setColisoes(long colisoes) {
+        this.colisoes = colisoes;
+    }
+
+    public long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    public void setBytesGravados(long bytesGravados) {
+        this.bytesGravados = bytesGravados;
+    }
+
+    /**
+     * Tempo somado de todas as threads na etapa de renderização
+     */
+    public long getNanosRenderizacao() {
+        return nanosRenderizacao;
+    }
+
+    public void setNanosRenderizacao(long nanosRenderizacao) {
+        this.nanosRenderizacao = nanosRenderizacao;
+    }
+
+    /**
+     * Tempo somado de todas as threads na etapa de gravação
+     */
+    public long getNanosGravacao() {
+        return nanosGravacao;
+    }
+
+    public void setNanosGravacao(long nanosGravacao) {
+        this.nanosGravacao = nanosGravacao;
+    }
+
+    /**
+     * Tempo de relógio desde a primeira guia enviada
+     */
+    public long getNanosDecorridos() {
+        return nanosDecorridos;
+    }
+
+    public void setNanosDecorridos(long nanosDecorridos) {
+        this.nanosDecorridos = nanosDecorridos;
+    }
+
+    public int getThreadsRenderizacao() {
+        return threadsRenderizacao;
+    }
+
+    public void setThreadsRenderizacao(int threadsRenderizacao) {
+        this.threadsRenderizacao = threadsRenderizacao;
+    }
+
+    public int getThreadsGravacao() {
+        return threadsGravacao;
+    }
+
+    public void setThreadsGravacao(int threadsGravacao) {
+        this.threadsGravacao = threadsGravacao;
+    }
+
+    /**
+     * Capacidade da etapa de renderização em guias por segundo, com todas as threads ocupadas
+     */
+    public double getVazaoRenderizacao() {
+        return vazao(guiasRenderizadas, nanosRenderizacao, threadsRenderizacao);
+    }
+
+    /**
+     * Capacidade da etapa de gravação em guias por segundo, com todas as threads ocupadas
+     */
+    public double getVazaoGravacao() {
+        return vazao(guiasGravadas, nanosGravacao, threadsGravacao);
+    }
+
+    /**
+     * Guias gravadas por segundo de relógio
+     */
+    public double getVazaoTotal() {
+        return vazao(guiasGravadas, nanosDecorridos, 1);
+    }
+
+    private static double vazao(long guias, long nanos, int threads) {
+        return nanos == 0 ? 0 : guias * 1e9 * Math.max(1, threads) / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumoRenderizacao{" +
+                "guiasRenderizadas=" + guiasRenderizadas +
+                ", guiasGravadas=" + guiasGravadas +
+                ", falhas=" + falhas +
+                ", colisoes=" + colisoes +
+                ", bytesGravados=" + bytesGravados +
+                ", vazaoRenderizacao=" + String.format("%.1f", getVazaoRenderizacao()) +
+                ", vazaoGravacao=" + String.format("%.1f", getVazaoGravacao()) +
+                ", vazaoTotal=" + String.format("%.1f", getVazaoTotal()) +
+                '}';
+    }
+}
@@ -0,0 +1,37 @@
+package com.aronalvarenga.gerador.model;
+
+/**
+ * Tipos de chave PIX do DICT
+ */
+public enum TipoChavePix {
+
+    /**
+     * E-mail com até 77 caracteres
+     */
+    EMAIL,
+
+    /**
+     * Celular no formato +55 seguido de DDD e número (10 ou 11 dígitos)
+     */
+    TELEFONE,
+
+    /**
+     * CPF com 11 dígitos, sem pontuação e com dígitos verificadores válidos
+     */
+    CPF,
+
+    /**
+     * CNPJ com 14 dígitos, sem pontuação e com dígitos verificadores válidos
+     */
+    CNPJ,
+
+    /**
+     * Chave aleatória (EVP): UUID com 36 caracteres
+     */
+    ALEATORIA,
+
+    /**
+     * Não corresponde a nenhum formato de chave
+     */
+    INVALIDA
+}
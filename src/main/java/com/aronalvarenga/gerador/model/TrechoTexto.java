@@ -0,0 +1,70 @@
+package com.aronalvarenga.gerador.model;
+
+/**
+ * Texto posicionado na página da guia, com a linha de base começando em (x, y)
+ *
+ * As coordenadas estão em pontos, com origem no canto inferior esquerdo da página como no PDF. A largura é a
+ * medida pelas métricas da fonte padrão do PDF, já usada para alinhar o trecho.
+ */
+public final class TrechoTexto {
+
+    /**
+     * Fontes padrão do PDF usadas na guia
+     */
+    public enum Fonte {
+        HELVETICA,
+        HELVETICA_NEGRITO,
+        COURIER
+    }
+
+    private final String texto;
+    private final float x;
+    private final float y;
+    private final Fonte fonte;
+    private final float tamanho;
+    private final float largura;
+
+    public TrechoTexto(String texto, float x, float y, Fonte fonte, float tamanho, float largura) {
+        this.texto = texto;
+        this.x = x;
+        this.y = y;
+        this.fonte = fonte;
+        this.tamanho = tamanho;
+        this.largura = largura;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public Fonte getFonte() {
+        return fonte;
+    }
+
+    public float getTamanho() {
+        return tamanho;
+    }
+
+    public float getLargura() {
+        return largura;
+    }
+
+    @Override
+    public String toString() {
+        return "TrechoTexto{" +
+                "texto='" + texto + '\'' +
+                ", x=" + x +
+                ", y=" + y +
+                ", fonte=" + fonte +
+                ", tamanho=" + tamanho +
+                '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.aronalvarenga.gerador.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Geração de códigos de barras em lote a partir de entradas colunares (uma coluna por campo)
+ * O lote é dividido recursivamente entre os núcleos disponíveis com fork-join
+ */
+public class CodigoBarrasLoteService {
+
+    /**
+     * Quantidade de guias abaixo da qual um trecho é processado sem nova divisão
+     */
+    private static final int LIMIAR_DIVISAO = 8192;
+
+    private final CodigoBarrasService codigoBarrasService;
+    private final ForkJoinPool pool;
+
+    public CodigoBarrasLoteService() {
+        this(new CodigoBarrasService(), ForkJoinPool.commonPool());
+    }
+
+    public CodigoBarrasLoteService(CodigoBarrasService codigoBarrasService, ForkJoinPool pool) {
+        this.codigoBarrasService = codigoBarrasService;
+        this.pool = pool;
+    }
+
+    /**
+     * Gera os códigos de barras do lote em um buffer compactado de 44 bytes ASCII por guia
+     *
+     * @param centavos       valor de cada guia em centavos
+     * @param diasVencimento vencimento de cada guia em dias desde 1970-01-01
+     * @param camposGuia     número de cada guia empacotado por {@link CodigoBarrasService#empacotarDigitos(CharSequence)}
+     * @param camposCpf      CPF de cada guia empacotado por {@link CodigoBarrasService#empacotarDigitos(CharSequence)}
+     * @param destino        buffer de saída; o código da guia {@code i} ocupa as posições {@code [i * 44, i * 44 + 44)}
+     */
+    public void gerarCodigosBarras(long[] centavos, int[] diasVencimento, long[] camposGuia, long[] camposCpf,
+                                   byte[] destino) {
+        int quantidade = centavos.length;
+        if (diasVencimento.length != quantidade || camposGuia.length != quantidade || camposCpf.length != quantidade) {
+            throw new IllegalArgumentException("Todas as colunas do lote devem ter o mesmo tamanho");
+        }
+        if ((long) quantidade * CodigoBarrasService.TAMANHO_CODIGO_BARRAS > destino.length) {
+            throw new IllegalArgumentException("Buffer de destino menor que " + quantidade + " códigos de barras");
+        }
+
+        pool.invoke(new GerarTrecho(centavos, diasVencimento, camposGuia, camposCpf, destino, 0, quantidade));
+    }
+
+    /**
+     * Retorna o código de barras da guia {@code indice} de um buffer preenchido por
+     * {@link #gerarCodigosBarras(long[], int[], long[], long[], byte[])}
+     */
+    public static String lerCodigoBarras(byte[] destino, int indice) {
+        return new String(destino, indice * CodigoBarrasService.TAMANHO_CODIGO_BARRAS,
+                CodigoBarrasService.TAMANHO_CODIGO_BARRAS, StandardCharsets.US_ASCII);
+    }
+
+    private class GerarTrecho extends RecursiveAction {
+
+        private final long[] centavos;
+        private final int[] diasVencimento;
+        private final long[] camposGuia;
+        private final long[] camposCpf;
+        private final byte[] destino;
+        private final int inicio;
+        private final int fim;
+
+        GerarTrecho(long[] centavos, int[] diasVencimento, long[] camposGuia, long[] camposCpf,
+                    byte[] destino, int inicio, int fim) {
+            this.centavos = centavos;
+            this.diasVencimento = diasVencimento;
+            this.camposGuia = camposGuia;
+            this.camposCpf = camposCpf;
+            this.destino = destino;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= LIMIAR_DIVISAO) {
+                for (int i = inicio; i < fim; i++) {
+                    codigoBarrasService.gerarCodigoBarras(centavos[i], diasVencimento[i], camposGuia[i], camposCpf[i],
+                            destino, i * CodigoBarrasService.TAMANHO_CODIGO_BARRAS);
+                }
+                return;
+            }
+
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(
+                    new GerarTrecho(centavos, diasVencimento, camposGuia, camposCpf, destino, inicio, meio),
+                    new GerarTrecho(centavos, diasVencimento, camposGuia, camposCpf, destino, meio, fim)
+            );
+        }
+    }
+}
@@ -4,93 +4,232 @@ import com.aronalvarenga.gerador.model.GuiaPagamento;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public class CodigoBarrasService {
 
+    public static final int TAMANHO_CODIGO_BARRAS = 44;
+
     private static final String BANCO_CODIGO = "001";
     private static final String MOEDA_CODIGO = "9";
     private static final LocalDate DATA_BASE = LocalDate.of(1997, 10, 7);
+    private static final long DATA_BASE_EPOCH_DAY = DATA_BASE.toEpochDay();
+
+    private static final long VALOR_MAXIMO_CENTAVOS = 9_999_999_999L;
+    private static final long CAMPO_10_DIGITOS_MAXIMO = 9_999_999_999L;
+    private static final BigDecimal CEM = new BigDecimal("100");
+
+    // Posições no código de 44 dígitos: banco (0-2), moeda (3), DV (4), fator (5-8),
+    // valor (9-18), número da guia (19-28), constante "00001" (29-33), CPF (34-43)
+    private static final int POS_DV = 4;
+    private static final int POS_FATOR = 5;
+    private static final int POS_VALOR = 9;
+    private static final int POS_GUIA = 19;
+    private static final int POS_CONSTANTE = 29;
+    private static final int POS_CPF = 34;
+
+    /**
+     * Pesos do módulo 11 por posição do código completo (2 a 9, da direita para a esquerda,
+     * ignorando a posição do DV)
+     */
+    private static final int[] PESOS = new int[TAMANHO_CODIGO_BARRAS];
+
+    /**
+     * Soma ponderada dos trechos fixos (banco, moeda e constante do campo livre)
+     */
+    private static final int SOMA_TRECHOS_FIXOS;
+
+    static {
+        int peso = 2;
+        for (int i = TAMANHO_CODIGO_BARRAS - 1; i >= 0; i--) {
+            if (i == POS_DV) {
+                continue;
+            }
+            PESOS[i] = peso;
+            peso = peso == 9 ? 2 : peso + 1;
+        }
+
+        String constante = "00001";
+        int soma = 0;
+        for (int i = 0; i < 3; i++) {
+            soma += (BANCO_CODIGO.charAt(i) - '0') * PESOS[i];
+        }
+        soma += (MOEDA_CODIGO.charAt(0) - '0') * PESOS[3];
+        for (int i = 0; i < constante.length(); i++) {
+            soma += (constante.charAt(i) - '0') * PESOS[POS_CONSTANTE + i];
+        }
+        SOMA_TRECHOS_FIXOS = soma;
+    }
 
     /**
      * Gera um código de barras válido baseado no padrão FEBRABAN
      * Para fins de demonstração, usa uma estrutura simplificada mas válida
      */
     public String gerarCodigoBarras(GuiaPagamento guia) {
+        char[] codigo = new char[TAMANHO_CODIGO_BARRAS];
+        gerarCodigoBarras(
+                converterParaCentavos(guia.getValor()),
+                guia.getVencimento().toEpochDay(),
+                empacotarDigitos(guia.getNumeroGuia()),
+                empacotarDigitos(guia.getCpf()),
+                codigo,
+                0
+        );
+        return new String(codigo);
+    }
 
-        String fatorVencimento = calcularFatorVencimento(guia.getVencimento());
-
-        String valorFormatado = formatarValor(guia.getValor());
+    /**
+     * Escreve os 44 dígitos do código de barras em um buffer fornecido pelo chamador, sem alocação.
+     *
+     * @param centavos      valor em centavos (até 10 dígitos)
+     * @param diaVencimento vencimento em dias desde 1970-01-01 ({@link LocalDate#toEpochDay()})
+     * @param campoGuia     número da guia empacotado por {@link #empacotarDigitos(CharSequence)}
+     * @param campoCpf      CPF empacotado por {@link #empacotarDigitos(CharSequence)}
+     * @param destino       buffer de saída com pelo menos 44 posições a partir de {@code offset}
+     * @param offset        posição inicial no buffer
+     */
+    public void gerarCodigoBarras(long centavos, long diaVencimento, long campoGuia, long campoCpf,
+                                  char[] destino, int offset) {
+        int fator = calcularFatorVencimento(diaVencimento);
+        validarCampos(centavos, campoGuia, campoCpf);
 
-        String campoLivre = gerarCampoLivre(guia);
+        int soma = SOMA_TRECHOS_FIXOS;
+        soma += escreverDigitos(fator, 4, POS_FATOR, destino, offset);
+        soma += escreverDigitos(centavos, 10, POS_VALOR, destino, offset);
+        soma += escreverDigitos(campoGuia, 10, POS_GUIA, destino, offset);
+        soma += escreverDigitos(campoCpf, 10, POS_CPF, destino, offset);
 
-        // Monta o código sem DV para calcular o dígito verificador
-        // Estrutura: banco (3) + moeda (1) + fator (4) + valor (10) + campo livre (25) = 43 dígitos
-        String codigoSemDV = BANCO_CODIGO + MOEDA_CODIGO + fatorVencimento + valorFormatado + campoLivre;
+        destino[offset] = '0';
+        destino[offset + 1] = '0';
+        destino[offset + 2] = '1';
+        destino[offset + 3] = '9';
+        destino[offset + POS_DV] = (char) ('0' + calcularDigitoVerificador(soma));
+        destino[offset + POS_CONSTANTE] = '0';
+        destino[offset + POS_CONSTANTE + 1] = '0';
+        destino[offset + POS_CONSTANTE + 2] = '0';
+        destino[offset + POS_CONSTANTE + 3] = '0';
+        destino[offset + POS_CONSTANTE + 4] = '1';
+    }
 
-        int digitoVerificador = calcularDigitoVerificador(codigoSemDV);
+    /**
+     * Variante ASCII de {@link #gerarCodigoBarras(long, long, long, long, char[], int)}
+     */
+    public void gerarCodigoBarras(long centavos, long diaVencimento, long campoGuia, long campoCpf,
+                                  byte[] destino, int offset) {
+        int fator = calcularFatorVencimento(diaVencimento);
+        validarCampos(centavos, campoGuia, campoCpf);
 
-        // Monta o código completo: banco (3) + moeda (1) + DV (1) + fator (4) + valor (10) + campo livre (25) = 44 dígitos
-        StringBuilder codigo = new StringBuilder();
-        codigo.append(BANCO_CODIGO)
-                .append(MOEDA_CODIGO)
-                .append(digitoVerificador)
-                .append(fatorVencimento)
-                .append(valorFormatado)
-                .append(campoLivre);
+        int soma = SOMA_TRECHOS_FIXOS;
+        soma += escreverDigitos(fator, 4, POS_FATOR, destino, offset);
+        soma += escreverDigitos(centavos, 10, POS_VALOR, destino, offset);
+        soma += escreverDigitos(campoGuia, 10, POS_GUIA, destino, offset);
+        soma += escreverDigitos(campoCpf, 10, POS_CPF, destino, offset);
 
-        return codigo.toString();
+        destino[offset] = '0';
+        destino[offset + 1] = '0';
+        destino[offset + 2] = '1';
+        destino[offset + 3] = '9';
+        destino[offset + POS_DV] = (byte) ('0' + calcularDigitoVerificador(soma));
+        destino[offset + POS_CONSTANTE] = '0';
+        destino[offset + POS_CONSTANTE + 1] = '0';
+        destino[offset + POS_CONSTANTE + 2] = '0';
+        destino[offset + POS_CONSTANTE + 3] = '0';
+        destino[offset + POS_CONSTANTE + 4] = '1';
     }
 
-    private String calcularFatorVencimento(LocalDate vencimento) {
-        long dias = ChronoUnit.DAYS.between(DATA_BASE, vencimento);
-        int fator = (int) (dias % 10000);
-        return String.format("%04d", fator);
-    }
+    /**
+     * Converte os dígitos de um texto no campo de 10 posições usado no campo livre:
+     * os 10 primeiros dígitos, completados com zeros à direita. Caracteres não numéricos são ignorados.
+     */
+    public static long empacotarDigitos(CharSequence texto) {
+        long campo = 0;
+        int quantidade = 0;
 
-    private String formatarValor(BigDecimal valor) {
-        long centavos = valor.multiply(new BigDecimal("100")).longValue();
-        return String.format("%010d", centavos);
+        if (texto != null) {
+            for (int i = 0; i < texto.length() && quantidade < 10; i++) {
+                char c = texto.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    campo = campo * 10 + (c - '0');
+                    quantidade++;
+                }
+            }
+        }
+
+        for (; quantidade < 10; quantidade++) {
+            campo *= 10;
+        }
+
+        return campo;
     }
 
-    private String gerarCampoLivre(GuiaPagamento guia) {
-        StringBuilder campo = new StringBuilder();
+    /**
+     * Converte um valor monetário em centavos, truncando frações abaixo do centavo
+     */
+    public static long converterParaCentavos(BigDecimal valor) {
+        return valor.multiply(CEM).longValue();
+    }
 
-        String numeroGuia = guia.getNumeroGuia().replaceAll("\\D", "");
-        if (numeroGuia.length() > 10) {
-            numeroGuia = numeroGuia.substring(0, 10);
-        } else {
-            numeroGuia = String.format("%-10s", numeroGuia).replace(' ', '0');
+    /**
+     * Verifica o DV geral (posição 4) de um código de 44 dígitos ASCII, sem alocação
+     */
+    public static boolean validarDigitoVerificador(byte[] codigo, int offset) {
+        int soma = 0;
+        for (int i = 0; i < TAMANHO_CODIGO_BARRAS; i++) {
+            int digito = codigo[offset + i] - '0';
+            if (digito < 0 || digito > 9) {
+                return false;
+            }
+            soma += digito * PESOS[i];
         }
-        campo.append(numeroGuia);
-
-        campo.append("00001");
+        return codigo[offset + POS_DV] - '0' == calcularDigitoVerificador(soma);
+    }
 
-        String cpfNumeros = guia.getCpf().replaceAll("\\D", "");
-        if (cpfNumeros.length() >= 10) {
-            campo.append(cpfNumeros.substring(0, 10));
-        } else {
-            String sequencia = cpfNumeros + "0000000000";
-            campo.append(sequencia.substring(0, 10));
+    private int calcularFatorVencimento(long diaVencimento) {
+        long dias = diaVencimento - DATA_BASE_EPOCH_DAY;
+        if (dias < 0) {
+            throw new IllegalArgumentException("Vencimento anterior à data base FEBRABAN (07/10/1997)");
         }
+        return (int) (dias % 10000);
+    }
 
-        return campo.toString();
+    private void validarCampos(long centavos, long campoGuia, long campoCpf) {
+        if (centavos < 0 || centavos > VALOR_MAXIMO_CENTAVOS) {
+            throw new IllegalArgumentException("Valor fora do limite do código de barras: " + centavos + " centavos");
+        }
+        if (campoGuia < 0 || campoGuia > CAMPO_10_DIGITOS_MAXIMO || campoCpf < 0 || campoCpf > CAMPO_10_DIGITOS_MAXIMO) {
+            throw new IllegalArgumentException("Campo livre deve ter no máximo 10 dígitos por campo");
+        }
     }
 
-    private int calcularDigitoVerificador(String codigo) {
+    private static int escreverDigitos(long valor, int largura, int posicao, char[] destino, int offset) {
         int soma = 0;
-        int multiplicador = 2;
-
-        for (int i = codigo.length() - 1; i >= 0; i--) {
-            int digito = Character.getNumericValue(codigo.charAt(i));
-            soma += digito * multiplicador;
+        for (int i = posicao + largura - 1; i >= posicao; i--) {
+            int digito = (int) (valor % 10);
+            valor /= 10;
+            destino[offset + i] = (char) ('0' + digito);
+            soma += digito * PESOS[i];
+        }
+        return soma;
+    }
 
-            multiplicador++;
-            if (multiplicador > 9) {
-                multiplicador = 2;
-            }
+    private static int escreverDigitos(long valor, int largura, int posicao, byte[] destino, int offset) {
+        int soma = 0;
+        for (int i = posicao + largura - 1; i >= posicao; i--) {
+            int digito = (int) (valor % 10);
+            valor /= 10;
+            destino[offset + i] = (byte) ('0' + digito);
+            soma += digito * PESOS[i];
         }
+        return soma;
+    }
+
+    /**
+     * Peso do módulo 11 de uma posição do código completo (0 na posição do DV)
+     */
+    static int pesoModulo11(int posicao) {
+        return PESOS[posicao];
+    }
 
+    static int calcularDigitoVerificador(int soma) {
         int resto = soma % 11;
         int dv = 11 - resto;
 
@@ -118,4 +257,4 @@ public class CodigoBarrasService {
                 codigoBarras.substring(32, 33) + " " +
                 codigoBarras.substring(33);
     }
-}
\ No newline at end of file
+}
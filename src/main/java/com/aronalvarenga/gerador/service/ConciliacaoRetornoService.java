@@ -0,0 +1,383 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.ResumoConciliacao;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Conciliação de arquivos de retorno CNAB 240/400 com os códigos de barras emitidos
+ *
+ * O arquivo de retorno é mapeado em memória em janelas de tamanho fixo e cada registro é lido
+ * diretamente do mapeamento, sem criar uma String por linha. Os relatórios são gravados em fluxo,
+ * de forma que a memória usada não depende do tamanho do arquivo.
+ *
+ * Cada título é procurado pelo número da guia do nosso número. Como o campo livre trunca o número da guia,
+ * vários códigos emitidos podem ter o mesmo; entre eles vale o de valor igual ao valor nominal do título
+ * e, se nenhum for igual, o primeiro emitido.
+ */
+public class ConciliacaoRetornoService {
+
+    public static final String RELATORIO_CONCILIADOS = "conciliados.csv";
+    public static final String RELATORIO_NAO_ENCONTRADOS = "nao-encontrados.csv";
+    public static final String RELATORIO_DIVERGENTES = "divergentes.csv";
+
+    private static final long TAMANHO_JANELA = 64L * 1024 * 1024;
+    private static final int TAMANHO_BUFFER_RELATORIO = 64 * 1024;
+
+    private static final int TAMANHO_CODIGO = CodigoBarrasService.TAMANHO_CODIGO_BARRAS;
+    private static final int POS_VALOR_CODIGO = 9;
+    private static final int POS_GUIA_CODIGO = 19;
+
+    private static final long CHAVE_VAZIA = -1L;
+    private static final long SEM_TITULO = Long.MIN_VALUE;
+
+    private final byte[] codigosEmitidos;
+
+    // Índice de endereçamento aberto: número da guia (campo livre) -> primeira posição no buffer de códigos emitidos
+    private final long[] chaves;
+    private final int[] indices;
+    private final int mascara;
+
+    // O campo livre trunca o número da guia, então vários códigos podem ter o mesmo: cada posição aponta para
+    // o próximo código emitido com o mesmo número, ou -1
+    private final int[] proximos;
+
+    /**
+     * @param codigosEmitidos códigos de barras emitidos, compactados em 44 bytes ASCII por código
+     *                        (formato de {@link CodigoBarrasLoteService})
+     * @param quantidade      quantidade de códigos no buffer
+     */
+    public ConciliacaoRetornoService(byte[] codigosEmitidos, int quantidade) {
+        this.codigosEmitidos = codigosEmitidos;
+
+        int capacidade = Integer.highestOneBit(Math.max(2, quantidade) * 2 - 1) << 1;
+        this.chaves = new long[capacidade];
+        this.indices = new int[capacidade];
+        this.mascara = capacidade - 1;
+        this.proximos = new int[quantidade];
+        Arrays.fill(chaves, CHAVE_VAZIA);
+        Arrays.fill(proximos, -1);
+
+        // Último código da cadeia de cada posição, para encadear na ordem de emissão
+        int[] ultimos = new int[capacidade];
+        for (int i = 0; i < quantidade; i++) {
+            long guia = normalizarGuia(lerNumero(codigosEmitidos, i * TAMANHO_CODIGO + POS_GUIA_CODIGO, 10));
+            int posicao = espalhar(guia) & mascara;
+            while (chaves[posicao] != CHAVE_VAZIA && chaves[posicao] != guia) {
+                posicao = (posicao + 1) & mascara;
+            }
+            if (chaves[posicao] == CHAVE_VAZIA) {
+                chaves[posicao] = guia;
+                indices[posicao] = i;
+            } else {
+                proximos[ultimos[posicao]] = i;
+            }
+            ultimos[posicao] = i;
+        }
+    }
+
+    /**
+     * Concilia um arquivo de retorno gravando os relatórios no diretório informado
+     */
+    public ResumoConciliacao conciliar(Path arquivoRetorno, LayoutRetornoCnab layout, Path diretorioRelatorios)
+            throws IOException {
+        Files.createDirectories(diretorioRelatorios);
+
+        try (OutputStream conciliados = Files.newOutputStream(diretorioRelatorios.resolve(RELATORIO_CONCILIADOS));
+             OutputStream naoEncontrados = Files.newOutputStream(diretorioRelatorios.resolve(RELATORIO_NAO_ENCONTRADOS));
+             OutputStream divergentes = Files.newOutputStream(diretorioRelatorios.resolve(RELATORIO_DIVERGENTES))) {
+            return conciliar(arquivoRetorno, layout, conciliados, naoEncontrados, divergentes);
+        }
+    }
+
+    /**
+     * Concilia um arquivo de retorno gravando os relatórios nos fluxos informados (não são fechados)
+     */
+    public ResumoConciliacao conciliar(Path arquivoRetorno, LayoutRetornoCnab layout, OutputStream conciliados,
+                                       OutputStream naoEncontrados, OutputStream divergentes) throws IOException {
+        ResumoConciliacao resumo = new ResumoConciliacao();
+
+        Relatorio relatorioConciliados = new Relatorio(conciliados, "registro;chave;valor_pago");
+        Relatorio relatorioNaoEncontrados = new Relatorio(naoEncontrados, "registro;chave;valor_pago");
+        Relatorio relatorioDivergentes = new Relatorio(divergentes, "registro;chave;valor_emitido;valor_pago");
+
+        int tamanhoRegistro = layout.getTamanhoRegistro();
+        long numeroRegistro = 0;
+        Titulo titulo = new Titulo();
+
+        try (FileChannel canal = FileChannel.open(arquivoRetorno, StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            long inicioJanela = 0;
+
+            while (inicioJanela < tamanhoArquivo) {
+                long tamanhoJanela = Math.min(TAMANHO_JANELA, tamanhoArquivo - inicioJanela);
+                boolean ultimaJanela = inicioJanela + tamanhoJanela == tamanhoArquivo;
+                MappedByteBuffer janela = canal.map(FileChannel.MapMode.READ_ONLY, inicioJanela, tamanhoJanela);
+                int limite = janela.limit();
+                int p = 0;
+
+                while (true) {
+                    while (p < limite && (janela.get(p) == '\r' || janela.get(p) == '\n')) {
+                        p++;
+                    }
+                    if (p >= limite) {
+                        break;
+                    }
+                    if (p + tamanhoRegistro > limite) {
+                        if (ultimaJanela) {
+                            // Registro truncado no final do arquivo
+                            resumo.setRegistrosIgnorados(resumo.getRegistrosIgnorados() + 1);
+                            p = limite;
+                        }
+                        break;
+                    }
+
+                    numeroRegistro++;
+                    long valorPago = lerRegistro(janela, p, layout, numeroRegistro, titulo, resumo);
+                    if (valorPago != SEM_TITULO) {
+                        conciliarTitulo(titulo, valorPago, resumo,
+                                relatorioConciliados, relatorioNaoEncontrados, relatorioDivergentes);
+                    }
+                    p += tamanhoRegistro;
+                }
+
+                inicioJanela += p;
+            }
+        }
+
+        // Segmento do título sem o segmento do valor pago no final do arquivo
+        descartarPendente(titulo, resumo);
+
+        relatorioConciliados.flush();
+        relatorioNaoEncontrados.flush();
+        relatorioDivergentes.flush();
+
+        return resumo;
+    }
+
+    /**
+     * Lê um registro e, quando ele completa um título, retorna o valor pago; caso contrário retorna
+     * {@link #SEM_TITULO}. Registros que não pertencem a um título são contados como ignorados.
+     */
+    private static long lerRegistro(MappedByteBuffer janela, int inicio, LayoutRetornoCnab layout,
+                                    long numeroRegistro, Titulo titulo, ResumoConciliacao resumo) {
+        if (janela.get(inicio + layout.getPosicaoTipoRegistro()) != layout.getTipoDetalhe()) {
+            descartarPendente(titulo, resumo);
+            resumo.setRegistrosIgnorados(resumo.getRegistrosIgnorados() + 1);
+            return SEM_TITULO;
+        }
+
+        // Título em um único registro (CNAB 400)
+        if (layout.getPosicaoSegmento() < 0) {
+            titulo.ler(janela, inicio, layout, numeroRegistro);
+            return lerNumero(janela, inicio + layout.getPosicaoValorPago(), layout.getTamanhoValorPago());
+        }
+
+        byte segmento = janela.get(inicio + layout.getPosicaoSegmento());
+        long sequencial = lerNumero(janela, inicio + layout.getPosicaoSequencial(), layout.getTamanhoSequencial());
+        if (segmento == layout.getSegmentoTitulo()) {
+            descartarPendente(titulo, resumo);
+            titulo.ler(janela, inicio, layout, numeroRegistro);
+            return SEM_TITULO;
+        }
+        if (segmento == layout.getSegmentoValorPago() && titulo.pendente && titulo.sequencial >= 0
+                && sequencial == titulo.sequencial + 1) {
+            return lerNumero(janela, inicio + layout.getPosicaoValorPago(), layout.getTamanhoValorPago());
+        }
+
+        descartarPendente(titulo, resumo);
+        resumo.setRegistrosIgnorados(resumo.getRegistrosIgnorados() + 1);
+        return SEM_TITULO;
+    }
+
+    private static void descartarPendente(Titulo titulo, ResumoConciliacao resumo) {
+        if (titulo.pendente) {
+            titulo.pendente = false;
+            resumo.setRegistrosIgnorados(resumo.getRegistrosIgnorados() + 1);
+        }
+    }
+
+    private void conciliarTitulo(Titulo titulo, long valorPago, ResumoConciliacao resumo, Relatorio conciliados,
+                                 Relatorio naoEncontrados, Relatorio divergentes) throws IOException {
+        titulo.pendente = false;
+        resumo.setRegistrosLidos(resumo.getRegistrosLidos() + 1);
+
+        int emitido = titulo.guia < 0 ? -1 : buscar(normalizarGuia(titulo.guia));
+        for (int i = emitido; i >= 0; i = proximos[i]) {
+            if (valorEmitido(i) == titulo.valorNominal) {
+                emitido = i;
+                break;
+            }
+        }
+
+        if (valorPago >= 0) {
+            resumo.setTotalPagoCentavos(resumo.getTotalPagoCentavos() + valorPago);
+        }
+
+        if (emitido < 0) {
+            resumo.setNaoEncontrados(resumo.getNaoEncontrados() + 1);
+            naoEncontrados.iniciar(titulo.numeroRegistro).campo(titulo.chave).campo(valorPago).terminar();
+            return;
+        }
+
+        long valorEmitido = valorEmitido(emitido);
+        if (valorEmitido == valorPago) {
+            resumo.setConciliados(resumo.getConciliados() + 1);
+            conciliados.iniciar(titulo.numeroRegistro).campo(titulo.chave).campo(valorPago).terminar();
+        } else {
+            resumo.setDivergentes(resumo.getDivergentes() + 1);
+            divergentes.iniciar(titulo.numeroRegistro).campo(titulo.chave)
+                    .campo(valorEmitido).campo(valorPago).terminar();
+        }
+    }
+
+    private long valorEmitido(int emitido) {
+        return lerNumero(codigosEmitidos, emitido * TAMANHO_CODIGO + POS_VALOR_CODIGO, 10);
+    }
+
+    private int buscar(long guia) {
+        int posicao = espalhar(guia) & mascara;
+        while (chaves[posicao] != CHAVE_VAZIA) {
+            if (chaves[posicao] == guia) {
+                return indices[posicao];
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /**
+     * Chave do índice a partir do número da guia de 10 dígitos
+     *
+     * O campo livre completa o número da guia com zeros à direita ("123" vira 1230000000) e o nosso número do
+     * banco com zeros à esquerda (0000000123); sem os zeros finais, os dois lados têm a mesma chave. Guias que
+     * só diferem em zeros finais ("123" e "1230") já têm o mesmo campo livre e ficam na mesma cadeia.
+     */
+    private static long normalizarGuia(long guia) {
+        while (guia > 0 && guia % 10 == 0) {
+            guia /= 10;
+        }
+        return guia;
+    }
+
+    private static int espalhar(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Lê um número de largura fixa; retorna -1 se houver caractere não numérico (espaços à esquerda são aceitos)
+     */
+    private static long lerNumero(MappedByteBuffer janela, int inicio, int tamanho) {
+        long valor = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            int c = janela.get(i);
+            if (c == ' ' && valor == 0) {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
+
+    private static long lerNumero(byte[] buffer, int inicio, int tamanho) {
+        long valor = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            valor = valor * 10 + (buffer[i] - '0');
+        }
+        return valor;
+    }
+
+    /**
+     * Título lido do registro (ou do segmento) com o nosso número, à espera do valor pago
+     */
+    private static final class Titulo {
+
+        private final byte[] chave = new byte[LayoutRetornoCnab.TAMANHO_CHAVE];
+        private boolean pendente;
+        private long numeroRegistro;
+        private long sequencial;
+        private long guia;
+        private long valorNominal;
+
+        void ler(MappedByteBuffer janela, int inicio, LayoutRetornoCnab layout, long numeroRegistro) {
+            int inicioChave = inicio + layout.getPosicaoChave();
+            for (int i = 0; i < chave.length; i++) {
+                chave[i] = janela.get(inicioChave + i);
+            }
+            this.guia = lerNumero(janela, inicioChave, chave.length);
+            this.valorNominal = lerNumero(janela, inicio + layout.getPosicaoValorNominal(),
+                    layout.getTamanhoValorNominal());
+            this.sequencial = layout.getPosicaoSequencial() < 0 ? -1
+                    : lerNumero(janela, inicio + layout.getPosicaoSequencial(), layout.getTamanhoSequencial());
+            this.numeroRegistro = numeroRegistro;
+            this.pendente = true;
+        }
+    }
+
+    /**
+     * Relatório CSV gravado byte a byte em um buffer reutilizável
+     */
+    private static final class Relatorio {
+
+        private final OutputStream saida;
+        private final byte[] digitos = new byte[20];
+
+        Relatorio(OutputStream saida, String cabecalho) throws IOException {
+            this.saida = new BufferedOutputStream(saida, TAMANHO_BUFFER_RELATORIO);
+            this.saida.write(cabecalho.getBytes(StandardCharsets.US_ASCII));
+            this.saida.write('\n');
+        }
+
+        Relatorio iniciar(long numeroRegistro) throws IOException {
+            escreverNumero(numeroRegistro);
+            return this;
+        }
+
+        Relatorio campo(byte[] texto) throws IOException {
+            saida.write(';');
+            saida.write(texto);
+            return this;
+        }
+
+        Relatorio campo(long numero) throws IOException {
+            saida.write(';');
+            escreverNumero(numero);
+            return this;
+        }
+
+        void terminar() throws IOException {
+            saida.write('\n');
+        }
+
+        void flush() throws IOException {
+            saida.flush();
+        }
+
+        private void escreverNumero(long numero) throws IOException {
+            if (numero < 0) {
+                saida.write('-');
+                saida.write('1');
+                return;
+            }
+            int p = digitos.length;
+            do {
+                digitos[--p] = (byte) ('0' + numero % 10);
+                numero /= 10;
+            } while (numero > 0);
+            saida.write(digitos, p, digitos.length - p);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Escrita de um lote de guias em arquivos PDF sequenciais, uma guia por página
+ *
+ * Cada arquivo tem um {@link ModeloPaginaGuia} com o fundo estático compartilhado pelas páginas. Cada página
+ * é concluída e gravada assim que a guia é escrita, e os form XObjects dos símbolos são liberados em seguida.
+ * O que o iText ainda guarda por arquivo (tabela de referências e árvore de páginas) é limitado pela troca de
+ * arquivo ao atingir o limite de páginas ou de bytes, então a memória não cresce com o lote.
+ *
+ * Os arquivos usam compressão completa (PDF 1.5 com object streams e tabela de referências em stream) e se
+ * chamam {@code prefixo-0001.pdf}, {@code prefixo-0002.pdf}, ... Não é thread-safe.
+ */
+public class EscritorPdfLote implements Closeable {
+
+    public static final int LIMITE_PAGINAS_PADRAO = 5000;
+    public static final long LIMITE_BYTES_PADRAO = 256L * 1024 * 1024;
+
+    private final PdfService pdfService;
+    private final Path diretorio;
+    private final String prefixo;
+    private final int limitePaginas;
+    private final long limiteBytes;
+
+    private final List<Path> arquivos = new ArrayList<>();
+    private Document document;
+    private PdfWriter writer;
+    private ModeloPaginaGuia modelo;
+    private int paginasArquivo;
+    private long guiasEscritas;
+
+    public EscritorPdfLote(Path diretorio, String prefixo) {
+        this(new PdfService(), diretorio, prefixo, LIMITE_PAGINAS_PADRAO, LIMITE_BYTES_PADRAO);
+    }
+
+    /**
+     * @param limitePaginas páginas por arquivo
+     * @param limiteBytes   tamanho aproximado a partir do qual a próxima guia vai para um novo arquivo
+     */
+    public EscritorPdfLote(PdfService pdfService, Path diretorio, String prefixo, int limitePaginas, long limiteBytes) {
+        if (limitePaginas <= 0 || limiteBytes <= 0) {
+            throw new IllegalArgumentException("Limites de páginas e de bytes devem ser positivos");
+        }
+        this.pdfService = pdfService;
+        this.diretorio = diretorio;
+        this.prefixo = prefixo;
+        this.limitePaginas = limitePaginas;
+        this.limiteBytes = limiteBytes;
+    }
+
+    /**
+     * Escreve a guia em uma nova página, abrindo o próximo arquivo se o atual atingiu algum limite
+     *
+     * Se a guia falhar, a página é descartada e o escritor continua pronto para a próxima guia.
+     */
+    public void adicionar(GuiaPagamento guia) throws DocumentException, IOException, WriterException {
+        if (document != null && (paginasArquivo >= limitePaginas || writer.getCurrentDocumentSize() >= limiteBytes)) {
+            fecharArquivo();
+        }
+        if (document == null) {
+            abrirArquivo();
+        }
+
+        List<PdfTemplate> templates;
+        try {
+            templates = pdfService.escreverGuia(writer, modelo, guia);
+        } catch (DocumentException | WriterException | RuntimeException e) {
+            // Descarta o que a guia chegou a desenhar, para a próxima começar em uma página vazia; sem validar
+            // o conteúdo, que pode ter ficado com um bloco de texto aberto
+            writer.getDirectContent().reset(false);
+            throw e;
+        }
+        // Conclui a página: o conteúdo é gravado e os símbolos já podem ir para o arquivo e sair da memória
+        document.newPage();
+        for (PdfTemplate template : templates) {
+            writer.releaseTemplate(template);
+        }
+
+        paginasArquivo = writer.getPageNumber() - 1;
+        guiasEscritas++;
+    }
+
+    /**
+     * Arquivos abertos até agora, na ordem de criação
+     */
+    public List<Path> getArquivos() {
+        return Collections.unmodifiableList(arquivos);
+    }
+
+    public long getGuiasEscritas() {
+        return guiasEscritas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fecharArquivo();
+    }
+
+    private void abrirArquivo() throws DocumentException, IOException {
+        Path arquivo = diretorio.resolve(String.format("%s-%04d.pdf", prefixo, arquivos.size() + 1));
+        BufferedOutputStream saida = new BufferedOutputStream(Files.newOutputStream(arquivo),
+                PdfService.TAMANHO_BUFFER_SAIDA);
+        try {
+            document = new Document(PageSize.A4, 30, 30, 30, 30);
+            writer = PdfWriter.getInstance(document, saida);
+            pdfService.configurarWriter(writer);
+            writer.setFullCompression();
+            document.open();
+            modelo = new ModeloPaginaGuia(writer);
+        } catch (DocumentException | RuntimeException e) {
+            document = null;
+            writer = null;
+            modelo = null;
+            saida.close();
+            throw e;
+        }
+        arquivos.add(arquivo);
+        paginasArquivo = 0;
+    }
+
+    private void fecharArquivo() {
+        if (document != null) {
+            // Fecha o writer e o arquivo
+            document.close();
+            document = null;
+            writer = null;
+            modelo = null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.util.BufferSaida;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.DocumentException;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Escrita dos PDFs de um lote em arquivos ZIP sequenciais
+ *
+ * Cada PDF vai para uma entrada {@code guia-<número>-<sequência>.pdf} sem compressão (STORED), pois o PDF já
+ * é comprimido. A sequência conta as guias do lote a partir de 1, de modo que uma guia reemitida no mesmo lote
+ * ganha uma entrada própria. A entrada STORED exige tamanho e CRC antes dos dados, então o PDF é gerado por
+ * inteiro em um {@link BufferSaida} reaproveitado: a memória é limitada pelo tamanho de uma entrada.
+ *
+ * Ao atingir o limite de bytes, o arquivo atual é fechado e o próximo é aberto ({@code prefixo-0001.zip},
+ * {@code prefixo-0002.zip}, ...). Cada arquivo termina com a entrada {@code manifesto.csv}, que associa o
+ * número e a sequência de cada guia à sua entrada. As linhas do manifesto vão para um arquivo temporário no
+ * mesmo diretório, copiado para o ZIP e apagado ao fechar o arquivo. O limite considera as entradas de PDF;
+ * manifesto e diretório central do ZIP ficam além dele.
+ *
+ * Pode ser usado como destino de {@link RenderizadorLoteGuias}; as escritas são sincronizadas.
+ */
+public class EscritorZipLote implements RenderizadorLoteGuias.DestinoPdf, Closeable {
+
+    public static final String NOME_MANIFESTO = "manifesto.csv";
+    public static final long LIMITE_BYTES_PADRAO = 2L * 1024 * 1024 * 1024;
+
+    private static final String CABECALHO_MANIFESTO = "numeroGuia;sequencia;entrada;bytes;crc32\n";
+    private static final int TAMANHO_CABECALHO_LOCAL = 30;
+
+    private final Path diretorio;
+    private final String prefixo;
+    private final long limiteBytes;
+
+    private final List<Path> arquivos = new ArrayList<>();
+    private final BufferSaida bufferPdf = new BufferSaida();
+    private final CRC32 crc = new CRC32();
+    private ContadorBytes contador;
+    private ZipOutputStream zip;
+    private Path arquivoManifesto;
+    private OutputStream manifesto;
+    private int entradasArquivo;
+    private long guiasEscritas;
+
+    public EscritorZipLote(Path diretorio, String prefixo) {
+        this(diretorio, prefixo, LIMITE_BYTES_PADRAO);
+    }
+
+    public EscritorZipLote(Path diretorio, String prefixo, long limiteBytes) {
+        if (limiteBytes <= 0) {
+            throw new IllegalArgumentException("Limite de bytes deve ser positivo");
+        }
+        this.diretorio = diretorio;
+        this.prefixo = prefixo;
+        this.limiteBytes = limiteBytes;
+    }
+
+    /**
+     * Gera o PDF da guia com o serviço informado e grava no arquivo atual
+     */
+    public synchronized void adicionar(GuiaPagamento guia, PdfService pdfService)
+            throws DocumentException, IOException, WriterException {
+        pdfService.gerarPdf(guia, bufferPdf);
+        adicionar(guia, bufferPdf);
+    }
+
+    /**
+     * Grava o PDF já gerado como uma entrada STORED, abrindo o próximo arquivo se a entrada ultrapassar o limite
+     */
+    public synchronized void adicionar(GuiaPagamento guia, BufferSaida pdf) throws IOException {
+        long sequencia = guiasEscritas + 1;
+        String nome = String.format("guia-%s-%06d.pdf", guia.getNumeroGuia(), sequencia);
+        int tamanho = pdf.getTamanho();
+
+        long tamanhoEntrada = TAMANHO_CABECALHO_LOCAL + nome.length() + tamanho;
+        if (zip != null && entradasArquivo > 0 && contador.bytes + tamanhoEntrada > limiteBytes) {
+            fecharArquivo();
+        }
+        if (zip == null) {
+            abrirArquivo();
+        }
+
+        crc.reset();
+        crc.update(pdf.comoByteBuffer());
+        long valorCrc = crc.getValue();
+
+        ZipEntry entrada = new ZipEntry(nome);
+        entrada.setMethod(ZipEntry.STORED);
+        entrada.setSize(tamanho);
+        entrada.setCompressedSize(tamanho);
+        entrada.setCrc(valorCrc);
+        zip.putNextEntry(entrada);
+        pdf.escreverEm(zip);
+        zip.closeEntry();
+
+        String linha = guia.getNumeroGuia() + ';' + sequencia + ';' + nome + ';' + tamanho + ';'
+                + Long.toHexString(valorCrc) + '\n';
+        manifesto.write(linha.getBytes(StandardCharsets.UTF_8));
+        entradasArquivo++;
+        guiasEscritas++;
+    }
+
+    @Override
+    public void gravar(GuiaPagamento guia, BufferSaida pdf) throws IOException {
+        adicionar(guia, pdf);
+    }
+
+    /**
+     * Arquivos abertos até agora, na ordem de criação
+     */
+    public synchronized List<Path> getArquivos() {
+        return Collections.unmodifiableList(new ArrayList<>(arquivos));
+    }
+
+    public synchronized long getGuiasEscritas() {
+        return guiasEscritas;
+    }
+
+    /**
+     * Grava o manifesto do arquivo atual e o fecha
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        fecharArquivo();
+    }
+
+    private void abrirArquivo() throws IOException {
+        Path arquivo = diretorio.resolve(String.format("%s-%04d.zip", prefixo, arquivos.size() + 1));
+        Path temporario = Files.createTempFile(diretorio, "." + prefixo + "-", ".csv.tmp");
+        try {
+            manifesto = new BufferedOutputStream(Files.newOutputStream(temporario));
+            manifesto.write(CABECALHO_MANIFESTO.getBytes(StandardCharsets.UTF_8));
+            contador = new ContadorBytes(new BufferedOutputStream(Files.newOutputStream(arquivo),
+                    PdfService.TAMANHO_BUFFER_SAIDA));
+        } catch (IOException e) {
+            if (manifesto != null) {
+                manifesto.close();
+                manifesto = null;
+            }
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+        arquivoManifesto = temporario;
+        zip = new ZipOutputStream(contador, StandardCharsets.UTF_8);
+        arquivos.add(arquivo);
+        entradasArquivo = 0;
+    }
+
+    private void fecharArquivo() throws IOException {
+        if (zip == null) {
+            return;
+        }
+        try {
+            manifesto.close();
+            // Texto repetitivo: o manifesto é a única entrada comprimida
+            zip.putNextEntry(new ZipEntry(NOME_MANIFESTO));
+            Files.copy(arquivoManifesto, zip);
+            zip.closeEntry();
+        } finally {
+            try {
+                zip.close();
+            } finally {
+                manifesto.close();
+                Files.deleteIfExists(arquivoManifesto);
+                zip = null;
+                contador = null;
+                manifesto = null;
+                arquivoManifesto = null;
+            }
+        }
+    }
+
+    /**
+     * Conta os bytes já gravados no arquivo, incluindo cabeçalhos do ZIP
+     */
+    private static final class ContadorBytes extends FilterOutputStream {
+        private long bytes;
+
+        private ContadorBytes(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+}
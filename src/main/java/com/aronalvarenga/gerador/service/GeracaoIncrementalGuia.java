@@ -0,0 +1,123 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.util.NormalizadorTextoPix;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Código de barras e payload PIX de uma guia editada repetidamente, refazendo só as etapas afetadas
+ *
+ * Cada etapa guarda as entradas da última execução:
+ * <ul>
+ *     <li>código de barras: valor, vencimento, número da guia e CPF</li>
+ *     <li>payload PIX: chave, nome normalizado (campo 59), cidade extraída do endereço (campo 60), valor e
+ *     número da guia</li>
+ * </ul>
+ * Assim, mudar o nome só refaz o payload, e mudar o endereço só o refaz se a cidade mudar. Os símbolos
+ * (matriz do QR Code e barras ITF) seguem no {@code CacheSimbolos}, indexados pelo conteúdo.
+ *
+ * Não é thread-safe: uma instância por editor.
+ */
+public class GeracaoIncrementalGuia {
+
+    /**
+     * Etapas que podem ser refeitas em {@link #atualizar(GuiaPagamento)}
+     */
+    public enum Etapa {
+        CODIGO_BARRAS,
+        PAYLOAD_PIX
+    }
+
+    private final CodigoBarrasService codigoBarrasService;
+    private final PixService pixService;
+    private final NormalizadorTextoPix normalizador = new NormalizadorTextoPix();
+
+    private BigDecimal valorBarras;
+    private LocalDate vencimentoBarras;
+    private String numeroGuiaBarras;
+    private String cpfBarras;
+    private String codigoBarras;
+
+    private String chavePix;
+    private String nomePix;
+    private String cidadePix;
+    private BigDecimal valorPix;
+    private String numeroGuiaPix;
+    private String payloadPix;
+
+    public GeracaoIncrementalGuia() {
+        this(new CodigoBarrasService(), new PixService());
+    }
+
+    public GeracaoIncrementalGuia(CodigoBarrasService codigoBarrasService, PixService pixService) {
+        this.codigoBarrasService = codigoBarrasService;
+        this.pixService = pixService;
+    }
+
+    /**
+     * Preenche o código de barras e o payload PIX da guia, reaproveitando os da chamada anterior quando as
+     * entradas de cada etapa não mudaram
+     *
+     * @return etapas refeitas nesta chamada
+     */
+    public Set<Etapa> atualizar(GuiaPagamento guia) {
+        Set<Etapa> refeitas = EnumSet.noneOf(Etapa.class);
+
+        if (codigoBarras == null
+                || !mesmoValor(valorBarras, guia.getValor())
+                || !Objects.equals(vencimentoBarras, guia.getVencimento())
+                || !Objects.equals(numeroGuiaBarras, guia.getNumeroGuia())
+                || !Objects.equals(cpfBarras, guia.getCpf())) {
+            // Se a geração falhar, a etapa fica inválida e é refeita na próxima chamada
+            codigoBarras = null;
+            codigoBarras = codigoBarrasService.gerarCodigoBarras(guia);
+            valorBarras = guia.getValor();
+            vencimentoBarras = guia.getVencimento();
+            numeroGuiaBarras = guia.getNumeroGuia();
+            cpfBarras = guia.getCpf();
+            refeitas.add(Etapa.CODIGO_BARRAS);
+        }
+        guia.setCodigoBarras(codigoBarras);
+
+        String nome = normalizador.normalizarNome(guia.getNomeProprietario());
+        String cidade = normalizador.extrairCidade(guia.getEndereco());
+        if (payloadPix == null
+                || !Objects.equals(chavePix, guia.getChavePix())
+                || !nome.equals(nomePix)
+                || !cidade.equals(cidadePix)
+                || !mesmoValor(valorPix, guia.getValor())
+                || !Objects.equals(numeroGuiaPix, guia.getNumeroGuia())) {
+            payloadPix = null;
+            payloadPix = pixService.gerarQRCodePix(guia);
+            chavePix = guia.getChavePix();
+            nomePix = nome;
+            cidadePix = cidade;
+            valorPix = guia.getValor();
+            numeroGuiaPix = guia.getNumeroGuia();
+            refeitas.add(Etapa.PAYLOAD_PIX);
+        }
+        guia.setQrCodePix(payloadPix);
+
+        return refeitas;
+    }
+
+    /**
+     * Esquece as entradas anteriores: a próxima atualização refaz todas as etapas
+     */
+    public void limpar() {
+        codigoBarras = null;
+        payloadPix = null;
+    }
+
+    /**
+     * "150.5" e "150.50" geram o mesmo código e o mesmo payload
+     */
+    private static boolean mesmoValor(BigDecimal anterior, BigDecimal atual) {
+        return anterior != null && atual != null && anterior.compareTo(atual) == 0;
+    }
+}
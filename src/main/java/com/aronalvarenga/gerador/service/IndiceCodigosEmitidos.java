@@ -0,0 +1,309 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Índice persistente de códigos de barras emitidos, para detectar colisões no momento da emissão
+ *
+ * O campo livre trunca o número da guia e o CPF em 10 dígitos, então guias diferentes podem gerar o mesmo
+ * código. O índice é uma tabela hash de endereçamento aberto gravada em um arquivo mapeado em memória
+ * (fora do heap), e sobrevive a reinícios. Cada código ocupa 24 bytes: as partes fixas (banco, moeda e a
+ * constante "00001") e o DV, que é derivado, não são gravados, e os 34 dígitos variáveis cabem em dois longs;
+ * o terceiro long é a {@link #identidade(GuiaPagamento) identidade} da guia que recebeu o código, para separar a
+ * reemissão da mesma guia de uma colisão entre guias diferentes.
+ *
+ * A capacidade é fixada na criação do arquivo.
+ */
+public class IndiceCodigosEmitidos implements Closeable {
+
+    private static final long ASSINATURA = 0x4755494149445832L; // "GUIAIDX2"
+    private static final int TAMANHO_CABECALHO = 64;
+    private static final int TAMANHO_ENTRADA = 24;
+    private static final int BITS_ENTRADAS_POR_BLOCO = 26; // 64 Mi entradas = 1,5 GiB por mapeamento
+    private static final double CARGA_MAXIMA = 0.9;
+
+    private static final int POS_CABECALHO_CAPACIDADE = 8;
+    private static final int POS_CABECALHO_QUANTIDADE = 16;
+
+    private static final int TAMANHO_CODIGO = CodigoBarrasService.TAMANHO_CODIGO_BARRAS;
+
+    /**
+     * Resultado do registro de um código
+     */
+    public enum Registro {
+        /** Código ainda não emitido, agora registrado */
+        NOVO,
+        /** Código já emitido para a mesma guia */
+        REEMISSAO,
+        /** Código já emitido para outra guia */
+        COLISAO
+    }
+
+    private final FileChannel canal;
+    private final MappedByteBuffer cabecalho;
+    private final MappedByteBuffer[] blocos;
+    private final long capacidade;
+    private final long mascara;
+    private final long limiteQuantidade;
+    private long quantidade;
+
+    private IndiceCodigosEmitidos(FileChannel canal, long capacidade, boolean novo) throws IOException {
+        this.canal = canal;
+        this.capacidade = capacidade;
+        this.mascara = capacidade - 1;
+        this.limiteQuantidade = (long) (capacidade * CARGA_MAXIMA);
+        this.cabecalho = canal.map(FileChannel.MapMode.READ_WRITE, 0, TAMANHO_CABECALHO);
+
+        long entradasPorBloco = 1L << BITS_ENTRADAS_POR_BLOCO;
+        int quantidadeBlocos = (int) ((capacidade + entradasPorBloco - 1) / entradasPorBloco);
+        this.blocos = new MappedByteBuffer[quantidadeBlocos];
+        for (int i = 0; i < quantidadeBlocos; i++) {
+            long entradas = Math.min(entradasPorBloco, capacidade - i * entradasPorBloco);
+            blocos[i] = canal.map(FileChannel.MapMode.READ_WRITE,
+                    TAMANHO_CABECALHO + i * entradasPorBloco * TAMANHO_ENTRADA, entradas * TAMANHO_ENTRADA);
+        }
+
+        if (novo) {
+            cabecalho.putLong(0, ASSINATURA);
+            cabecalho.putLong(POS_CABECALHO_CAPACIDADE, capacidade);
+            cabecalho.putLong(POS_CABECALHO_QUANTIDADE, 0);
+        }
+        this.quantidade = cabecalho.getLong(POS_CABECALHO_QUANTIDADE);
+    }
+
+    /**
+     * Abre o índice gravado no arquivo, ou cria um novo com espaço para {@code capacidadeMinima} códigos
+     * (a capacidade só é usada na criação)
+     */
+    public static IndiceCodigosEmitidos abrir(Path arquivo, long capacidadeMinima) throws IOException {
+        boolean novo = !Files.exists(arquivo) || Files.size(arquivo) == 0;
+        FileChannel canal = FileChannel.open(arquivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            long capacidade;
+            if (novo) {
+                capacidade = Long.highestOneBit((long) Math.ceil(Math.max(16, capacidadeMinima) / CARGA_MAXIMA) - 1) << 1;
+            } else {
+                MappedByteBuffer existente = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANHO_CABECALHO);
+                if (existente.getLong(0) != ASSINATURA) {
+                    throw new IOException("Arquivo não é um índice de códigos emitidos: " + arquivo);
+                }
+                capacidade = existente.getLong(POS_CABECALHO_CAPACIDADE);
+            }
+            return new IndiceCodigosEmitidos(canal, capacidade, novo);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Registra o código de barras da guia, que já deve ter sido gerado
+     */
+    public Registro registrar(GuiaPagamento guia) {
+        return registrar(paraAscii(guia.getCodigoBarras()), 0, identidade(guia));
+    }
+
+    public Registro registrar(String codigoBarras, long identidade) {
+        return registrar(paraAscii(codigoBarras), 0, identidade);
+    }
+
+    /**
+     * Registra um código emitido para a guia de {@code identidade}
+     *
+     * @return {@link Registro#COLISAO} se o código já pertence a outra guia; nesse caso nada é gravado
+     */
+    public synchronized Registro registrar(byte[] codigo, int offset, long identidade) {
+        long alto = parteAlta(codigo, offset);
+        long baixo = parteBaixa(codigo, offset);
+
+        long entrada = localizar(alto, baixo);
+        if (lerAlto(entrada) != 0) {
+            return lerIdentidade(entrada) == identidade ? Registro.REEMISSAO : Registro.COLISAO;
+        }
+        if (quantidade >= limiteQuantidade) {
+            throw new IllegalStateException("Índice de códigos emitidos cheio (" + quantidade
+                    + " códigos); recrie o arquivo com capacidade maior");
+        }
+
+        gravar(entrada, alto, baixo, identidade);
+        quantidade++;
+        cabecalho.putLong(POS_CABECALHO_QUANTIDADE, quantidade);
+        return Registro.NOVO;
+    }
+
+    /**
+     * Registra um lote de códigos compactados (44 bytes ASCII por código)
+     *
+     * @param identidades identidade da guia de cada código
+     * @param registros   se informado, recebe o resultado de cada código
+     * @return quantidade de colisões
+     */
+    public synchronized int registrarLote(byte[] codigos, long[] identidades, int quantidadeCodigos,
+                                          Registro[] registros) {
+        int colisoes = 0;
+        for (int i = 0; i < quantidadeCodigos; i++) {
+            Registro registro = registrar(codigos, i * TAMANHO_CODIGO, identidades[i]);
+            if (registros != null) {
+                registros[i] = registro;
+            }
+            if (registro == Registro.COLISAO) {
+                colisoes++;
+            }
+        }
+        return colisoes;
+    }
+
+    /**
+     * Identidade da guia: hash de 64 bits dos dígitos completos do número da guia e do CPF, sem o truncamento
+     * do código de barras. Formatações diferentes do mesmo número ou CPF têm a mesma identidade.
+     */
+    public static long identidade(GuiaPagamento guia) {
+        return identidade(guia.getNumeroGuia(), guia.getCpf());
+    }
+
+    public static long identidade(CharSequence numeroGuia, CharSequence cpf) {
+        // FNV-1a sobre os dígitos, com um separador entre os campos
+        long hash = 0xCBF29CE484222325L;
+        hash = acumularDigitos(hash, numeroGuia);
+        hash = (hash ^ '/') * 0x100000001B3L;
+        return acumularDigitos(hash, cpf);
+    }
+
+    public synchronized boolean contem(byte[] codigo, int offset) {
+        long alto = parteAlta(codigo, offset);
+        long baixo = parteBaixa(codigo, offset);
+        return lerAlto(localizar(alto, baixo)) != 0;
+    }
+
+    public boolean contem(String codigoBarras) {
+        return contem(paraAscii(codigoBarras), 0);
+    }
+
+    public synchronized long getQuantidade() {
+        return quantidade;
+    }
+
+    public long getCapacidade() {
+        return capacidade;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cabecalho.force();
+        for (MappedByteBuffer bloco : blocos) {
+            bloco.force();
+        }
+        canal.close();
+    }
+
+    /**
+     * Retorna a entrada que contém o código ou a primeira entrada vazia da sequência de sondagem
+     */
+    private long localizar(long alto, long baixo) {
+        long entrada = espalhar(alto, baixo) & mascara;
+        while (true) {
+            long altoGravado = lerAlto(entrada);
+            if (altoGravado == 0 || (altoGravado == alto && lerBaixo(entrada) == baixo)) {
+                return entrada;
+            }
+            entrada = (entrada + 1) & mascara;
+        }
+    }
+
+    private long lerAlto(long entrada) {
+        return blocos[(int) (entrada >>> BITS_ENTRADAS_POR_BLOCO)].getLong(posicaoNoBloco(entrada));
+    }
+
+    private long lerBaixo(long entrada) {
+        return blocos[(int) (entrada >>> BITS_ENTRADAS_POR_BLOCO)].getLong(posicaoNoBloco(entrada) + 8);
+    }
+
+    private long lerIdentidade(long entrada) {
+        return blocos[(int) (entrada >>> BITS_ENTRADAS_POR_BLOCO)].getLong(posicaoNoBloco(entrada) + 16);
+    }
+
+    private void gravar(long entrada, long alto, long baixo, long identidade) {
+        MappedByteBuffer bloco = blocos[(int) (entrada >>> BITS_ENTRADAS_POR_BLOCO)];
+        int posicao = posicaoNoBloco(entrada);
+        // A parte alta é gravada por último para que uma entrada visível esteja sempre completa
+        bloco.putLong(posicao + 16, identidade);
+        bloco.putLong(posicao + 8, baixo);
+        bloco.putLong(posicao, alto);
+    }
+
+    private static int posicaoNoBloco(long entrada) {
+        return (int) (entrada & ((1L << BITS_ENTRADAS_POR_BLOCO) - 1)) * TAMANHO_ENTRADA;
+    }
+
+    /**
+     * Fator, valor e os 4 primeiros dígitos da guia (posições 5-22, 18 dígitos), somado de 1 para que zero
+     * indique entrada vazia
+     */
+    private static long parteAlta(byte[] codigo, int offset) {
+        validarPartesFixas(codigo, offset);
+        return lerNumero(codigo, offset + 5, 18) + 1;
+    }
+
+    /**
+     * 6 últimos dígitos da guia e CPF (posições 23-28 e 34-43, 16 dígitos)
+     */
+    private static long parteBaixa(byte[] codigo, int offset) {
+        return lerNumero(codigo, offset + 23, 6) * 10_000_000_000L + lerNumero(codigo, offset + 34, 10);
+    }
+
+    private static void validarPartesFixas(byte[] codigo, int offset) {
+        if (!CodigoBarrasService.validarDigitoVerificador(codigo, offset)
+                || codigo[offset] != '0' || codigo[offset + 1] != '0' || codigo[offset + 2] != '1'
+                || codigo[offset + 3] != '9'
+                || codigo[offset + 29] != '0' || codigo[offset + 30] != '0' || codigo[offset + 31] != '0'
+                || codigo[offset + 32] != '0' || codigo[offset + 33] != '1') {
+            throw new IllegalArgumentException("Código de barras não foi emitido por CodigoBarrasService");
+        }
+    }
+
+    private static long lerNumero(byte[] codigo, int inicio, int tamanho) {
+        long valor = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            valor = valor * 10 + (codigo[i] - '0');
+        }
+        return valor;
+    }
+
+    private static long acumularDigitos(long hash, CharSequence texto) {
+        if (texto != null) {
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    hash = (hash ^ c) * 0x100000001B3L;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static long espalhar(long alto, long baixo) {
+        long h = alto * 0x9E3779B97F4A7C15L ^ baixo * 0xC2B2AE3D27D4EB4FL;
+        return h ^ (h >>> 29);
+    }
+
+    private static byte[] paraAscii(String codigoBarras) {
+        if (codigoBarras == null || codigoBarras.length() != TAMANHO_CODIGO) {
+            throw new IllegalArgumentException("Código de barras deve ter 44 dígitos");
+        }
+        byte[] codigo = new byte[TAMANHO_CODIGO];
+        for (int i = 0; i < TAMANHO_CODIGO; i++) {
+            codigo[i] = (byte) codigoBarras.charAt(i);
+        }
+        return codigo;
+    }
+}
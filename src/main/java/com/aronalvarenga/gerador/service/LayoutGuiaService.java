@@ -0,0 +1,213 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.LayoutGuia;
+import com.aronalvarenga.gerador.model.TrechoTexto;
+import com.aronalvarenga.gerador.model.TrechoTexto.Fonte;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.aronalvarenga.gerador.util.CodigoBarrasItfUtil;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.pdf.BaseFont;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diagramação da página A4 da guia, compartilhada pelo PDF, pela visualização e pelas miniaturas
+ *
+ * As larguras dos textos vêm das métricas das fontes padrão do PDF (Helvetica e Courier), então cada saída
+ * desenha os trechos nas mesmas posições. Os textos fixos são medidos uma única vez e compartilhados por todos
+ * os layouts; por guia restam os valores e os símbolos, que vêm do {@link CacheSimbolos}.
+ *
+ * Textos mais largos que a página (endereço, descrição) têm a fonte reduzida até caber em uma linha.
+ * Não é thread-safe: uma instância por thread.
+ */
+public class LayoutGuiaService {
+
+    public static final float LARGURA_PAGINA = PageSize.A4.getWidth();
+    public static final float ALTURA_PAGINA = PageSize.A4.getHeight();
+    private static final float MARGEM = 30;
+
+    // Canto inferior esquerdo do código de barras e do QR Code (centralizados na página)
+    private static final float Y_CODIGO_BARRAS = 502.15f;
+    private static final float Y_QR_CODE = 241.15f;
+    private static final float TAMANHO_QR_CODE = 150;
+
+    private static final BaseFont HELVETICA = criarFonte(BaseFont.HELVETICA);
+    private static final BaseFont HELVETICA_NEGRITO = criarFonte(BaseFont.HELVETICA_BOLD);
+    private static final BaseFont COURIER = criarFonte(BaseFont.COURIER);
+
+    private static final float TAMANHO_TITULO = 18;
+    private static final float TAMANHO_TEXTO = 12;
+    private static final float TAMANHO_VALOR = 14;
+    private static final float TAMANHO_CODIGO = 10;
+    private static final float TAMANHO_MINIMO = 6;
+
+    // Linhas de base, de cima para baixo
+    private static final float Y_TITULO = 785;
+    private static final float Y_CABECALHO = 751;
+    private static final float Y_PROPRIETARIO = 713;
+    private static final float Y_NOME = 695;
+    private static final float Y_CPF = 677;
+    private static final float Y_ENDERECO = 659;
+    private static final float Y_PAGAMENTO = 623;
+    private static final float Y_DESCRICAO = 605;
+    private static final float Y_VALOR = 584;
+    private static final float Y_TITULO_CODIGO_BARRAS = 548;
+    private static final float Y_CODIGO = 487.1f;
+    private static final float Y_LINHA_DIGITAVEL = 454.1f;
+    private static final float Y_TITULO_PIX = 418.1f;
+    private static final float Y_CHAVE_PIX = 400.1f;
+
+    // Recuo das células da tabela de cabeçalho
+    private static final float RECUO_CELULA = 2;
+
+    private static final String ROTULO_NUMERO = "Nº da Guia: ";
+    private static final String ROTULO_VENCIMENTO = "Vencimento: ";
+    private static final String ROTULO_NOME = "Nome: ";
+    private static final String ROTULO_CPF = "CPF: ";
+    private static final String ROTULO_ENDERECO = "Endereço: ";
+    private static final String ROTULO_DESCRICAO = "Descrição: ";
+    private static final String ROTULO_VALOR = "Valor: R$ ";
+    private static final String ROTULO_CHAVE_PIX = "Chave PIX: ";
+
+    // Início dos valores, logo após cada rótulo
+    private static final float X_NUMERO = MARGEM + RECUO_CELULA + largura(Fonte.HELVETICA, ROTULO_NUMERO, TAMANHO_TEXTO);
+    // Datas dd/MM/yyyy têm sempre a mesma largura: o rótulo fica alinhado à direita com a data
+    private static final float X_VENCIMENTO = LARGURA_PAGINA - MARGEM - RECUO_CELULA
+            - largura(Fonte.HELVETICA, "00/00/0000", TAMANHO_TEXTO);
+    private static final float X_NOME = MARGEM + largura(Fonte.HELVETICA, ROTULO_NOME, TAMANHO_TEXTO);
+    private static final float X_CPF = MARGEM + largura(Fonte.HELVETICA, ROTULO_CPF, TAMANHO_TEXTO);
+    private static final float X_ENDERECO = MARGEM + largura(Fonte.HELVETICA, ROTULO_ENDERECO, TAMANHO_TEXTO);
+    private static final float X_DESCRICAO = MARGEM + largura(Fonte.HELVETICA, ROTULO_DESCRICAO, TAMANHO_TEXTO);
+    private static final float X_VALOR = MARGEM + largura(Fonte.HELVETICA_NEGRITO, ROTULO_VALOR, TAMANHO_VALOR);
+    private static final float X_CHAVE_PIX = MARGEM + largura(Fonte.HELVETICA, ROTULO_CHAVE_PIX, TAMANHO_TEXTO);
+
+    /**
+     * Textos fixos, a mesma lista em todos os layouts
+     */
+    static final List<TrechoTexto> FUNDO = criarFundo();
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final CacheSimbolos cacheSimbolos;
+    private final LinhaDigitavelService linhaDigitavelService = new LinhaDigitavelService();
+    private final DecimalFormat formatoValor = new DecimalFormat("#,##0.00");
+
+    public LayoutGuiaService() {
+        this(CacheSimbolos.getCompartilhado());
+    }
+
+    public LayoutGuiaService(CacheSimbolos cacheSimbolos) {
+        this.cacheSimbolos = cacheSimbolos;
+    }
+
+    /**
+     * Diagrama a guia, que já deve ter o código de barras e o payload PIX
+     */
+    public LayoutGuia calcular(GuiaPagamento guia) throws WriterException {
+        List<TrechoTexto> textos = new ArrayList<>(12);
+        adicionar(textos, guia.getNumeroGuia(), X_NUMERO, Y_CABECALHO, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(textos, guia.getVencimento().format(FORMATO_DATA), X_VENCIMENTO, Y_CABECALHO,
+                Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(textos, guia.getNomeProprietario(), X_NOME, Y_NOME, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(textos, guia.getCpf(), X_CPF, Y_CPF, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionarAjustado(textos, guia.getEndereco(), X_ENDERECO, Y_ENDERECO);
+        adicionarAjustado(textos, guia.getDescricao(), X_DESCRICAO, Y_DESCRICAO);
+        adicionar(textos, formatoValor.format(guia.getValor()), X_VALOR, Y_VALOR, Fonte.HELVETICA_NEGRITO,
+                TAMANHO_VALOR);
+        adicionar(textos, guia.getCodigoBarras(), MARGEM, Y_CODIGO, Fonte.COURIER, TAMANHO_CODIGO);
+        adicionar(textos, linhaDigitavelService.formatarLinhaDigitavel(guia.getCodigoBarras()), MARGEM,
+                Y_LINHA_DIGITAVEL, Fonte.COURIER, TAMANHO_CODIGO);
+        adicionar(textos, guia.getChavePix(), X_CHAVE_PIX, Y_CHAVE_PIX, Fonte.HELVETICA, TAMANHO_TEXTO);
+
+        int[] barras = cacheSimbolos.obterBarrasItf(guia.getCodigoBarras());
+        float larguraBarras = CodigoBarrasItfUtil.larguraModulos(barras) * CodigoBarrasItfUtil.LARGURA_MODULO_PADRAO;
+        LayoutGuia.CodigoBarras codigoBarras = new LayoutGuia.CodigoBarras(barras,
+                (LARGURA_PAGINA - larguraBarras) / 2, Y_CODIGO_BARRAS, CodigoBarrasItfUtil.LARGURA_MODULO_PADRAO,
+                larguraBarras, CodigoBarrasItfUtil.ALTURA_PADRAO);
+
+        LayoutGuia.QRCode qrCode = new LayoutGuia.QRCode(cacheSimbolos.obterModulosQRCode(guia.getQrCodePix()),
+                (LARGURA_PAGINA - TAMANHO_QR_CODE) / 2, Y_QR_CODE, TAMANHO_QR_CODE);
+
+        return new LayoutGuia(LARGURA_PAGINA, ALTURA_PAGINA, FUNDO, textos, codigoBarras, qrCode);
+    }
+
+    /**
+     * Fonte padrão do PDF com as métricas usadas na diagramação
+     */
+    static BaseFont fontePdf(Fonte fonte) {
+        switch (fonte) {
+            case HELVETICA_NEGRITO:
+                return HELVETICA_NEGRITO;
+            case COURIER:
+                return COURIER;
+            default:
+                return HELVETICA;
+        }
+    }
+
+    private static List<TrechoTexto> criarFundo() {
+        List<TrechoTexto> fundo = new ArrayList<>();
+        String titulo = "GUIA DE PAGAMENTO";
+        adicionar(fundo, titulo, (LARGURA_PAGINA - largura(Fonte.HELVETICA_NEGRITO, titulo, TAMANHO_TITULO)) / 2,
+                Y_TITULO, Fonte.HELVETICA_NEGRITO, TAMANHO_TITULO);
+
+        adicionar(fundo, "DADOS DO PROPRIETÁRIO", MARGEM, Y_PROPRIETARIO, Fonte.HELVETICA_NEGRITO, TAMANHO_TEXTO);
+        adicionar(fundo, "DADOS DO PAGAMENTO", MARGEM, Y_PAGAMENTO, Fonte.HELVETICA_NEGRITO, TAMANHO_TEXTO);
+        adicionar(fundo, "CÓDIGO DE BARRAS", MARGEM, Y_TITULO_CODIGO_BARRAS, Fonte.HELVETICA_NEGRITO, TAMANHO_TEXTO);
+        adicionar(fundo, "PIX - QR CODE", MARGEM, Y_TITULO_PIX, Fonte.HELVETICA_NEGRITO, TAMANHO_TEXTO);
+
+        adicionar(fundo, ROTULO_NUMERO, MARGEM + RECUO_CELULA, Y_CABECALHO, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(fundo, ROTULO_VENCIMENTO, X_VENCIMENTO - largura(Fonte.HELVETICA, ROTULO_VENCIMENTO, TAMANHO_TEXTO),
+                Y_CABECALHO, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(fundo, ROTULO_NOME, MARGEM, Y_NOME, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(fundo, ROTULO_CPF, MARGEM, Y_CPF, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(fundo, ROTULO_ENDERECO, MARGEM, Y_ENDERECO, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(fundo, ROTULO_DESCRICAO, MARGEM, Y_DESCRICAO, Fonte.HELVETICA, TAMANHO_TEXTO);
+        adicionar(fundo, ROTULO_CHAVE_PIX, MARGEM, Y_CHAVE_PIX, Fonte.HELVETICA, TAMANHO_TEXTO);
+
+        adicionar(fundo, ROTULO_VALOR, MARGEM, Y_VALOR, Fonte.HELVETICA_NEGRITO, TAMANHO_VALOR);
+        return List.copyOf(fundo);
+    }
+
+    private static void adicionar(List<TrechoTexto> trechos, String texto, float x, float y, Fonte fonte,
+                                  float tamanho) {
+        if (texto == null || texto.isEmpty()) {
+            return;
+        }
+        trechos.add(new TrechoTexto(texto, x, y, fonte, tamanho, largura(fonte, texto, tamanho)));
+    }
+
+    /**
+     * Uma linha até a margem direita, com a fonte reduzida se o texto não couber
+     */
+    private static void adicionarAjustado(List<TrechoTexto> trechos, String texto, float x, float y) {
+        if (texto == null || texto.isEmpty()) {
+            return;
+        }
+        float disponivel = LARGURA_PAGINA - MARGEM - x;
+        float larguraTexto = largura(Fonte.HELVETICA, texto, TAMANHO_TEXTO);
+        float tamanho = larguraTexto <= disponivel
+                ? TAMANHO_TEXTO
+                : Math.max(TAMANHO_MINIMO, TAMANHO_TEXTO * disponivel / larguraTexto);
+        adicionar(trechos, texto, x, y, Fonte.HELVETICA, tamanho);
+    }
+
+    private static float largura(Fonte fonte, String texto, float tamanho) {
+        return fontePdf(fonte).getWidthPoint(texto, tamanho);
+    }
+
+    private static BaseFont criarFonte(String nome) {
+        try {
+            return BaseFont.createFont(nome, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Fonte padrão do PDF indisponível: " + nome, e);
+        }
+    }
+}
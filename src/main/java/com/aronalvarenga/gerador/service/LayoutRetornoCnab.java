@@ -0,0 +1,127 @@
+package com.aronalvarenga.gerador.service;
+
+/**
+ * Layouts de arquivo de retorno suportados pela conciliação (posições a partir de 0)
+ */
+public enum LayoutRetornoCnab {
+
+    /**
+     * CNAB 240 FEBRABAN de cobrança, retorno: registro detalhe '3' com cada título em dois segmentos,
+     * pareados pelo sequencial do registro no lote (posições 9-13). O segmento 'T' tem o nosso número nas
+     * posições 38-57, com o sequencial do título (número da guia) nas posições 45-54 após o convênio de 7
+     * posições, e o valor nominal nas posições 82-96; o segmento 'U', logo depois, tem o valor pago nas
+     * posições 78-92
+     */
+    CNAB_240(240, 7, '3', 13, 'T', 'U', 8, 44, 81, 15, 77, 15),
+
+    /**
+     * CNAB 400 Banco do Brasil (convênio de 7 posições), registro detalhe '7',
+     * com o sequencial do nosso número (número da guia) nas posições 71-80, o valor do título nas posições
+     * 153-165 e o valor pago nas posições 254-266
+     */
+    CNAB_400(400, 0, '7', -1, ' ', ' ', -1, 70, 152, 13, 253, 13);
+
+    /**
+     * Tamanho do número da guia no nosso número
+     */
+    public static final int TAMANHO_CHAVE = 10;
+
+    private static final int TAMANHO_SEQUENCIAL = 5;
+
+    private final int tamanhoRegistro;
+    private final int posicaoTipoRegistro;
+    private final char tipoDetalhe;
+    private final int posicaoSegmento;
+    private final char segmentoTitulo;
+    private final char segmentoValorPago;
+    private final int posicaoSequencial;
+    private final int posicaoChave;
+    private final int posicaoValorNominal;
+    private final int tamanhoValorNominal;
+    private final int posicaoValorPago;
+    private final int tamanhoValorPago;
+
+    LayoutRetornoCnab(int tamanhoRegistro, int posicaoTipoRegistro, char tipoDetalhe, int posicaoSegmento,
+                      char segmentoTitulo, char segmentoValorPago, int posicaoSequencial, int posicaoChave,
+                      int posicaoValorNominal, int tamanhoValorNominal, int posicaoValorPago, int tamanhoValorPago) {
+        this.tamanhoRegistro = tamanhoRegistro;
+        this.posicaoTipoRegistro = posicaoTipoRegistro;
+        this.tipoDetalhe = tipoDetalhe;
+        this.posicaoSegmento = posicaoSegmento;
+        this.segmentoTitulo = segmentoTitulo;
+        this.segmentoValorPago = segmentoValorPago;
+        this.posicaoSequencial = posicaoSequencial;
+        this.posicaoChave = posicaoChave;
+        this.posicaoValorNominal = posicaoValorNominal;
+        this.tamanhoValorNominal = tamanhoValorNominal;
+        this.posicaoValorPago = posicaoValorPago;
+        this.tamanhoValorPago = tamanhoValorPago;
+    }
+
+    public int getTamanhoRegistro() {
+        return tamanhoRegistro;
+    }
+
+    public int getPosicaoTipoRegistro() {
+        return posicaoTipoRegistro;
+    }
+
+    public char getTipoDetalhe() {
+        return tipoDetalhe;
+    }
+
+    /**
+     * Posição do código de segmento, ou -1 quando o título está em um único registro
+     */
+    public int getPosicaoSegmento() {
+        return posicaoSegmento;
+    }
+
+    /**
+     * Segmento com o nosso número e o valor nominal
+     */
+    public char getSegmentoTitulo() {
+        return segmentoTitulo;
+    }
+
+    /**
+     * Segmento com o valor pago, no registro seguinte ao do segmento do título
+     */
+    public char getSegmentoValorPago() {
+        return segmentoValorPago;
+    }
+
+    /**
+     * Posição do sequencial do registro no lote, usado para parear os segmentos, ou -1 sem segmentos
+     */
+    public int getPosicaoSequencial() {
+        return posicaoSequencial;
+    }
+
+    public int getTamanhoSequencial() {
+        return TAMANHO_SEQUENCIAL;
+    }
+
+    /**
+     * Posição do número da guia de {@link #TAMANHO_CHAVE} dígitos no registro do título
+     */
+    public int getPosicaoChave() {
+        return posicaoChave;
+    }
+
+    public int getPosicaoValorNominal() {
+        return posicaoValorNominal;
+    }
+
+    public int getTamanhoValorNominal() {
+        return tamanhoValorNominal;
+    }
+
+    public int getPosicaoValorPago() {
+        return posicaoValorPago;
+    }
+
+    public int getTamanhoValorPago() {
+        return tamanhoValorPago;
+    }
+}
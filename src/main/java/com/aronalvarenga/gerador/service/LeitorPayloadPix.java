@@ -0,0 +1,425 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.Crc16Util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Leitura e validação de payloads BR Code (EMV TLV) recebidos de parceiros e leitores
+ *
+ * O leitor é um flyweight reutilizável: cada chamada a {@code analisar} percorre o payload no lugar, sem criar
+ * substrings, e guarda apenas as posições e tamanhos dos campos em arrays indexados pelo ID (00-99). Os campos
+ * ficam válidos até a próxima análise e se referem ao payload analisado, que não deve ser alterado nesse meio tempo.
+ * Não é thread-safe; use uma instância por thread.
+ *
+ * Posições são relativas ao início do payload. Para {@code byte[]} e {@link ByteBuffer} os tamanhos dos campos
+ * são contados em bytes; para texto, em caracteres.
+ */
+public class LeitorPayloadPix {
+
+    public static final int VALIDO = 0;
+    public static final int ESTRUTURA_INVALIDA = 1;
+    public static final int CAMPO_DUPLICADO = 2;
+    public static final int CRC_INVALIDO = 3;
+    public static final int INDICADOR_FORMATO_INVALIDO = 4;
+    public static final int CAMPO_OBRIGATORIO_AUSENTE = 5;
+    public static final int CONTA_PIX_INVALIDA = 6;
+    public static final int DADOS_ADICIONAIS_INVALIDOS = 7;
+
+    public static final int CAMPO_CONTA_PIX = 26;
+    public static final int CAMPO_DADOS_ADICIONAIS = 62;
+    public static final int CAMPO_CRC = 63;
+
+    private static final int QUANTIDADE_IDS = 100;
+    private static final int TAMANHO_CABECALHO_CAMPO = 4;
+    private static final int TAMANHO_MAXIMO_REFERENCIA = 25;
+    private static final String GUI_PIX = "br.gov.bcb.pix";
+    private static final int[] CAMPOS_OBRIGATORIOS = {CAMPO_CONTA_PIX, 52, 53, 58, 59, 60};
+
+    // Fonte do payload em análise: apenas uma das três é usada por vez
+    private CharSequence texto;
+    private byte[] bytes;
+    private ByteBuffer buffer;
+    private int offset;
+    private int tamanho;
+
+    // Um campo está presente quando sua geração é igual à geração da análise atual, o que evita limpar os arrays
+    private int geracao;
+    private final Campos campos = new Campos();
+    private final Campos subcamposContaPix = new Campos();
+    private final Campos subcamposDadosAdicionais = new Campos();
+    private final int[] ordem = new int[QUANTIDADE_IDS];
+    private int quantidadeCampos;
+
+    private int resultado;
+    private int posicaoErro;
+    private int campoErro;
+
+    public int analisar(CharSequence payload) {
+        iniciar(payload, null, null, 0, payload.length());
+        return validar();
+    }
+
+    public int analisar(byte[] payload, int offset, int tamanho) {
+        iniciar(null, payload, null, offset, tamanho);
+        return validar();
+    }
+
+    /**
+     * Analisa os bytes entre a posição e o limite do buffer, sem alterar sua posição
+     */
+    public int analisar(ByteBuffer payload) {
+        iniciar(null, null, payload, payload.position(), payload.remaining());
+        return validar();
+    }
+
+    public int getResultado() {
+        return resultado;
+    }
+
+    /**
+     * Posição do campo ou caractere que causou o erro, ou -1
+     */
+    public int getPosicaoErro() {
+        return posicaoErro;
+    }
+
+    /**
+     * ID do campo relacionado ao erro, ou -1
+     */
+    public int getCampoErro() {
+        return campoErro;
+    }
+
+    public int getQuantidadeCampos() {
+        return quantidadeCampos;
+    }
+
+    /**
+     * ID do campo na posição {@code indice} do payload, na ordem em que aparece
+     */
+    public int getIdCampo(int indice) {
+        if (indice < 0 || indice >= quantidadeCampos) {
+            throw new IndexOutOfBoundsException("Campo " + indice + " fora do payload (" + quantidadeCampos + " campos)");
+        }
+        return ordem[indice];
+    }
+
+    public boolean contemCampo(int id) {
+        return campos.contem(id, geracao);
+    }
+
+    /**
+     * Posição do valor do campo no payload, ou -1 se o campo não existe
+     */
+    public int getInicioValor(int id) {
+        return contemCampo(id) ? campos.inicios[id] : -1;
+    }
+
+    /**
+     * Tamanho do valor do campo, ou -1 se o campo não existe
+     */
+    public int getTamanhoValor(int id) {
+        return contemCampo(id) ? campos.tamanhos[id] : -1;
+    }
+
+    /**
+     * Indica se o template (26 ou 62) contém o subcampo; só é confiável se a análise chegou à validação do template
+     */
+    public boolean contemSubcampo(int idTemplate, int id) {
+        return subcampos(idTemplate).contem(id, geracao);
+    }
+
+    public int getInicioSubcampo(int idTemplate, int id) {
+        return contemSubcampo(idTemplate, id) ? subcampos(idTemplate).inicios[id] : -1;
+    }
+
+    public int getTamanhoSubcampo(int idTemplate, int id) {
+        return contemSubcampo(idTemplate, id) ? subcampos(idTemplate).tamanhos[id] : -1;
+    }
+
+    /**
+     * Compara o valor do campo com o texto, sem criar substring
+     */
+    public boolean valorIgual(int id, CharSequence esperado) {
+        return contemCampo(id) && trechoIgual(campos.inicios[id], campos.tamanhos[id], esperado, false);
+    }
+
+    /**
+     * Anexa o valor do campo ao buffer informado
+     *
+     * @return false se o campo não existe
+     */
+    public boolean anexarValor(int id, StringBuilder destino) {
+        if (!contemCampo(id)) {
+            return false;
+        }
+        anexarTrecho(campos.inicios[id], campos.tamanhos[id], destino);
+        return true;
+    }
+
+    public boolean anexarSubcampo(int idTemplate, int id, StringBuilder destino) {
+        if (!contemSubcampo(idTemplate, id)) {
+            return false;
+        }
+        Campos template = subcampos(idTemplate);
+        anexarTrecho(template.inicios[id], template.tamanhos[id], destino);
+        return true;
+    }
+
+    private void iniciar(CharSequence texto, byte[] bytes, ByteBuffer buffer, int offset, int tamanho) {
+        this.texto = texto;
+        this.bytes = bytes;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.tamanho = tamanho;
+        this.quantidadeCampos = 0;
+        if (++geracao == 0) {
+            // Volta completa do contador: limpa as gerações antigas para não confundir campos ausentes com presentes
+            campos.limpar();
+            subcamposContaPix.limpar();
+            subcamposDadosAdicionais.limpar();
+            geracao = 1;
+        }
+    }
+
+    private int validar() {
+        if (!lerCampos(0, tamanho, campos, true)) {
+            return resultado;
+        }
+
+        if (!contemCampo(CAMPO_CRC)) {
+            return erro(CAMPO_OBRIGATORIO_AUSENTE, -1, CAMPO_CRC);
+        }
+        int inicioCrc = campos.inicios[CAMPO_CRC];
+        if (ordem[quantidadeCampos - 1] != CAMPO_CRC || campos.tamanhos[CAMPO_CRC] != 4) {
+            return erro(ESTRUTURA_INVALIDA, inicioCrc - TAMANHO_CABECALHO_CAMPO, CAMPO_CRC);
+        }
+        if (lerHex(inicioCrc) != Crc16Util.finalizar(calcularEstadoCrc(inicioCrc))) {
+            return erro(CRC_INVALIDO, inicioCrc, CAMPO_CRC);
+        }
+
+        if (ordem[0] != 0 || !valorIgual(0, "01")) {
+            return erro(INDICADOR_FORMATO_INVALIDO, 0, 0);
+        }
+
+        for (int id : CAMPOS_OBRIGATORIOS) {
+            if (!contemCampo(id)) {
+                return erro(CAMPO_OBRIGATORIO_AUSENTE, -1, id);
+            }
+        }
+
+        if (!validarContaPix()) {
+            return resultado;
+        }
+        if (contemCampo(CAMPO_DADOS_ADICIONAIS) && !validarDadosAdicionais()) {
+            return resultado;
+        }
+
+        return erro(VALIDO, -1, -1);
+    }
+
+    /**
+     * Campo 26: subcampo 00 com o GUI do PIX e subcampo 01 (chave) ou 25 (URL do payload dinâmico)
+     */
+    private boolean validarContaPix() {
+        int inicio = campos.inicios[CAMPO_CONTA_PIX];
+        if (!lerCampos(inicio, inicio + campos.tamanhos[CAMPO_CONTA_PIX], subcamposContaPix, false)) {
+            resultado = CONTA_PIX_INVALIDA;
+            campoErro = CAMPO_CONTA_PIX;
+            return false;
+        }
+
+        if (!subcamposContaPix.contem(0, geracao)
+                || !trechoIgual(subcamposContaPix.inicios[0], subcamposContaPix.tamanhos[0], GUI_PIX, true)) {
+            erro(CONTA_PIX_INVALIDA, inicio, CAMPO_CONTA_PIX);
+            return false;
+        }
+        if (!subcamposContaPix.contem(1, geracao) && !subcamposContaPix.contem(25, geracao)) {
+            erro(CONTA_PIX_INVALIDA, inicio, CAMPO_CONTA_PIX);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Campo 62: subcampos bem formados e referência (05) com até 25 caracteres
+     */
+    private boolean validarDadosAdicionais() {
+        int inicio = campos.inicios[CAMPO_DADOS_ADICIONAIS];
+        if (!lerCampos(inicio, inicio + campos.tamanhos[CAMPO_DADOS_ADICIONAIS], subcamposDadosAdicionais, false)) {
+            resultado = DADOS_ADICIONAIS_INVALIDOS;
+            campoErro = CAMPO_DADOS_ADICIONAIS;
+            return false;
+        }
+
+        if (subcamposDadosAdicionais.contem(5, geracao)) {
+            int tamanhoReferencia = subcamposDadosAdicionais.tamanhos[5];
+            if (tamanhoReferencia == 0 || tamanhoReferencia > TAMANHO_MAXIMO_REFERENCIA) {
+                erro(DADOS_ADICIONAIS_INVALIDOS, subcamposDadosAdicionais.inicios[5], CAMPO_DADOS_ADICIONAIS);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lê a sequência de campos ID (2 dígitos) + tamanho (2 dígitos) + valor entre {@code inicio} e {@code fim}
+     */
+    private boolean lerCampos(int inicio, int fim, Campos destino, boolean registrarOrdem) {
+        int posicao = inicio;
+        while (posicao < fim) {
+            if (posicao + TAMANHO_CABECALHO_CAMPO > fim) {
+                erro(ESTRUTURA_INVALIDA, posicao, -1);
+                return false;
+            }
+
+            int id = lerNumero(posicao);
+            int tamanhoValor = lerNumero(posicao + 2);
+            if (id < 0 || tamanhoValor < 0) {
+                erro(ESTRUTURA_INVALIDA, posicao, -1);
+                return false;
+            }
+
+            int inicioValor = posicao + TAMANHO_CABECALHO_CAMPO;
+            if (inicioValor + tamanhoValor > fim) {
+                erro(ESTRUTURA_INVALIDA, posicao, id);
+                return false;
+            }
+            if (destino.contem(id, geracao)) {
+                erro(CAMPO_DUPLICADO, posicao, id);
+                return false;
+            }
+
+            destino.geracoes[id] = geracao;
+            destino.inicios[id] = inicioValor;
+            destino.tamanhos[id] = tamanhoValor;
+            if (registrarOrdem) {
+                ordem[quantidadeCampos++] = id;
+            }
+            posicao = inicioValor + tamanhoValor;
+        }
+
+        if (registrarOrdem && quantidadeCampos == 0) {
+            erro(ESTRUTURA_INVALIDA, 0, -1);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Estado do CRC dos caracteres {@code [0, fim)}, que inclui o cabeçalho "6304"
+     */
+    private int calcularEstadoCrc(int fim) {
+        if (texto != null) {
+            return Crc16Util.atualizar(Crc16Util.ESTADO_INICIAL, texto, 0, fim);
+        }
+        if (bytes != null) {
+            return Crc16Util.atualizar(Crc16Util.ESTADO_INICIAL, bytes, offset, fim);
+        }
+        return Crc16Util.atualizar(Crc16Util.ESTADO_INICIAL, buffer, offset, fim);
+    }
+
+    private int caractere(int posicao) {
+        if (texto != null) {
+            return texto.charAt(posicao);
+        }
+        if (bytes != null) {
+            return bytes[offset + posicao] & 0xFF;
+        }
+        return buffer.get(offset + posicao) & 0xFF;
+    }
+
+    /**
+     * Número de 2 dígitos decimais, ou -1
+     */
+    private int lerNumero(int posicao) {
+        int dezena = caractere(posicao) - '0';
+        int unidade = caractere(posicao + 1) - '0';
+        if (dezena < 0 || dezena > 9 || unidade < 0 || unidade > 9) {
+            return -1;
+        }
+        return dezena * 10 + unidade;
+    }
+
+    /**
+     * Valor de 4 dígitos hexadecimais (maiúsculos ou minúsculos), ou -1
+     */
+    private int lerHex(int posicao) {
+        int valor = 0;
+        for (int i = posicao; i < posicao + 4; i++) {
+            int c = caractere(i);
+            int digito;
+            if (c >= '0' && c <= '9') {
+                digito = c - '0';
+            } else if (c >= 'A' && c <= 'F') {
+                digito = c - 'A' + 10;
+            } else if (c >= 'a' && c <= 'f') {
+                digito = c - 'a' + 10;
+            } else {
+                return -1;
+            }
+            valor = (valor << 4) | digito;
+        }
+        return valor;
+    }
+
+    private boolean trechoIgual(int inicio, int tamanhoTrecho, CharSequence esperado, boolean ignorarCaixa) {
+        if (tamanhoTrecho != esperado.length()) {
+            return false;
+        }
+        for (int i = 0; i < tamanhoTrecho; i++) {
+            int c = caractere(inicio + i);
+            int e = esperado.charAt(i);
+            if (c != e && !(ignorarCaixa && Character.toLowerCase(c) == Character.toLowerCase(e))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void anexarTrecho(int inicio, int tamanhoTrecho, StringBuilder destino) {
+        if (texto != null) {
+            destino.append(texto, inicio, inicio + tamanhoTrecho);
+            return;
+        }
+        for (int i = inicio; i < inicio + tamanhoTrecho; i++) {
+            destino.append((char) caractere(i));
+        }
+    }
+
+    private Campos subcampos(int idTemplate) {
+        if (idTemplate == CAMPO_CONTA_PIX) {
+            return subcamposContaPix;
+        }
+        if (idTemplate == CAMPO_DADOS_ADICIONAIS) {
+            return subcamposDadosAdicionais;
+        }
+        throw new IllegalArgumentException("Campo " + idTemplate + " não é um template lido pelo leitor (26 ou 62)");
+    }
+
+    private int erro(int codigo, int posicao, int campo) {
+        resultado = codigo;
+        posicaoErro = posicao;
+        campoErro = campo;
+        return codigo;
+    }
+
+    /**
+     * Posição e tamanho do valor de cada ID de um nível do payload
+     */
+    private static final class Campos {
+        private final int[] geracoes = new int[QUANTIDADE_IDS];
+        private final int[] inicios = new int[QUANTIDADE_IDS];
+        private final int[] tamanhos = new int[QUANTIDADE_IDS];
+
+        private boolean contem(int id, int geracao) {
+            return id >= 0 && id < QUANTIDADE_IDS && geracoes[id] == geracao;
+        }
+
+        private void limpar() {
+            Arrays.fill(geracoes, 0);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.aronalvarenga.gerador.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversão entre o código de barras (44 dígitos) e a linha digitável (47 dígitos) do boleto
+ *
+ * Estrutura da linha digitável:
+ * - Campo 1: banco (3) + moeda (1) + campo livre 1-5 + DV módulo 10
+ * - Campo 2: campo livre 6-15 + DV módulo 10
+ * - Campo 3: campo livre 16-25 + DV módulo 10
+ * - Campo 4: DV geral do código de barras
+ * - Campo 5: fator de vencimento (4) + valor (10)
+ */
+public class LinhaDigitavelService {
+
+    public static final int TAMANHO_LINHA_DIGITAVEL = 47;
+    public static final int TAMANHO_LINHA_FORMATADA = 54;
+
+    private static final int TAMANHO_CODIGO = CodigoBarrasService.TAMANHO_CODIGO_BARRAS;
+
+    // Posições dos DVs módulo 10 na linha digitável (sem pontuação)
+    private static final int POS_DV_CAMPO1 = 9;
+    private static final int POS_DV_CAMPO2 = 20;
+    private static final int POS_DV_CAMPO3 = 31;
+
+    /**
+     * Para cada posição da linha digitável, a posição correspondente no código de barras (-1 nos DVs de campo)
+     */
+    private static final int[] MAPA_LINHA_CODIGO = new int[TAMANHO_LINHA_DIGITAVEL];
+
+    /**
+     * Para cada posição da linha formatada, a posição na linha digitável ou o separador ('.' ou ' ') como valor negativo
+     */
+    private static final int[] MAPA_FORMATADA = new int[TAMANHO_LINHA_FORMATADA];
+
+    static {
+        int p = 0;
+        for (int i = 0; i < 4; i++) {
+            MAPA_LINHA_CODIGO[p++] = i;
+        }
+        for (int i = 19; i < 24; i++) {
+            MAPA_LINHA_CODIGO[p++] = i;
+        }
+        MAPA_LINHA_CODIGO[p++] = -1;
+        for (int i = 24; i < 34; i++) {
+            MAPA_LINHA_CODIGO[p++] = i;
+        }
+        MAPA_LINHA_CODIGO[p++] = -1;
+        for (int i = 34; i < 44; i++) {
+            MAPA_LINHA_CODIGO[p++] = i;
+        }
+        MAPA_LINHA_CODIGO[p++] = -1;
+        MAPA_LINHA_CODIGO[p++] = 4;
+        for (int i = 5; i < 19; i++) {
+            MAPA_LINHA_CODIGO[p++] = i;
+        }
+
+        // Formato: AAAAA.AAAAA BBBBB.BBBBBB CCCCC.CCCCCC D EEEEEEEEEEEEEE
+        int[] tamanhosBlocos = {5, 5, 5, 6, 5, 6, 1, 14};
+        char[] separadores = {'.', ' ', '.', ' ', '.', ' ', ' '};
+        int f = 0;
+        int digito = 0;
+        for (int b = 0; b < tamanhosBlocos.length; b++) {
+            for (int i = 0; i < tamanhosBlocos[b]; i++) {
+                MAPA_FORMATADA[f++] = digito++;
+            }
+            if (b < separadores.length) {
+                MAPA_FORMATADA[f++] = -separadores[b];
+            }
+        }
+    }
+
+    /**
+     * Gera a linha digitável (47 dígitos, sem pontuação) a partir do código de barras
+     */
+    public String gerarLinhaDigitavel(String codigoBarras) {
+        byte[] codigo = paraAscii(codigoBarras, TAMANHO_CODIGO, "Código de barras deve ter 44 dígitos");
+        byte[] linha = new byte[TAMANHO_LINHA_DIGITAVEL];
+        codificar(codigo, 0, linha, 0);
+        return new String(linha, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Gera a linha digitável formatada para exibição (AAAAA.AAAAA BBBBB.BBBBBB CCCCC.CCCCCC D EEEEEEEEEEEEEE)
+     */
+    public String formatarLinhaDigitavel(String codigoBarras) {
+        byte[] codigo = paraAscii(codigoBarras, TAMANHO_CODIGO, "Código de barras deve ter 44 dígitos");
+        byte[] formatada = new byte[TAMANHO_LINHA_FORMATADA];
+        codificarFormatada(codigo, 0, formatada, 0);
+        return new String(formatada, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Converte uma linha digitável, com ou sem pontos e espaços, no código de barras de 44 dígitos
+     *
+     * @throws IllegalArgumentException se a linha não tiver 47 dígitos ou algum DV for inválido
+     */
+    public String converterParaCodigoBarras(CharSequence linhaDigitavel) {
+        if (linhaDigitavel == null) {
+            throw new IllegalArgumentException("Linha digitável não informada");
+        }
+
+        byte[] codigo = new byte[TAMANHO_CODIGO];
+        if (!decodificar(linhaDigitavel, codigo, 0)) {
+            throw new IllegalArgumentException("Linha digitável inválida: " + linhaDigitavel);
+        }
+        return new String(codigo, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Escreve a linha digitável (47 dígitos ASCII) de um código de barras ASCII, sem alocação
+     */
+    public void codificar(byte[] codigo, int offsetCodigo, byte[] linha, int offsetLinha) {
+        for (int i = 0; i < TAMANHO_LINHA_DIGITAVEL; i++) {
+            int origem = MAPA_LINHA_CODIGO[i];
+            if (origem >= 0) {
+                linha[offsetLinha + i] = codigo[offsetCodigo + origem];
+            }
+        }
+
+        linha[offsetLinha + POS_DV_CAMPO1] = (byte) ('0' + calcularModulo10(linha, offsetLinha, POS_DV_CAMPO1));
+        linha[offsetLinha + POS_DV_CAMPO2] = (byte) ('0' + calcularModulo10(linha, offsetLinha + POS_DV_CAMPO1 + 1, 10));
+        linha[offsetLinha + POS_DV_CAMPO3] = (byte) ('0' + calcularModulo10(linha, offsetLinha + POS_DV_CAMPO2 + 1, 10));
+    }
+
+    /**
+     * Escreve a linha digitável formatada (54 caracteres ASCII) de um código de barras ASCII, sem alocação
+     */
+    public void codificarFormatada(byte[] codigo, int offsetCodigo, byte[] formatada, int offsetFormatada) {
+        // Gera os 47 dígitos no final do próprio destino e expande da esquerda para a direita
+        int offsetLinha = offsetFormatada + TAMANHO_LINHA_FORMATADA - TAMANHO_LINHA_DIGITAVEL;
+        codificar(codigo, offsetCodigo, formatada, offsetLinha);
+
+        for (int i = 0; i < TAMANHO_LINHA_FORMATADA; i++) {
+            int origem = MAPA_FORMATADA[i];
+            formatada[offsetFormatada + i] = origem >= 0 ? formatada[offsetLinha + origem] : (byte) -origem;
+        }
+    }
+
+    /**
+     * Converte uma linha digitável ASCII no código de barras, ignorando pontos e espaços, sem alocação
+     *
+     * @return false se a linha não tiver exatamente 47 dígitos, contiver outros caracteres ou algum DV for inválido
+     */
+    public boolean decodificar(byte[] linha, int offset, int tamanho, byte[] codigo, int offsetCodigo) {
+        int posicao = 0;
+        int soma1 = 0;
+        int soma2 = 0;
+        int soma3 = 0;
+
+        for (int i = offset; i < offset + tamanho; i++) {
+            int c = linha[i];
+            if (c == '.' || c == ' ') {
+                continue;
+            }
+            if (c < '0' || c > '9' || posicao == TAMANHO_LINHA_DIGITAVEL) {
+                return false;
+            }
+
+            int destino = MAPA_LINHA_CODIGO[posicao];
+            if (destino >= 0) {
+                codigo[offsetCodigo + destino] = (byte) c;
+            }
+            if (posicao <= POS_DV_CAMPO1) {
+                soma1 += parcelaModulo10(c - '0', POS_DV_CAMPO1 - posicao);
+            } else if (posicao <= POS_DV_CAMPO2) {
+                soma2 += parcelaModulo10(c - '0', POS_DV_CAMPO2 - posicao);
+            } else if (posicao <= POS_DV_CAMPO3) {
+                soma3 += parcelaModulo10(c - '0', POS_DV_CAMPO3 - posicao);
+            }
+            posicao++;
+        }
+
+        return posicao == TAMANHO_LINHA_DIGITAVEL
+                && soma1 % 10 == 0
+                && soma2 % 10 == 0
+                && soma3 % 10 == 0
+                && CodigoBarrasService.validarDigitoVerificador(codigo, offsetCodigo);
+    }
+
+    /**
+     * Variante de {@link #decodificar(byte[], int, int, byte[], int)} para texto digitado
+     */
+    public boolean decodificar(CharSequence linha, byte[] codigo, int offsetCodigo) {
+        int posicao = 0;
+        int soma1 = 0;
+        int soma2 = 0;
+        int soma3 = 0;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (c == '.' || c == ' ') {
+                continue;
+            }
+            if (c < '0' || c > '9' || posicao == TAMANHO_LINHA_DIGITAVEL) {
+                return false;
+            }
+
+            int destino = MAPA_LINHA_CODIGO[posicao];
+            if (destino >= 0) {
+                codigo[offsetCodigo + destino] = (byte) c;
+            }
+            if (posicao <= POS_DV_CAMPO1) {
+                soma1 += parcelaModulo10(c - '0', POS_DV_CAMPO1 - posicao);
+            } else if (posicao <= POS_DV_CAMPO2) {
+                soma2 += parcelaModulo10(c - '0', POS_DV_CAMPO2 - posicao);
+            } else if (posicao <= POS_DV_CAMPO3) {
+                soma3 += parcelaModulo10(c - '0', POS_DV_CAMPO3 - posicao);
+            }
+            posicao++;
+        }
+
+        return posicao == TAMANHO_LINHA_DIGITAVEL
+                && soma1 % 10 == 0
+                && soma2 % 10 == 0
+                && soma3 % 10 == 0
+                && CodigoBarrasService.validarDigitoVerificador(codigo, offsetCodigo);
+    }
+
+    /**
+     * Converte em lote códigos de barras compactados (44 bytes por código) em linhas digitáveis (47 bytes por linha)
+     */
+    public void codificarLote(byte[] codigos, int quantidade, byte[] linhas) {
+        for (int i = 0; i < quantidade; i++) {
+            codificar(codigos, i * TAMANHO_CODIGO, linhas, i * TAMANHO_LINHA_DIGITAVEL);
+        }
+    }
+
+    /**
+     * Converte em lote linhas digitáveis compactadas (47 bytes por linha) em códigos de barras (44 bytes por código)
+     *
+     * @param validos se informado, recebe em cada posição se a linha correspondente é válida
+     * @return quantidade de linhas inválidas
+     */
+    public int decodificarLote(byte[] linhas, int quantidade, byte[] codigos, boolean[] validos) {
+        int invalidas = 0;
+        for (int i = 0; i < quantidade; i++) {
+            boolean valida = decodificar(linhas, i * TAMANHO_LINHA_DIGITAVEL, TAMANHO_LINHA_DIGITAVEL,
+                    codigos, i * TAMANHO_CODIGO);
+            if (validos != null) {
+                validos[i] = valida;
+            }
+            if (!valida) {
+                invalidas++;
+            }
+        }
+        return invalidas;
+    }
+
+    /**
+     * Módulo 10 com pesos 2 e 1 alternados, da direita para a esquerda
+     */
+    private static int calcularModulo10(byte[] digitos, int offset, int tamanho) {
+        int soma = 0;
+        for (int i = 0; i < tamanho; i++) {
+            soma += parcelaModulo10(digitos[offset + tamanho - 1 - i] - '0', i + 1);
+        }
+        return (10 - soma % 10) % 10;
+    }
+
+    /**
+     * Parcela de um dígito no módulo 10, dada a distância ao DV (distância 0 é o próprio DV, com peso 1)
+     */
+    private static int parcelaModulo10(int digito, int distancia) {
+        if ((distancia & 1) == 0) {
+            return digito;
+        }
+        int produto = digito * 2;
+        return produto > 9 ? produto - 9 : produto;
+    }
+
+    private static byte[] paraAscii(String texto, int tamanho, String mensagemErro) {
+        if (texto == null || texto.length() != tamanho) {
+            throw new IllegalArgumentException(mensagemErro);
+        }
+
+        byte[] bytes = new byte[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException(mensagemErro);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.LayoutGuia;
+import com.aronalvarenga.gerador.model.TrechoTexto;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.util.List;
+
+/**
+ * Textos do {@link LayoutGuia} escritos no PDF
+ *
+ * O fundo do layout (título, cabeçalhos de seção e rótulos) é desenhado uma única vez em um form XObject por
+ * arquivo, e cada página só recebe o fundo e os valores da guia. As fontes são as mesmas em todas as
+ * páginas, então o arquivo tem um único dicionário de cada fonte.
+ *
+ * Uma instância pertence a um {@link PdfWriter} e não é thread-safe.
+ */
+class ModeloPaginaGuia {
+
+    private final PdfTemplate fundo;
+
+    ModeloPaginaGuia(PdfWriter writer) {
+        fundo = writer.getDirectContent().createTemplate(LayoutGuiaService.LARGURA_PAGINA,
+                LayoutGuiaService.ALTURA_PAGINA);
+        escrever(fundo, LayoutGuiaService.FUNDO);
+    }
+
+    /**
+     * Desenha o fundo e os textos da guia na página atual
+     */
+    void estampar(PdfContentByte canvas, LayoutGuia layout) {
+        canvas.addTemplate(fundo, 0, 0);
+        escrever(canvas, layout.getTextos());
+    }
+
+    private static void escrever(PdfContentByte canvas, List<TrechoTexto> trechos) {
+        canvas.beginText();
+        BaseFont fonteAtual = null;
+        float tamanhoAtual = 0;
+        for (TrechoTexto trecho : trechos) {
+            // Troca de fonte só quando muda: trechos vizinhos costumam usar a mesma
+            BaseFont fonte = LayoutGuiaService.fontePdf(trecho.getFonte());
+            if (fonte != fonteAtual || trecho.getTamanho() != tamanhoAtual) {
+                canvas.setFontAndSize(fonte, trecho.getTamanho());
+                fonteAtual = fonte;
+                tamanhoAtual = trecho.getTamanho();
+            }
+            canvas.setTextMatrix(trecho.getX(), trecho.getY());
+            canvas.showText(trecho.getTexto());
+        }
+        canvas.endText();
+    }
+}
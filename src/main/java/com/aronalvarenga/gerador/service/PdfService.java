@@ -1,97 +1,195 @@
 package com.aronalvarenga.gerador.service;
 
 import com.aronalvarenga.gerador.model.GuiaPagamento;
-import com.aronalvarenga.gerador.util.BarcodeUtil;
-import com.google.zxing.BarcodeFormat;
+import com.aronalvarenga.gerador.model.LayoutGuia;
+import com.aronalvarenga.gerador.model.PerfilRenderizacao;
+import com.aronalvarenga.gerador.util.BufferSaida;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.aronalvarenga.gerador.util.CodigoBarrasItfUtil;
+import com.aronalvarenga.gerador.util.QRCodeVetorialUtil;
+import com.aronalvarenga.gerador.util.SimboloMonocromaticoUtil;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfTemplate;
 import com.itextpdf.text.pdf.PdfWriter;
 
-import java.awt.image.BufferedImage;
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.time.format.DateTimeFormatter;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PdfService {
 
-    public void gerarPdf(GuiaPagamento guia, String caminhoArquivo) throws DocumentException, IOException, WriterException {
-        Document document = new Document(PageSize.A4, 30, 30, 30, 30);
-        PdfWriter.getInstance(document, new FileOutputStream(caminhoArquivo));
-        document.open();
+    /**
+     * Buffer das saídas em arquivo, stream e canal: uma página de guia cabe em poucos blocos
+     */
+    static final int TAMANHO_BUFFER_SAIDA = 64 * 1024;
 
-        Font fontTitulo = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-        Paragraph titulo = new Paragraph("GUIA DE PAGAMENTO", fontTitulo);
-        titulo.setAlignment(Element.ALIGN_CENTER);
-        titulo.setSpacingAfter(20);
-        document.add(titulo);
+    private final LayoutGuiaService layoutGuiaService;
+    private final PerfilRenderizacao perfil;
 
-        PdfPTable cabecalho = new PdfPTable(2);
-        cabecalho.setWidthPercentage(100);
-        cabecalho.setWidths(new float[]{1, 1});
-
-        PdfPCell cellNumero = new PdfPCell(new Phrase("Nº da Guia: " + guia.getNumeroGuia()));
-        cellNumero.setBorder(Rectangle.NO_BORDER);
-        cabecalho.addCell(cellNumero);
+    public PdfService() {
+        this(CacheSimbolos.getCompartilhado());
+    }
 
-        PdfPCell cellVencimento = new PdfPCell(new Phrase("Vencimento: " +
-                guia.getVencimento().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))));
-        cellVencimento.setBorder(Rectangle.NO_BORDER);
-        cellVencimento.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        cabecalho.addCell(cellVencimento);
+    public PdfService(CacheSimbolos cacheSimbolos) {
+        this(cacheSimbolos, PerfilRenderizacao.VETORIAL);
+    }
 
-        document.add(cabecalho);
-        document.add(new Paragraph(" "));
+    /**
+     * @param perfil codificação dos símbolos (vetorial ou imagem de 1 bit) e compressão do arquivo
+     */
+    public PdfService(CacheSimbolos cacheSimbolos, PerfilRenderizacao perfil) {
+        this.layoutGuiaService = new LayoutGuiaService(cacheSimbolos);
+        this.perfil = perfil;
+    }
 
-        document.add(new Paragraph("DADOS DO PROPRIETÁRIO", new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("Nome: " + guia.getNomeProprietario()));
-        document.add(new Paragraph("CPF: " + guia.getCpf()));
-        document.add(new Paragraph("Endereço: " + guia.getEndereco()));
-        document.add(new Paragraph(" "));
+    public PerfilRenderizacao getPerfil() {
+        return perfil;
+    }
 
-        document.add(new Paragraph("DADOS DO PAGAMENTO", new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("Descrição: " + guia.getDescricao()));
+    public void gerarPdf(GuiaPagamento guia, String caminhoArquivo) throws DocumentException, IOException, WriterException {
+        gerarPdf(layoutGuiaService.calcular(guia), caminhoArquivo);
+    }
 
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        document.add(new Paragraph("Valor: R$ " + df.format(guia.getValor()),
-                new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD)));
-        document.add(new Paragraph(" "));
+    /**
+     * Gera o PDF de um layout já calculado, por exemplo o da visualização, sem diagramar a guia de novo
+     */
+    public void gerarPdf(LayoutGuia layout, String caminhoArquivo) throws DocumentException, IOException {
+        try (OutputStream arquivo = new BufferedOutputStream(Files.newOutputStream(Paths.get(caminhoArquivo)),
+                TAMANHO_BUFFER_SAIDA)) {
+            gerarPdf(layout, arquivo);
+        }
+    }
 
-        document.add(new Paragraph("CÓDIGO DE BARRAS", new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD)));
+    /**
+     * Diagrama a guia e escreve o PDF no stream
+     *
+     * @see #gerarPdf(LayoutGuia, OutputStream)
+     */
+    public void gerarPdf(GuiaPagamento guia, OutputStream saida) throws DocumentException, IOException, WriterException {
+        gerarPdf(layoutGuiaService.calcular(guia), saida);
+    }
 
-        BufferedImage barcodeImage = BarcodeUtil.gerarCodigoBarrasImagem(guia.getCodigoBarras(), 200, 15.0, 0.8);
-        Image barcodePdf = Image.getInstance(barcodeImage, null);
+    /**
+     * Escreve o PDF do layout no stream, com buffer próprio se o stream não for bufferizado
+     *
+     * O stream recebe flush ao final, mas não é fechado.
+     */
+    public void gerarPdf(LayoutGuia layout, OutputStream saida) throws DocumentException, IOException {
+        OutputStream destino = saida instanceof BufferedOutputStream
+                || saida instanceof BufferSaida
+                || saida instanceof ByteArrayOutputStream
+                ? saida
+                : new BufferedOutputStream(saida, TAMANHO_BUFFER_SAIDA);
 
-        float scaler = (document.getPageSize().getWidth() - document.leftMargin() - document.rightMargin() - 50) / barcodePdf.getWidth();
-        barcodePdf.scalePercent(scaler * 100);
-        barcodePdf.setAlignment(Image.ALIGN_CENTER);
-        document.add(barcodePdf);
+        Document document = new Document(PageSize.A4, 30, 30, 30, 30);
+        PdfWriter writer = PdfWriter.getInstance(document, destino);
+        writer.setCloseStream(false);
+        configurarWriter(writer);
+        document.open();
+        escreverGuia(writer, new ModeloPaginaGuia(writer), layout);
+        document.close();
+        destino.flush();
+    }
 
-        document.add(new Paragraph(guia.getCodigoBarras(),
-                new Font(Font.FontFamily.COURIER, 10, Font.NORMAL)));
-        document.add(new Paragraph(" "));
+    /**
+     * Escreve o PDF da guia no canal, em blocos de {@link #TAMANHO_BUFFER_SAIDA} bytes; o canal não é fechado
+     */
+    public void gerarPdf(GuiaPagamento guia, WritableByteChannel canal) throws DocumentException, IOException, WriterException {
+        gerarPdf(guia, new BufferedOutputStream(Channels.newOutputStream(canal), TAMANHO_BUFFER_SAIDA));
+    }
 
-        document.add(new Paragraph(guia.getCodigoBarras(),
-                new Font(Font.FontFamily.COURIER, 10, Font.NORMAL)));
-        document.add(new Paragraph(" "));
+    /**
+     * Gera o PDF da guia no buffer em memória, descartando o conteúdo anterior
+     */
+    public void gerarPdf(GuiaPagamento guia, BufferSaida buffer) throws DocumentException, IOException, WriterException {
+        buffer.limpar();
+        gerarPdf(guia, (OutputStream) buffer);
+    }
 
-        document.add(new Paragraph("PIX - QR CODE", new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD)));
-        document.add(new Paragraph("Chave PIX: " + guia.getChavePix()));
+    /**
+     * Escreve a guia na página atual: fundo do modelo, textos e símbolos em posições fixas
+     *
+     * @return form XObjects criados para os símbolos, que o chamador pode liberar com
+     * {@link PdfWriter#releaseTemplate(PdfTemplate)} depois que a página for concluída
+     */
+    List<PdfTemplate> escreverGuia(PdfWriter writer, ModeloPaginaGuia modelo, GuiaPagamento guia)
+            throws DocumentException, WriterException {
+        return escreverGuia(writer, modelo, layoutGuiaService.calcular(guia));
+    }
 
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(guia.getQrCodePix(), BarcodeFormat.QR_CODE, 150, 150);
-        BufferedImage qrCodeImage = MatrixToImageWriter.toBufferedImage(bitMatrix);
-        Image qrCodePdf = Image.getInstance(qrCodeImage, null);
+    /**
+     * Escreve o layout na página atual
+     *
+     * @see #escreverGuia(PdfWriter, ModeloPaginaGuia, GuiaPagamento)
+     */
+    List<PdfTemplate> escreverGuia(PdfWriter writer, ModeloPaginaGuia modelo, LayoutGuia layout)
+            throws DocumentException {
+        List<PdfTemplate> templates = new ArrayList<>(2);
+        PdfContentByte canvas = writer.getDirectContent();
+
+        modelo.estampar(canvas, layout);
+
+        LayoutGuia.CodigoBarras barras = layout.getCodigoBarras();
+        LayoutGuia.QRCode qrCode = layout.getQRCode();
+        if (perfil.getSimbolos() == PerfilRenderizacao.Simbolos.VETORIAL) {
+            PdfTemplate templateBarras = CodigoBarrasItfUtil.criarTemplate(canvas, barras.getBarras(),
+                    barras.getLarguraModulo(), barras.getAltura());
+            canvas.addTemplate(templateBarras, barras.getX(), barras.getY());
+            templates.add(templateBarras);
+
+            PdfTemplate templateQRCode = QRCodeVetorialUtil.criarTemplate(canvas, qrCode.getModulos(),
+                    qrCode.getTamanho());
+            canvas.addTemplate(templateQRCode, qrCode.getX(), qrCode.getY());
+            templates.add(templateQRCode);
+        } else {
+            desenharImagensSimbolos(canvas, barras, qrCode);
+        }
+
+        return templates;
+    }
 
-        qrCodePdf.scaleAbsolute(150, 150);
-        qrCodePdf.setAlignment(Image.ALIGN_CENTER);
-        document.add(qrCodePdf);
+    /**
+     * Prepara o writer com o nível de compressão e a compressão completa do perfil
+     */
+    void configurarWriter(PdfWriter writer) throws DocumentException {
+        writer.setCompressionLevel(perfil.getNivelCompressao());
+        if (perfil.isCompressaoCompleta()) {
+            writer.setFullCompression();
+        }
+    }
 
-        document.close();
+    /**
+     * Código de barras e QR Code como imagens de 1 bit na resolução do perfil, ocupando as mesmas áreas do
+     * desenho vetorial
+     */
+    private void desenharImagensSimbolos(PdfContentByte canvas, LayoutGuia.CodigoBarras barras,
+                                         LayoutGuia.QRCode qrCode) throws DocumentException {
+        int dpi = perfil.getDpi();
+        boolean ccittG4 = perfil.getSimbolos() == PerfilRenderizacao.Simbolos.CCITT_G4;
+
+        int pixelsModuloBarras = SimboloMonocromaticoUtil.pixelsPorModulo(barras.getLarguraModulo(), dpi);
+        int alturaBarras = Math.max(1, Math.round(barras.getAltura() * dpi / 72f));
+        Image codigoBarras = SimboloMonocromaticoUtil.criarCodigoBarras(barras.getBarras(), pixelsModuloBarras,
+                alturaBarras, ccittG4, perfil.getNivelCompressao());
+        canvas.addImage(codigoBarras, barras.getLargura(), 0, 0, barras.getAltura(), barras.getX(), barras.getY());
+
+        BitMatrix modulos = qrCode.getModulos();
+        float tamanhoModulo = qrCode.getTamanho() / modulos.getWidth();
+        Image imagemQRCode = SimboloMonocromaticoUtil.criarQRCode(modulos,
+                SimboloMonocromaticoUtil.pixelsPorModulo(tamanhoModulo, dpi), ccittG4, perfil.getNivelCompressao());
+        canvas.addImage(imagemQRCode, qrCode.getTamanho(), 0, 0, qrCode.getTamanho(), qrCode.getX(), qrCode.getY());
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,12 @@
 package com.aronalvarenga.gerador.service;
 
 import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.TipoChavePix;
+import com.aronalvarenga.gerador.util.ChavePixUtil;
+import com.aronalvarenga.gerador.util.NormalizadorTextoPix;
 
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
+import java.math.RoundingMode;
 
 public class PixService {
 
@@ -21,39 +21,63 @@ public class PixService {
     private static final String ADDITIONAL_DATA_FIELD = "62";
     private static final String CRC16 = "63";
 
+    private final NormalizadorTextoPix normalizador = new NormalizadorTextoPix();
+
+    // Último template compilado: em lote, as guias de um mesmo recebedor reaproveitam o prefixo e o CRC
+    private volatile TemplateCompilado ultimoTemplate;
+
     /**
      * Gera o código QR Code PIX seguindo o padrão EMV
      */
     public String gerarQRCodePix(GuiaPagamento guia) {
-        StringBuilder payload = new StringBuilder();
-
-        payload.append(formatarCampo("00", "01"));
-
-        payload.append(formatarCampo("01", "12"));
-
-        payload.append(gerarMerchantAccountInfo(guia.getChavePix()));
-
-        payload.append(formatarCampo("52", "0000"));
-
-        payload.append(formatarCampo("53", "986"));
-
-        payload.append(formatarCampo("54", formatarValorPix(guia.getValor())));
-
-        payload.append(formatarCampo("58", "BR"));
+        TemplatePayloadPix template = obterTemplate(guia.getChavePix(), guia.getNomeProprietario(), guia.getEndereco());
+        return template.gerar(converterParaCentavos(guia.getValor()), guia.getNumeroGuia());
+    }
 
-        String nomeFormatado = formatarNome(guia.getNomeProprietario());
-        payload.append(formatarCampo("59", nomeFormatado));
+    /**
+     * Pré-compila os campos fixos do payload de um recebedor (tudo exceto valor e referência)
+     */
+    public TemplatePayloadPix compilarTemplate(String chavePix, String nomeProprietario, String endereco) {
+        StringBuilder prefixo = new StringBuilder();
+        prefixo.append(formatarCampo("00", "01"));
+        prefixo.append(formatarCampo("01", "12"));
+        prefixo.append(gerarMerchantAccountInfo(chavePix));
+        prefixo.append(formatarCampo("52", "0000"));
+        prefixo.append(formatarCampo("53", "986"));
+
+        StringBuilder trechoFixo = new StringBuilder();
+        trechoFixo.append(formatarCampo("58", "BR"));
+        trechoFixo.append(formatarCampo("59", normalizador.normalizarNome(nomeProprietario)));
+        trechoFixo.append(formatarCampo("60", normalizador.extrairCidade(endereco)));
+
+        return new TemplatePayloadPix(prefixo.toString(), trechoFixo.toString());
+    }
 
-        String cidade = extrairCidade(guia.getEndereco());
-        payload.append(formatarCampo("60", cidade));
+    private TemplatePayloadPix obterTemplate(String chavePix, String nomeProprietario, String endereco) {
+        String chave = chavePix + '\u0000' + nomeProprietario + '\u0000' + endereco;
+        TemplateCompilado atual = ultimoTemplate;
+        if (atual == null || !atual.chave.equals(chave)) {
+            atual = new TemplateCompilado(chave, compilarTemplate(chavePix, nomeProprietario, endereco));
+            ultimoTemplate = atual;
+        }
+        return atual.template;
+    }
 
-        payload.append(gerarAdditionalDataField(guia));
+    private static final class TemplateCompilado {
+        private final String chave;
+        private final TemplatePayloadPix template;
 
-        String payloadSemCRC = payload.toString() + "6304";
-        String crc16 = calcularCRC16(payloadSemCRC);
-        payload.append("63").append("04").append(crc16);
+        private TemplateCompilado(String chave, TemplatePayloadPix template) {
+            this.chave = chave;
+            this.template = template;
+        }
+    }
 
-        return payload.toString();
+    /**
+     * Mesmo arredondamento do formato "0.00" do campo 54 (HALF_EVEN)
+     */
+    private static long converterParaCentavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
     }
 
     private String formatarCampo(String id, String valor) {
@@ -72,122 +96,17 @@ public class PixService {
         return "26" + String.format("%02d", merchantInfo.length()) + merchantInfo;
     }
 
-    private String formatarValorPix(BigDecimal valor) {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.US);
-        DecimalFormat df = new DecimalFormat("0.00", symbols);
-        return df.format(valor);
-    }
-
-    private String formatarNome(String nome) {
-        if (nome == null || nome.trim().isEmpty()) {
-            return "PROPRIETARIO";
-        }
-
-        String nomeFormatado = nome.toUpperCase()
-                .replaceAll("[^A-Z0-9\\s]", "")
-                .trim();
-
-        if (nomeFormatado.length() > 25) {
-            nomeFormatado = nomeFormatado.substring(0, 25);
-        }
-
-        return nomeFormatado;
-    }
-
-    private String extrairCidade(String endereco) {
-        if (endereco == null || endereco.trim().isEmpty()) {
-            return "CAMPO GRANDE";
-        }
-
-        String[] partes = endereco.split("-");
-        if (partes.length >= 2) {
-            String cidade = partes[partes.length - 1].trim();
-
-            if (cidade.contains("/")) {
-                cidade = cidade.substring(0, cidade.indexOf("/")).trim();
-            }
-
-            cidade = cidade.toUpperCase()
-                    .replaceAll("[^A-Z0-9\\s]", "")
-                    .trim();
-
-            if (cidade.length() > 15) {
-                cidade = cidade.substring(0, 15);
-            }
-
-            return cidade.isEmpty() ? "CAMPO GRANDE" : cidade;
-        }
-
-        return "CAMPO GRANDE";
-    }
-
-    private String gerarAdditionalDataField(GuiaPagamento guia) {
-        StringBuilder additional = new StringBuilder();
-
-        if (guia.getNumeroGuia() != null && !guia.getNumeroGuia().trim().isEmpty()) {
-            String referencia = guia.getNumeroGuia().length() > 25 ?
-                    guia.getNumeroGuia().substring(0, 25) :
-                    guia.getNumeroGuia();
-            additional.append(formatarCampo("05", referencia));
-        }
-
-        if (additional.length() == 0) {
-            return "";
-        }
-
-        String additionalInfo = additional.toString();
-        return "62" + String.format("%02d", additionalInfo.length()) + additionalInfo;
-    }
-
-    private String calcularCRC16(String payload) {
-        int crc = 0xFFFF;
-        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
-
-        for (byte b : bytes) {
-            crc ^= (b & 0xFF);
-            for (int i = 0; i < 8; i++) {
-                if ((crc & 1) != 0) {
-                    crc = (crc >>> 1) ^ 0x8408;
-                } else {
-                    crc = crc >>> 1;
-                }
-            }
-        }
-
-        crc = (~crc) & 0xFFFF;
-        return String.format("%04X", crc);
-    }
-
     /**
-     * Valida se uma chave PIX está em formato válido (validação básica)
+     * Valida se uma chave PIX está em um dos formatos do DICT, incluindo os dígitos verificadores de CPF e CNPJ
      */
     public boolean validarChavePix(String chavePix) {
-        if (chavePix == null || chavePix.trim().isEmpty()) {
-            return false;
-        }
-
-        chavePix = chavePix.trim();
-
-        if (chavePix.contains("@") && chavePix.matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$")) {
-            return true;
-        }
-
-        if (chavePix.matches("^\\+55\\d{10,11}$")) {
-            return true;
-        }
-
-        if (chavePix.matches("^\\d{11}$")) {
-            return true;
-        }
-
-        if (chavePix.matches("^\\d{14}$")) {
-            return true;
-        }
-
-        if (chavePix.matches("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$")) {
-            return true;
-        }
+        return classificarChavePix(chavePix) != TipoChavePix.INVALIDA;
+    }
 
-        return true;
+    /**
+     * Identifica o tipo da chave PIX (e-mail, telefone, CPF, CNPJ ou aleatória)
+     */
+    public TipoChavePix classificarChavePix(String chavePix) {
+        return ChavePixUtil.classificar(chavePix);
     }
-}
\ No newline at end of file
+}
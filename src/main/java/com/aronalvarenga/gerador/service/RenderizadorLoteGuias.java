@@ -0,0 +1,315 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.ResumoRenderizacao;
+import com.aronalvarenga.gerador.util.BufferSaida;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.DocumentException;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Geração de PDFs de guias em paralelo, em duas etapas com pools separados
+ *
+ * A renderização (código de barras e payload PIX, se faltarem, e o PDF em memória) roda em um pool do
+ * tamanho dos núcleos; a gravação no destino roda em um pool pequeno de I/O. Cada thread de renderização
+ * tem seus próprios {@link PdfService}, {@link PixService} e {@link CodigoBarrasService}, sem disputa
+ * pelos caches sincronizados.
+ *
+ * Os dois pools são de threads de plataforma de tamanho fixo, por escolha e não por limitação da plataforma
+ * (o projeto é Java 21). A renderização é limitada pela CPU e não ganha nada com mais threads que núcleos, e
+ * cada thread carrega o seu cache de símbolos; a gravação usa poucas threads para limitar arquivos abertos e
+ * escritas concorrentes no mesmo disco. Threads virtuais não mudariam nenhum dos dois limites.
+ *
+ * No máximo {@code capacidade} guias ficam em andamento entre as duas etapas: {@link #enviar(GuiaPagamento)}
+ * bloqueia o produtor até uma guia ser gravada, e os buffers dos PDFs são reaproveitados, então a memória
+ * não depende do tamanho do lote.
+ *
+ * Com um {@link IndiceCodigosEmitidos}, cada código é registrado antes de gerar o PDF: a reemissão da mesma
+ * guia segue normalmente, e a guia cujo código já pertence a outra guia falha sem ser gravada e é contada em
+ * {@link ResumoRenderizacao#getColisoes()}. O índice é do chamador, que o fecha depois do lote.
+ */
+public class RenderizadorLoteGuias implements AutoCloseable {
+
+    private static final int THREADS_GRAVACAO_PADRAO = 2;
+    private static final int GUIAS_EM_ANDAMENTO_POR_THREAD = 4;
+    private static final long CACHE_SIMBOLOS_POR_THREAD = 4L * 1024 * 1024;
+
+    /**
+     * Recebe o PDF de cada guia na thread de gravação; o buffer é reutilizado depois que o método retorna
+     */
+    public interface DestinoPdf {
+        void gravar(GuiaPagamento guia, BufferSaida pdf) throws IOException;
+    }
+
+    private final DestinoPdf destino;
+    private final int threadsRenderizacao;
+    private final int threadsGravacao;
+    private final int capacidade;
+    private final ExecutorService poolRenderizacao;
+    private final ExecutorService poolGravacao;
+    private final Semaphore vagas;
+    private final ConcurrentLinkedQueue<BufferSaida> buffersLivres = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Trabalhador> trabalhadores;
+    private final IndiceCodigosEmitidos indiceCodigos;
+
+    private final LongAdder guiasRenderizadas = new LongAdder();
+    private final LongAdder guiasGravadas = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder colisoes = new LongAdder();
+    private final LongAdder bytesGravados = new LongAdder();
+    private final LongAdder nanosRenderizacao = new LongAdder();
+    private final LongAdder nanosGravacao = new LongAdder();
+    private final AtomicLong inicio = new AtomicLong();
+    private final AtomicReference<Throwable> primeiraFalha = new AtomicReference<>();
+
+    public RenderizadorLoteGuias(DestinoPdf destino) {
+        this(destino, null);
+    }
+
+    /**
+     * @param indiceCodigos índice onde os códigos do lote são registrados, ou {@code null}
+     */
+    public RenderizadorLoteGuias(DestinoPdf destino, IndiceCodigosEmitidos indiceCodigos) {
+        this(destino, Runtime.getRuntime().availableProcessors(), THREADS_GRAVACAO_PADRAO,
+                Runtime.getRuntime().availableProcessors() * GUIAS_EM_ANDAMENTO_POR_THREAD,
+                () -> new PdfService(new CacheSimbolos(CACHE_SIMBOLOS_POR_THREAD)), indiceCodigos);
+    }
+
+    public RenderizadorLoteGuias(DestinoPdf destino, int threadsRenderizacao, int threadsGravacao, int capacidade,
+                                 Supplier<PdfService> fabricaPdfService) {
+        this(destino, threadsRenderizacao, threadsGravacao, capacidade, fabricaPdfService, null);
+    }
+
+    /**
+     * @param capacidade        guias em andamento (renderizando, aguardando ou gravando) antes de bloquear o produtor
+     * @param fabricaPdfService cria o {@link PdfService} de cada thread de renderização
+     * @param indiceCodigos     índice onde os códigos do lote são registrados, ou {@code null}
+     */
+    public RenderizadorLoteGuias(DestinoPdf destino, int threadsRenderizacao, int threadsGravacao, int capacidade,
+                                 Supplier<PdfService> fabricaPdfService, IndiceCodigosEmitidos indiceCodigos) {
+        if (threadsRenderizacao <= 0 || threadsGravacao <= 0 || capacidade <= 0) {
+            throw new IllegalArgumentException("Threads e capacidade devem ser positivas");
+        }
+        this.destino = destino;
+        this.threadsRenderizacao = threadsRenderizacao;
+        this.threadsGravacao = threadsGravacao;
+        this.capacidade = capacidade;
+        this.indiceCodigos = indiceCodigos;
+        this.vagas = new Semaphore(capacidade);
+        this.trabalhadores = ThreadLocal.withInitial(() -> new Trabalhador(fabricaPdfService.get()));
+        this.poolRenderizacao = Executors.newFixedThreadPool(threadsRenderizacao, criarThreads("renderizacao-pdf"));
+        this.poolGravacao = Executors.newFixedThreadPool(threadsGravacao, criarThreads("gravacao-pdf"));
+    }
+
+    /**
+     * Destino que grava cada guia em {@code guia-<número>.pdf} no diretório, com uma única escrita por arquivo
+     */
+    public static DestinoPdf diretorio(Path diretorio) {
+        return (guia, pdf) -> {
+            Path arquivo = diretorio.resolve("guia-" + guia.getNumeroGuia() + ".pdf");
+            try (WritableByteChannel canal = Files.newByteChannel(arquivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                pdf.escreverEm(canal);
+            }
+        };
+    }
+
+    /**
+     * Agenda a guia, bloqueando enquanto houver {@code capacidade} guias em andamento
+     */
+    public void enviar(GuiaPagamento guia) throws InterruptedException {
+        vagas.acquire();
+        inicio.compareAndSet(0, System.nanoTime());
+        try {
+            poolRenderizacao.execute(() -> renderizar(guia));
+        } catch (RejectedExecutionException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Aguarda todas as guias enviadas serem gravadas
+     *
+     * @throws ExecutionException se alguma guia falhou; a causa é a primeira falha, e as demais guias foram gravadas
+     */
+    public ResumoRenderizacao concluir() throws InterruptedException, ExecutionException {
+        vagas.acquire(capacidade);
+        vagas.release(capacidade);
+
+        Throwable falha = primeiraFalha.getAndSet(null);
+        if (falha != null) {
+            throw new ExecutionException(falhas.sum() + " guia(s) falharam; a primeira falha é a causa", falha);
+        }
+        return getResumo();
+    }
+
+    public ResumoRenderizacao getResumo() {
+        ResumoRenderizacao resumo = new ResumoRenderizacao();
+        resumo.setGuiasRenderizadas(guiasRenderizadas.sum());
+        resumo.setGuiasGravadas(guiasGravadas.sum());
+        resumo.setFalhas(falhas.sum());
+        resumo.setColisoes(colisoes.sum());
+        resumo.setBytesGravados(bytesGravados.sum());
+        resumo.setNanosRenderizacao(nanosRenderizacao.sum());
+        resumo.setNanosGravacao(nanosGravacao.sum());
+        long inicioLote = inicio.get();
+        resumo.setNanosDecorridos(inicioLote == 0 ? 0 : System.nanoTime() - inicioLote);
+        resumo.setThreadsRenderizacao(threadsRenderizacao);
+        resumo.setThreadsGravacao(threadsGravacao);
+        return resumo;
+    }
+
+    /**
+     * Termina as guias já enviadas e encerra os pools
+     */
+    @Override
+    public void close() {
+        // A renderização agenda a gravação, então o pool de gravação só é encerrado depois
+        encerrar(poolRenderizacao);
+        encerrar(poolGravacao);
+    }
+
+    private void renderizar(GuiaPagamento guia) {
+        BufferSaida buffer = buffersLivres.poll();
+        if (buffer == null) {
+            buffer = new BufferSaida();
+        }
+
+        // Cada guia enviada devolve exatamente uma vaga: aqui, se não chegar à gravação, ou ao fim da gravação
+        boolean gravacaoAgendada = false;
+        long t0 = System.nanoTime();
+        try {
+            Trabalhador trabalhador = trabalhadores.get();
+            trabalhador.completar(guia);
+            registrarCodigo(guia);
+            trabalhador.gerarPdf(guia, buffer);
+            nanosRenderizacao.add(System.nanoTime() - t0);
+            guiasRenderizadas.increment();
+
+            BufferSaida pdf = buffer;
+            poolGravacao.execute(() -> gravar(guia, pdf));
+            gravacaoAgendada = true;
+        } catch (Throwable e) {
+            registrarFalha(e);
+            relancarErro(e);
+        } finally {
+            if (!gravacaoAgendada) {
+                liberar(buffer);
+            }
+        }
+    }
+
+    private void registrarCodigo(GuiaPagamento guia) {
+        if (indiceCodigos != null && indiceCodigos.registrar(guia) == IndiceCodigosEmitidos.Registro.COLISAO) {
+            colisoes.increment();
+            throw new IllegalStateException("Código de barras da guia " + guia.getNumeroGuia()
+                    + " já foi emitido para outra guia: " + guia.getCodigoBarras());
+        }
+    }
+
+    private void gravar(GuiaPagamento guia, BufferSaida pdf) {
+        long t0 = System.nanoTime();
+        try {
+            destino.gravar(guia, pdf);
+            nanosGravacao.add(System.nanoTime() - t0);
+            bytesGravados.add(pdf.getTamanho());
+            guiasGravadas.increment();
+        } catch (Throwable e) {
+            registrarFalha(e);
+            relancarErro(e);
+        } finally {
+            liberar(pdf);
+        }
+    }
+
+    /**
+     * Erros da JVM continuam chegando ao pool depois de registrados e de a vaga ser devolvida
+     */
+    private static void relancarErro(Throwable falha) {
+        if (falha instanceof Error) {
+            throw (Error) falha;
+        }
+    }
+
+    private void registrarFalha(Throwable falha) {
+        falhas.increment();
+        primeiraFalha.compareAndSet(null, falha);
+    }
+
+    private void liberar(BufferSaida buffer) {
+        buffer.limpar();
+        buffersLivres.offer(buffer);
+        vagas.release();
+    }
+
+    private static void encerrar(ExecutorService pool) {
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Continua aguardando: as guias em andamento precisam ser gravadas
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory criarThreads(String prefixo) {
+        AtomicInteger contador = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, prefixo + "-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Estado próprio de cada thread de renderização
+     */
+    private static final class Trabalhador {
+        private final PdfService pdfService;
+        private final PixService pixService = new PixService();
+        private final CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
+
+        private Trabalhador(PdfService pdfService) {
+            this.pdfService = pdfService;
+        }
+
+        /**
+         * Gera o código de barras e o payload PIX que faltarem
+         */
+        private void completar(GuiaPagamento guia) {
+            if (guia.getCodigoBarras() == null) {
+                guia.setCodigoBarras(codigoBarrasService.gerarCodigoBarras(guia));
+            }
+            if (guia.getQrCodePix() == null) {
+                guia.setQrCodePix(pixService.gerarQRCodePix(guia));
+            }
+        }
+
+        private void gerarPdf(GuiaPagamento guia, BufferSaida buffer)
+                throws DocumentException, IOException, WriterException {
+            pdfService.gerarPdf(guia, buffer);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.Crc16Util;
+
+/**
+ * Payload EMV do PIX pré-compilado para um recebedor (chave, nome e cidade)
+ *
+ * Ordem dos campos: 00, 01, 26, 52, 53 | 54 (valor) | 58, 59, 60 | 62 (referência) | 63 (CRC).
+ * O prefixo até o campo 53 é guardado junto com o estado do CRC após ele. O trecho fixo 58-60 fica entre
+ * dois campos variáveis; como a atualização do CRC é afim no estado, o efeito desse trecho é guardado em
+ * duas tabelas de 256 entradas (byte baixo e byte alto do estado), aplicadas em O(1) a cada payload.
+ * Gerar um payload só serializa o valor e a referência e conclui o CRC.
+ */
+public class TemplatePayloadPix {
+
+    private static final int TAMANHO_MAXIMO_REFERENCIA = 25;
+    private static final String CAMPO_CRC = "6304";
+
+    private final String prefixo;
+    private final String trechoFixo;
+    private final int estadoAposPrefixo;
+
+    private final int estadoTrechoFixoZero;
+    private final int[] tabelaTrechoFixoBaixa = new int[256];
+    private final int[] tabelaTrechoFixoAlta = new int[256];
+
+    /**
+     * @param prefixo    campos 00 a 53 já serializados
+     * @param trechoFixo campos 58 a 60 já serializados
+     */
+    TemplatePayloadPix(String prefixo, String trechoFixo) {
+        this.prefixo = prefixo;
+        this.trechoFixo = trechoFixo;
+        this.estadoAposPrefixo = Crc16Util.atualizar(Crc16Util.ESTADO_INICIAL, prefixo);
+
+        this.estadoTrechoFixoZero = Crc16Util.atualizar(0, trechoFixo);
+        for (int b = 0; b < 256; b++) {
+            tabelaTrechoFixoBaixa[b] = Crc16Util.atualizar(b, trechoFixo) ^ estadoTrechoFixoZero;
+            tabelaTrechoFixoAlta[b] = Crc16Util.atualizar(b << 8, trechoFixo) ^ estadoTrechoFixoZero;
+        }
+    }
+
+    /**
+     * Gera o payload completo para um valor em centavos e uma referência (campo 62, subcampo 05)
+     *
+     * @param referencia texto da referência; vazia ou em branco omite o campo 62
+     */
+    public String gerar(long centavos, CharSequence referencia) {
+        StringBuilder payload = new StringBuilder(prefixo.length() + trechoFixo.length() + 64);
+        gerar(centavos, referencia, payload);
+        return payload.toString();
+    }
+
+    /**
+     * Anexa o payload ao buffer informado, permitindo reutilizá-lo entre guias
+     */
+    public void gerar(long centavos, CharSequence referencia, StringBuilder destino) {
+        if (centavos < 0) {
+            throw new IllegalArgumentException("Valor do PIX não pode ser negativo");
+        }
+
+        destino.append(prefixo);
+
+        int inicioValor = destino.length();
+        anexarValor(centavos, destino);
+        int estado = Crc16Util.atualizar(estadoAposPrefixo, destino, inicioValor, destino.length());
+
+        destino.append(trechoFixo);
+        estado = estadoTrechoFixoZero
+                ^ tabelaTrechoFixoBaixa[estado & 0xFF]
+                ^ tabelaTrechoFixoAlta[(estado >>> 8) & 0xFF];
+
+        int inicioReferencia = destino.length();
+        anexarReferencia(referencia, destino);
+        destino.append(CAMPO_CRC);
+        estado = Crc16Util.atualizar(estado, destino, inicioReferencia, destino.length());
+
+        Crc16Util.anexarHex(Crc16Util.finalizar(estado), destino);
+    }
+
+    /**
+     * Campo 54 com o valor no formato 0.00
+     */
+    private static void anexarValor(long centavos, StringBuilder destino) {
+        long reais = centavos / 100;
+        int fracao = (int) (centavos % 100);
+        int digitosReais = 1;
+        for (long resto = reais / 10; resto > 0; resto /= 10) {
+            digitosReais++;
+        }
+        anexarCabecalhoCampo("54", digitosReais + 3, destino);
+        destino.append(reais).append('.').append((char) ('0' + fracao / 10)).append((char) ('0' + fracao % 10));
+    }
+
+    /**
+     * Campo 62 com o subcampo 05, limitado a 25 caracteres
+     */
+    private static void anexarReferencia(CharSequence referencia, StringBuilder destino) {
+        if (referencia == null || isEmBranco(referencia)) {
+            return;
+        }
+
+        int tamanho = Math.min(referencia.length(), TAMANHO_MAXIMO_REFERENCIA);
+        anexarCabecalhoCampo("62", tamanho + 4, destino);
+        anexarCabecalhoCampo("05", tamanho, destino);
+        destino.append(referencia, 0, tamanho);
+    }
+
+    private static void anexarCabecalhoCampo(String id, int tamanho, StringBuilder destino) {
+        destino.append(id).append((char) ('0' + tamanho / 10)).append((char) ('0' + tamanho % 10));
+    }
+
+    private static boolean isEmBranco(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,159 @@
+package com.aronalvarenga.gerador.service;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Validação de códigos de barras com a Vector API, um código por lane
+ *
+ * Só é carregada por {@link ValidadorCodigoBarras} quando o módulo {@code jdk.incubator.vector} está presente.
+ * A cada passo os dígitos de {@link #CODIGOS_POR_PASSO} códigos consecutivos são transpostos para que o
+ * dígito k de todos eles fique contíguo; a soma de cada lane acumula peso k x dígito k. Prefixo, DV, fator e
+ * valor também são lidos lane a lane e as verificações viram máscaras, sem redução horizontal por código.
+ * A transposição é escalar porque o gather de bytes não é intrínseco na JVM e custaria mais que a validação.
+ *
+ * A largura é a preferida do processador (8 lanes com AVX2, 16 com AVX-512). Abaixo de 256 bits (NEON, SSE)
+ * são só 4 lanes, que não pagam a transposição, e {@link #isVantajosa()} desliga o caminho vetorial.
+ */
+final class ValidacaoVetorial {
+
+    private static final int LARGURA_MINIMA_BITS = 256;
+
+    private static final VectorSpecies<Integer> ESPECIE_INTS = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Códigos validados por passo: um por lane de {@link IntVector#SPECIES_PREFERRED}
+     */
+    static final int CODIGOS_POR_PASSO = ESPECIE_INTS.length();
+
+    // Mesma quantidade de lanes em bytes, para gravar os resultados
+    private static final VectorSpecies<Byte> ESPECIE_BYTES =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(Math.max(64, CODIGOS_POR_PASSO * Byte.SIZE)));
+
+    private static final int TAMANHO_CODIGO = CodigoBarrasService.TAMANHO_CODIGO_BARRAS;
+    private static final int POS_DV = 4;
+    private static final int POS_FATOR = 5;
+    private static final int POS_VALOR = 9;
+    private static final int POS_VALOR_BAIXO = 14;
+    private static final int FIM_VALOR = 19;
+    private static final int[] PREFIXO = {0, 0, 1, 9};
+
+    private static final int[] PESOS = new int[TAMANHO_CODIGO];
+
+    static {
+        for (int i = 0; i < TAMANHO_CODIGO; i++) {
+            PESOS[i] = CodigoBarrasService.pesoModulo11(i);
+        }
+    }
+
+    private ValidacaoVetorial() {
+    }
+
+    /**
+     * Se o processador tem vetores largos o bastante para o caminho vetorial ser mais rápido que o escalar
+     */
+    static boolean isVantajosa() {
+        return ESPECIE_INTS.vectorBitSize() >= LARGURA_MINIMA_BITS;
+    }
+
+    /**
+     * Valida os primeiros {@code quantidade / CODIGOS_POR_PASSO * CODIGOS_POR_PASSO} códigos do lote; o
+     * restante fica para o caminho escalar
+     *
+     * @param resultados se informado, recebe o resultado de cada código validado
+     * @return quantidade de códigos inválidos entre os validados
+     */
+    static int validarLote(byte[] codigos, int quantidade, byte[] resultados, long valorMinimoCentavos,
+                           long valorMaximoCentavos, int fatorMinimo, int fatorMaximo) {
+        // O valor tem 10 dígitos e não cabe em um int: é comparado como duas metades de 5 dígitos.
+        // Limites fora de 0..9999999999 são ajustados sem mudar quais valores ficam dentro da faixa.
+        long minimo = Math.max(0, Math.min(valorMinimoCentavos, 10_000_000_000L));
+        long maximo = Math.max(-1, Math.min(valorMaximoCentavos, 9_999_999_999L));
+        int minimoAlto = (int) (minimo / 100_000);
+        int minimoBaixo = (int) (minimo % 100_000);
+        int maximoAlto = (int) (maximo / 100_000);
+        int maximoBaixo = (int) (maximo % 100_000);
+
+        // Dígitos do passo transpostos: posição k dos códigos do passo em digitos[k * CODIGOS_POR_PASSO + j]
+        int[] digitos = new int[TAMANHO_CODIGO * CODIGOS_POR_PASSO];
+        int invalidos = 0;
+        int limite = quantidade - quantidade % CODIGOS_POR_PASSO;
+        for (int i = 0; i < limite; i += CODIGOS_POR_PASSO) {
+            transpor(codigos, i * TAMANHO_CODIGO, digitos);
+
+            IntVector soma = IntVector.zero(ESPECIE_INTS);
+            VectorMask<Integer> caractereInvalido = ESPECIE_INTS.maskAll(false);
+            for (int k = 0; k < TAMANHO_CODIGO; k++) {
+                IntVector digito = digito(digitos, k);
+                caractereInvalido = caractereInvalido.or(digito.compare(VectorOperators.UNSIGNED_GT, 9));
+                soma = soma.add(digito.mul(PESOS[k]));
+            }
+
+            VectorMask<Integer> prefixoInvalido = ESPECIE_INTS.maskAll(false);
+            for (int k = 0; k < POS_DV; k++) {
+                prefixoInvalido = prefixoInvalido.or(digito(digitos, k).compare(VectorOperators.NE, PREFIXO[k]));
+            }
+            IntVector dv = digito(digitos, POS_DV);
+            IntVector fator = numero(digitos, POS_FATOR, POS_VALOR);
+            IntVector valorAlto = numero(digitos, POS_VALOR, POS_VALOR_BAIXO);
+            IntVector valorBaixo = numero(digitos, POS_VALOR_BAIXO, FIM_VALOR);
+
+            // soma / 11 por multiplicação e deslocamento: exato para somas até 32767 (o máximo é 44 x 9 x 9)
+            IntVector quociente = soma.mul(5958).lanewise(VectorOperators.LSHR, 16);
+            IntVector esperado = IntVector.broadcast(ESPECIE_INTS, 11).sub(soma.sub(quociente.mul(11)));
+            // DV 10 ou 11 vira 1 (resto 0 ou 1), como em CodigoBarrasService.calcularDigitoVerificador
+            esperado = esperado.blend(1, esperado.compare(VectorOperators.GE, 10));
+            VectorMask<Integer> dvInvalido = dv.compare(VectorOperators.NE, esperado);
+
+            VectorMask<Integer> fatorForaDaFaixa = fator.compare(VectorOperators.LT, fatorMinimo)
+                    .or(fator.compare(VectorOperators.GT, fatorMaximo));
+            VectorMask<Integer> valorForaDaFaixa = valorAlto.compare(VectorOperators.LT, minimoAlto)
+                    .or(valorAlto.compare(VectorOperators.EQ, minimoAlto)
+                            .and(valorBaixo.compare(VectorOperators.LT, minimoBaixo)))
+                    .or(valorAlto.compare(VectorOperators.GT, maximoAlto))
+                    .or(valorAlto.compare(VectorOperators.EQ, maximoAlto)
+                            .and(valorBaixo.compare(VectorOperators.GT, maximoBaixo)));
+
+            // Aplicado do menos para o mais prioritário: cada lane fica com o primeiro problema, como no escalar
+            IntVector resultado = IntVector.zero(ESPECIE_INTS)
+                    .blend(ValidadorCodigoBarras.VALOR_FORA_DA_FAIXA, valorForaDaFaixa)
+                    .blend(ValidadorCodigoBarras.FATOR_FORA_DA_FAIXA, fatorForaDaFaixa)
+                    .blend(ValidadorCodigoBarras.DV_INVALIDO, dvInvalido)
+                    .blend(ValidadorCodigoBarras.PREFIXO_INVALIDO, prefixoInvalido)
+                    .blend(ValidadorCodigoBarras.CARACTERE_INVALIDO, caractereInvalido);
+
+            invalidos += resultado.compare(VectorOperators.NE, ValidadorCodigoBarras.VALIDO).trueCount();
+            if (resultados != null) {
+                ((ByteVector) resultado.convertShape(VectorOperators.I2B, ESPECIE_BYTES, 0))
+                        .intoArray(resultados, i);
+            }
+        }
+
+        return invalidos;
+    }
+
+    private static void transpor(byte[] codigos, int inicio, int[] digitos) {
+        for (int j = 0; j < CODIGOS_POR_PASSO; j++) {
+            int origem = inicio + j * TAMANHO_CODIGO;
+            for (int k = 0; k < TAMANHO_CODIGO; k++) {
+                digitos[k * CODIGOS_POR_PASSO + j] = codigos[origem + k] - '0';
+            }
+        }
+    }
+
+    private static IntVector digito(int[] digitos, int posicao) {
+        return IntVector.fromArray(ESPECIE_INTS, digitos, posicao * CODIGOS_POR_PASSO);
+    }
+
+    private static IntVector numero(int[] digitos, int inicio, int fim) {
+        IntVector numero = IntVector.zero(ESPECIE_INTS);
+        for (int k = inicio; k < fim; k++) {
+            numero = numero.mul(10).add(digito(digitos, k));
+        }
+        return numero;
+    }
+}
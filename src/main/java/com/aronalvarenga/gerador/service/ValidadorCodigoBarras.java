@@ -0,0 +1,160 @@
+package com.aronalvarenga.gerador.service;
+
+/**
+ * Validação em lote de códigos de barras FEBRABAN: DV módulo 11, prefixo banco/moeda e faixas de valor e fator
+ *
+ * Quando o módulo {@code jdk.incubator.vector} está disponível (JVM iniciada com
+ * {@code --add-modules jdk.incubator.vector}) e o processador tem vetores de pelo menos 256 bits, os lotes são
+ * validados com a Vector API, um código por lane; códigos avulsos, a sobra do lote e os demais casos usam o
+ * caminho escalar, com o mesmo resultado.
+ */
+public class ValidadorCodigoBarras {
+
+    public static final byte VALIDO = 0;
+    public static final byte CARACTERE_INVALIDO = 1;
+    public static final byte PREFIXO_INVALIDO = 2;
+    public static final byte DV_INVALIDO = 3;
+    public static final byte FATOR_FORA_DA_FAIXA = 4;
+    public static final byte VALOR_FORA_DA_FAIXA = 5;
+
+    private static final int TAMANHO_CODIGO = CodigoBarrasService.TAMANHO_CODIGO_BARRAS;
+    private static final int POS_DV = 4;
+    private static final int POS_FATOR = 5;
+    private static final int POS_VALOR = 9;
+
+    // ValidacaoVetorial só é carregada quando o módulo está presente
+    private static final boolean VECTOR_API_DISPONIVEL =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && ValidacaoVetorial.isVantajosa();
+
+    private final long valorMinimoCentavos;
+    private final long valorMaximoCentavos;
+    private final int fatorMinimo;
+    private final int fatorMaximo;
+    private final boolean vetorial;
+
+    /**
+     * Aceita qualquer fator de vencimento e valores a partir de 1 centavo
+     */
+    public ValidadorCodigoBarras() {
+        this(1, 9_999_999_999L, 0, 9999);
+    }
+
+    public ValidadorCodigoBarras(long valorMinimoCentavos, long valorMaximoCentavos, int fatorMinimo, int fatorMaximo) {
+        this(valorMinimoCentavos, valorMaximoCentavos, fatorMinimo, fatorMaximo, VECTOR_API_DISPONIVEL);
+    }
+
+    ValidadorCodigoBarras(long valorMinimoCentavos, long valorMaximoCentavos, int fatorMinimo, int fatorMaximo,
+                          boolean vetorial) {
+        this.valorMinimoCentavos = valorMinimoCentavos;
+        this.valorMaximoCentavos = valorMaximoCentavos;
+        this.fatorMinimo = fatorMinimo;
+        this.fatorMaximo = fatorMaximo;
+        this.vetorial = vetorial && VECTOR_API_DISPONIVEL;
+    }
+
+    /**
+     * Indica se a validação está usando a Vector API
+     */
+    public boolean isVetorial() {
+        return vetorial;
+    }
+
+    /**
+     * Valida um código de barras de 44 dígitos
+     *
+     * @return {@link #VALIDO} ou o código do primeiro problema encontrado
+     */
+    public byte validar(String codigoBarras) {
+        if (codigoBarras == null || codigoBarras.length() != TAMANHO_CODIGO) {
+            return CARACTERE_INVALIDO;
+        }
+
+        byte[] codigo = new byte[TAMANHO_CODIGO];
+        for (int i = 0; i < TAMANHO_CODIGO; i++) {
+            char c = codigoBarras.charAt(i);
+            codigo[i] = c > 0x7F ? (byte) '?' : (byte) c;
+        }
+        return validar(codigo, 0);
+    }
+
+    /**
+     * Valida um código de 44 bytes ASCII a partir de {@code offset}
+     */
+    public byte validar(byte[] codigos, int offset) {
+        return classificar(codigos, offset, somaPonderada(codigos, offset));
+    }
+
+    /**
+     * Valida um lote de códigos compactados (44 bytes ASCII por código)
+     *
+     * @param resultados se informado, recebe o resultado de cada código
+     * @return quantidade de códigos inválidos
+     */
+    public int validarLote(byte[] codigos, int quantidade, byte[] resultados) {
+        int invalidos = 0;
+        int i = 0;
+        if (vetorial) {
+            invalidos = ValidacaoVetorial.validarLote(codigos, quantidade, resultados, valorMinimoCentavos,
+                    valorMaximoCentavos, fatorMinimo, fatorMaximo);
+            i = quantidade - quantidade % ValidacaoVetorial.CODIGOS_POR_PASSO;
+        }
+        for (; i < quantidade; i++) {
+            byte resultado = validar(codigos, i * TAMANHO_CODIGO);
+            if (resultados != null) {
+                resultados[i] = resultado;
+            }
+            if (resultado != VALIDO) {
+                invalidos++;
+            }
+        }
+        return invalidos;
+    }
+
+    /**
+     * Soma ponderada do módulo 11; retorna -1 se houver caractere não numérico
+     */
+    static int somaPonderada(byte[] codigos, int offset) {
+        int soma = 0;
+        for (int i = 0; i < TAMANHO_CODIGO; i++) {
+            int digito = codigos[offset + i] - '0';
+            if (digito < 0 || digito > 9) {
+                return -1;
+            }
+            soma += digito * CodigoBarrasService.pesoModulo11(i);
+        }
+        return soma;
+    }
+
+    private byte classificar(byte[] codigos, int offset, int soma) {
+        if (soma < 0) {
+            return CARACTERE_INVALIDO;
+        }
+        if (codigos[offset] != '0' || codigos[offset + 1] != '0' || codigos[offset + 2] != '1'
+                || codigos[offset + 3] != '9') {
+            return PREFIXO_INVALIDO;
+        }
+        if (codigos[offset + POS_DV] - '0' != CodigoBarrasService.calcularDigitoVerificador(soma)) {
+            return DV_INVALIDO;
+        }
+
+        int fator = (int) lerNumero(codigos, offset + POS_FATOR, 4);
+        if (fator < fatorMinimo || fator > fatorMaximo) {
+            return FATOR_FORA_DA_FAIXA;
+        }
+
+        long valor = lerNumero(codigos, offset + POS_VALOR, 10);
+        if (valor < valorMinimoCentavos || valor > valorMaximoCentavos) {
+            return VALOR_FORA_DA_FAIXA;
+        }
+
+        return VALIDO;
+    }
+
+    private static long lerNumero(byte[] codigos, int inicio, int tamanho) {
+        long valor = 0;
+        for (int i = inicio; i < inicio + tamanho; i++) {
+            valor = valor * 10 + (codigos[i] - '0');
+        }
+        return valor;
+    }
+}
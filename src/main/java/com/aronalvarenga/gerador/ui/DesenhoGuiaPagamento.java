@@ -0,0 +1,134 @@
+package com.aronalvarenga.gerador.ui;
+
+import com.aronalvarenga.gerador.model.LayoutGuia;
+import com.aronalvarenga.gerador.model.TrechoTexto;
+import com.aronalvarenga.gerador.util.CodigoBarrasItfUtil;
+import com.aronalvarenga.gerador.util.QRCodeVetorialUtil;
+import com.google.zxing.common.BitMatrix;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * {@link LayoutGuia} desenhado em um {@link Graphics2D} ou em uma imagem, usado pela visualização e pelas
+ * miniaturas do lote
+ *
+ * O desenho é em pontos da página, com origem no canto superior esquerdo; o chamador aplica a escala.
+ * Helvetica e Courier viram Arial e Courier New, e cada trecho é ajustado à largura medida no layout, então
+ * os textos ocupam as mesmas posições do PDF mesmo que a fonte da tela tenha outras métricas.
+ */
+final class DesenhoGuiaPagamento {
+
+    private static final Font ARIAL = new Font("Arial", Font.PLAIN, 1);
+    private static final Font ARIAL_NEGRITO = new Font("Arial", Font.BOLD, 1);
+    private static final Font COURIER_NEW = new Font("Courier New", Font.PLAIN, 1);
+
+    private DesenhoGuiaPagamento() {
+    }
+
+    /**
+     * Página inteira em uma imagem com {@code escala} pixels por ponto
+     *
+     * @param configuracao configuração da tela para uma imagem compatível, ou {@code null} para RGB
+     */
+    static BufferedImage renderizar(LayoutGuia layout, double escala, GraphicsConfiguration configuracao) {
+        int largura = Math.max(1, (int) Math.ceil(layout.getLargura() * escala));
+        int altura = Math.max(1, (int) Math.ceil(layout.getAltura() * escala));
+        BufferedImage imagem = configuracao != null
+                ? configuracao.createCompatibleImage(largura, altura)
+                : new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2d = imagem.createGraphics();
+        try {
+            g2d.scale(escala, escala);
+            desenhar(g2d, layout);
+        } finally {
+            g2d.dispose();
+        }
+        return imagem;
+    }
+
+    /**
+     * Desenha a página, com fundo branco, no retângulo de {@code layout.getLargura()} x
+     * {@code layout.getAltura()} a partir da origem atual
+     */
+    static void desenhar(Graphics2D g2d, LayoutGuia layout) {
+        g2d.setColor(Color.WHITE);
+        g2d.fill(new Rectangle2D.Float(0, 0, layout.getLargura(), layout.getAltura()));
+
+        g2d.setColor(Color.BLACK);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        escrever(g2d, layout.getFundo(), layout.getAltura());
+        escrever(g2d, layout.getTextos(), layout.getAltura());
+
+        // Símbolos sem suavização: módulos em preto e branco, como nas imagens de 1 bit do PDF
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g2d.fill(codigoBarras(layout.getCodigoBarras(), layout.getAltura()));
+        g2d.fill(qrCode(layout.getQRCode(), layout.getAltura()));
+    }
+
+    private static void escrever(Graphics2D g2d, List<TrechoTexto> trechos, float alturaPagina) {
+        AffineTransform original = g2d.getTransform();
+        FontRenderContext contexto = g2d.getFontRenderContext();
+        for (TrechoTexto trecho : trechos) {
+            Font fonte = fonte(trecho.getFonte()).deriveFont(trecho.getTamanho());
+            double larguraTela = fonte.getStringBounds(trecho.getTexto(), contexto).getWidth();
+
+            g2d.setFont(fonte);
+            g2d.translate(trecho.getX(), alturaPagina - trecho.getY());
+            if (larguraTela > 0) {
+                g2d.scale(trecho.getLargura() / larguraTela, 1);
+            }
+            g2d.drawString(trecho.getTexto(), 0, 0);
+            g2d.setTransform(original);
+        }
+    }
+
+    private static Shape codigoBarras(LayoutGuia.CodigoBarras codigoBarras, float alturaPagina) {
+        int[] barras = codigoBarras.getBarras();
+        float modulo = codigoBarras.getLarguraModulo();
+        float x = codigoBarras.getX() + CodigoBarrasItfUtil.ZONA_SILENCIO * modulo;
+        float topo = alturaPagina - codigoBarras.getY() - codigoBarras.getAltura();
+
+        Path2D.Float caminho = new Path2D.Float();
+        int posicao = 0;
+        for (int i = 0; i < barras.length; i++) {
+            if (i % 2 == 0) {
+                caminho.append(new Rectangle2D.Float(x + posicao * modulo, topo, barras[i] * modulo,
+                        codigoBarras.getAltura()), false);
+            }
+            posicao += barras[i];
+        }
+        return caminho;
+    }
+
+    private static Shape qrCode(LayoutGuia.QRCode qrCode, float alturaPagina) {
+        BitMatrix modulos = qrCode.getModulos();
+        float modulo = qrCode.getTamanho() / modulos.getWidth();
+        float x = qrCode.getX();
+        float topo = alturaPagina - qrCode.getY() - qrCode.getTamanho();
+
+        Path2D.Float caminho = new Path2D.Float();
+        QRCodeVetorialUtil.percorrerRetangulos(modulos, (coluna, linha, largura, altura) ->
+                caminho.append(new Rectangle2D.Float(x + coluna * modulo, topo + linha * modulo,
+                        largura * modulo, altura * modulo), false));
+        return caminho;
+    }
+
+    private static Font fonte(TrechoTexto.Fonte fonte) {
+        switch (fonte) {
+            case HELVETICA_NEGRITO:
+                return ARIAL_NEGRITO;
+            case COURIER:
+                return COURIER_NEW;
+            default:
+                return ARIAL;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.aronalvarenga.gerador.ui;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.service.LayoutGuiaService;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.text.DecimalFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Lista de um lote de guias com miniatura de cada página, para conferência antes do envio
+ *
+ * A {@link JList} com altura e largura de célula fixas só consulta as linhas visíveis, então o custo da
+ * rolagem não depende do tamanho do lote. As miniaturas vêm de {@link MiniaturasGuias}: enquanto uma linha
+ * não tem a sua, é exibido um marcador e a miniatura aparece quando fica pronta.
+ */
+public class ListaLoteGuiasPanel extends JPanel {
+
+    private static final double ESCALA_MINIATURA = 0.2;
+    private static final int LIMITE_MINIATURAS = 200;
+    private static final int LARGURA_MINIATURA = (int) Math.ceil(LayoutGuiaService.LARGURA_PAGINA * ESCALA_MINIATURA);
+    private static final int ALTURA_MINIATURA = (int) Math.ceil(LayoutGuiaService.ALTURA_PAGINA * ESCALA_MINIATURA);
+    private static final int ALTURA_LINHA = ALTURA_MINIATURA + 10;
+    private static final int LARGURA_LINHA = 520;
+    private static final Color COR_PENDENTE = new Color(235, 235, 235);
+    private static final Color COR_FALHA = new Color(255, 230, 230);
+
+    private final ModeloLote modelo = new ModeloLote();
+    private final JList<GuiaPagamento> lista = new JList<>(modelo);
+    private final MiniaturasGuias miniaturas;
+    private final List<Consumer<GuiaPagamento>> acoesAbrir = new ArrayList<>();
+
+    public ListaLoteGuiasPanel() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), LIMITE_MINIATURAS);
+    }
+
+    ListaLoteGuiasPanel(int threads, int limiteMiniaturas) {
+        super(new BorderLayout());
+        this.miniaturas = new MiniaturasGuias(threads, limiteMiniaturas, ESCALA_MINIATURA, this::repintarLinha);
+
+        lista.setFixedCellHeight(ALTURA_LINHA);
+        lista.setFixedCellWidth(LARGURA_LINHA);
+        lista.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        lista.setCellRenderer(new LinhaGuiaRenderer());
+        lista.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    abrirSelecionada();
+                }
+            }
+        });
+        lista.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "abrirGuia");
+        lista.getActionMap().put("abrirGuia", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                abrirSelecionada();
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(lista);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(ALTURA_LINHA / 4);
+        scrollPane.getViewport().addChangeListener(e -> atualizarFaixaVisivel());
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    /**
+     * Substitui o lote exibido; a lista é usada sem cópia e não deve ser alterada depois
+     */
+    public void exibirLote(List<GuiaPagamento> guias) {
+        miniaturas.limpar();
+        modelo.definir(guias);
+        atualizarFaixaVisivel();
+    }
+
+    /**
+     * Acrescenta uma guia ao fim do lote
+     */
+    public void adicionar(GuiaPagamento guia) {
+        modelo.adicionar(guia);
+        atualizarFaixaVisivel();
+    }
+
+    public int getQuantidade() {
+        return modelo.getSize();
+    }
+
+    /**
+     * Ação executada com a guia aberta por duplo clique ou Enter
+     */
+    public void addAcaoAbrir(Consumer<GuiaPagamento> acao) {
+        acoesAbrir.add(acao);
+    }
+
+    /**
+     * Encerra as threads das miniaturas
+     */
+    public void encerrar() {
+        miniaturas.encerrar();
+    }
+
+    JList<GuiaPagamento> getLista() {
+        return lista;
+    }
+
+    MiniaturasGuias getMiniaturas() {
+        return miniaturas;
+    }
+
+    private void atualizarFaixaVisivel() {
+        miniaturas.definirFaixaVisivel(lista.getFirstVisibleIndex(), lista.getLastVisibleIndex());
+    }
+
+    private void repintarLinha(int indice) {
+        if (indice < modelo.getSize()) {
+            Rectangle area = lista.getCellBounds(indice, indice);
+            if (area != null) {
+                lista.repaint(area);
+            }
+        }
+    }
+
+    private void abrirSelecionada() {
+        GuiaPagamento guia = lista.getSelectedValue();
+        if (guia != null) {
+            for (Consumer<GuiaPagamento> acao : acoesAbrir) {
+                acao.accept(guia);
+            }
+        }
+    }
+
+    /**
+     * Modelo sobre a lista do lote, sem copiar as guias
+     */
+    private static final class ModeloLote extends AbstractListModel<GuiaPagamento> {
+        private List<GuiaPagamento> guias = Collections.emptyList();
+        private boolean propria;
+
+        private void definir(List<GuiaPagamento> novas) {
+            int anterior = guias.size();
+            guias = novas;
+            propria = false;
+            if (anterior > 0) {
+                fireIntervalRemoved(this, 0, anterior - 1);
+            }
+            if (!novas.isEmpty()) {
+                fireIntervalAdded(this, 0, novas.size() - 1);
+            }
+        }
+
+        private void adicionar(GuiaPagamento guia) {
+            // A lista recebida em exibirLote não é alterada: a primeira inclusão faz uma cópia
+            if (!propria) {
+                guias = new ArrayList<>(guias);
+                propria = true;
+            }
+            guias.add(guia);
+            fireIntervalAdded(this, guias.size() - 1, guias.size() - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return guias.size();
+        }
+
+        @Override
+        public GuiaPagamento getElementAt(int indice) {
+            return guias.get(indice);
+        }
+    }
+
+    /**
+     * Linha com a miniatura e os dados principais da guia; um único componente reaproveitado para todas
+     */
+    private final class LinhaGuiaRenderer extends JPanel implements ListCellRenderer<GuiaPagamento> {
+        private final DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        private final DecimalFormat formatoValor = new DecimalFormat("#,##0.00");
+        private final IconeMiniatura icone = new IconeMiniatura();
+        private final JLabel miniaturaLabel = new JLabel(icone);
+        private final JLabel tituloLabel = new JLabel();
+        private final JLabel detalheLabel = new JLabel();
+
+        private LinhaGuiaRenderer() {
+            super(new BorderLayout(10, 0));
+            setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+            tituloLabel.setFont(tituloLabel.getFont().deriveFont(Font.BOLD));
+
+            JPanel textos = new JPanel(new GridLayout(2, 1));
+            textos.setOpaque(false);
+            textos.add(tituloLabel);
+            textos.add(detalheLabel);
+
+            add(miniaturaLabel, BorderLayout.WEST);
+            add(textos, BorderLayout.CENTER);
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends GuiaPagamento> lista, GuiaPagamento guia,
+                                                      int indice, boolean selecionada, boolean comFoco) {
+            icone.imagem = miniaturas.obter(indice, guia);
+            icone.falhou = icone.imagem == null && miniaturas.falhou(indice);
+
+            tituloLabel.setText("Nº " + guia.getNumeroGuia() + " - " + guia.getNomeProprietario());
+            String valor = guia.getValor() != null ? "R$ " + formatoValor.format(guia.getValor()) : "";
+            String vencimento = guia.getVencimento() != null ? guia.getVencimento().format(formatoData) : "";
+            detalheLabel.setText(valor + "   Vencimento: " + vencimento);
+
+            Color fundo = selecionada ? lista.getSelectionBackground() : lista.getBackground();
+            Color texto = selecionada ? lista.getSelectionForeground() : lista.getForeground();
+            setBackground(fundo);
+            tituloLabel.setForeground(texto);
+            detalheLabel.setForeground(texto);
+            return this;
+        }
+    }
+
+    /**
+     * Miniatura pronta ou marcador do mesmo tamanho enquanto ela é desenhada
+     */
+    private static final class IconeMiniatura implements Icon {
+        private BufferedImage imagem;
+        private boolean falhou;
+
+        @Override
+        public void paintIcon(Component componente, Graphics g, int x, int y) {
+            if (imagem != null) {
+                g.drawImage(imagem, x, y, LARGURA_MINIATURA, ALTURA_MINIATURA, null);
+            } else {
+                g.setColor(falhou ? COR_FALHA : COR_PENDENTE);
+                g.fillRect(x, y, LARGURA_MINIATURA, ALTURA_MINIATURA);
+            }
+            g.setColor(Color.GRAY);
+            g.drawRect(x, y, LARGURA_MINIATURA - 1, ALTURA_MINIATURA - 1);
+        }
+
+        @Override
+        public int getIconWidth() {
+            return LARGURA_MINIATURA;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return ALTURA_MINIATURA;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.aronalvarenga.gerador.ui;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.service.CodigoBarrasService;
+import com.aronalvarenga.gerador.service.LayoutGuiaService;
+import com.aronalvarenga.gerador.service.PixService;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.google.zxing.WriterException;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.lang.ref.SoftReference;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Miniaturas das guias de um lote, desenhadas em segundo plano com o mesmo layout da visualização e do PDF
+ *
+ * {@link #obter(int, GuiaPagamento)} nunca desenha na thread da interface: devolve a miniatura pronta ou
+ * {@code null} e agenda o desenho. Linhas que saíram da faixa visível antes de a tarefa começar são
+ * descartadas. As miniaturas ficam em um cache LRU limitado, em {@link SoftReference}s
+ * que o coletor pode liberar sob pressão de memória.
+ *
+ * Exceto pelo pool, todos os métodos devem ser chamados na thread da interface. O pool nunca lê nem altera a
+ * guia do lote: cada tarefa recebe uma cópia tirada na thread da interface ao ser agendada, e o código de
+ * barras e o payload PIX que faltarem são gerados só na cópia.
+ */
+final class MiniaturasGuias {
+
+    private static final long CACHE_SIMBOLOS = 4L * 1024 * 1024;
+
+    private final double escala;
+    private final int limite;
+    private final IntConsumer aoConcluir;
+    private final ExecutorService pool;
+    private final CacheSimbolos cacheSimbolos = new CacheSimbolos(CACHE_SIMBOLOS);
+    private final ThreadLocal<Trabalhador> trabalhadores = ThreadLocal.withInitial(() -> new Trabalhador(cacheSimbolos));
+
+    private final Map<Integer, SoftReference<BufferedImage>> cache;
+    private final Set<Integer> pendentes = new HashSet<>();
+    private final Set<Integer> falhas = new HashSet<>();
+
+    private volatile int primeiroVisivel;
+    private volatile int ultimoVisivel = -1;
+    private volatile int geracao;
+
+    /**
+     * @param limite     miniaturas mantidas no cache
+     * @param aoConcluir chamado na thread da interface com o índice de cada miniatura pronta
+     */
+    MiniaturasGuias(int threads, int limite, double escala, IntConsumer aoConcluir) {
+        if (threads <= 0 || limite <= 0 || escala <= 0) {
+            throw new IllegalArgumentException("Threads, limite e escala devem ser positivos");
+        }
+        this.escala = escala;
+        this.limite = limite;
+        this.aoConcluir = aoConcluir;
+        this.cache = new LinkedHashMap<Integer, SoftReference<BufferedImage>>(limite * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SoftReference<BufferedImage>> maisAntiga) {
+                return size() > MiniaturasGuias.this.limite;
+            }
+        };
+        AtomicInteger contador = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, tarefa -> {
+            Thread thread = new Thread(tarefa, "miniaturas-guias-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Miniatura pronta da linha, ou {@code null} enquanto ela é desenhada
+     */
+    BufferedImage obter(int indice, GuiaPagamento guia) {
+        SoftReference<BufferedImage> referencia = cache.get(indice);
+        BufferedImage miniatura = referencia != null ? referencia.get() : null;
+        if (miniatura == null && !falhas.contains(indice) && pendentes.add(indice)) {
+            int geracaoTarefa = geracao;
+            GuiaPagamento copia = copiar(guia);
+            pool.execute(() -> desenhar(indice, copia, geracaoTarefa));
+        }
+        return miniatura;
+    }
+
+    /**
+     * Se a guia da linha não pôde ser desenhada (por exemplo, chave PIX inválida); não é tentada de novo
+     */
+    boolean falhou(int indice) {
+        return falhas.contains(indice);
+    }
+
+    /**
+     * Faixa de linhas na tela; tarefas de linhas fora dela são descartadas antes de desenhar
+     */
+    void definirFaixaVisivel(int primeiro, int ultimo) {
+        primeiroVisivel = primeiro;
+        ultimoVisivel = ultimo;
+    }
+
+    /**
+     * Descarta as miniaturas e as tarefas pendentes, para um novo lote
+     */
+    void limpar() {
+        geracao++;
+        cache.clear();
+        pendentes.clear();
+        falhas.clear();
+    }
+
+    int getQuantidade() {
+        return cache.size();
+    }
+
+    void encerrar() {
+        pool.shutdownNow();
+    }
+
+    private void desenhar(int indice, GuiaPagamento guia, int geracaoTarefa) {
+        if (geracaoTarefa != geracao || indice < primeiroVisivel || indice > ultimoVisivel) {
+            SwingUtilities.invokeLater(() -> {
+                if (geracaoTarefa == geracao) {
+                    pendentes.remove(indice);
+                }
+            });
+            return;
+        }
+
+        BufferedImage desenhada;
+        try {
+            desenhada = trabalhadores.get().desenhar(guia, escala);
+        } catch (RuntimeException | WriterException e) {
+            desenhada = null;
+        }
+        BufferedImage miniatura = desenhada;
+        SwingUtilities.invokeLater(() -> {
+            if (geracaoTarefa != geracao) {
+                return;
+            }
+            pendentes.remove(indice);
+            if (miniatura != null) {
+                cache.put(indice, new SoftReference<>(miniatura));
+            } else {
+                falhas.add(indice);
+            }
+            aoConcluir.accept(indice);
+        });
+    }
+
+    private static GuiaPagamento copiar(GuiaPagamento guia) {
+        GuiaPagamento copia = new GuiaPagamento(guia.getNomeProprietario(), guia.getCpf(), guia.getEndereco(),
+                guia.getChavePix(), guia.getValor(), guia.getDescricao(), guia.getVencimento(),
+                guia.getNumeroGuia());
+        copia.setCodigoBarras(guia.getCodigoBarras());
+        copia.setQrCodePix(guia.getQrCodePix());
+        return copia;
+    }
+
+    /**
+     * Estado próprio de cada thread do pool
+     */
+    private static final class Trabalhador {
+        private final LayoutGuiaService layoutGuiaService;
+        private final PixService pixService = new PixService();
+        private final CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
+
+        private Trabalhador(CacheSimbolos cacheSimbolos) {
+            this.layoutGuiaService = new LayoutGuiaService(cacheSimbolos);
+        }
+
+        /**
+         * @param guia cópia exclusiva da tarefa, completada aqui se faltar o código de barras ou o payload PIX
+         */
+        private BufferedImage desenhar(GuiaPagamento guia, double escala) throws WriterException {
+            if (guia.getCodigoBarras() == null) {
+                guia.setCodigoBarras(codigoBarrasService.gerarCodigoBarras(guia));
+            }
+            if (guia.getQrCodePix() == null) {
+                guia.setQrCodePix(pixService.gerarQRCodePix(guia));
+            }
+            return DesenhoGuiaPagamento.renderizar(layoutGuiaService.calcular(guia), escala, null);
+        }
+    }
+}
@@ -6,7 +6,9 @@ import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
 import java.awt.image.BufferedImage;
 
 /**
- * Utilitário para geração de códigos de barras usando Barcode4J
+ * Utilitário para geração de códigos de barras Code128 usando Barcode4J
+ *
+ * A guia usa o ITF da FEBRABAN em {@link CodigoBarrasItfUtil}; o Code128 fica para outros usos.
  */
 public class BarcodeUtil {
 
@@ -0,0 +1,97 @@
+package com.aronalvarenga.gerador.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Buffer de saída em memória reutilizável, para gerar PDFs sem arquivo temporário
+ *
+ * Diferente de {@link java.io.ByteArrayOutputStream}, não é sincronizado e expõe o conteúdo sem cópia
+ * em {@link #comoByteBuffer()}. {@link #limpar()} mantém a capacidade, então um buffer reutilizado por guia
+ * deixa de alocar depois que atinge o tamanho do maior PDF. Não é thread-safe.
+ */
+public class BufferSaida extends OutputStream {
+
+    private static final int CAPACIDADE_PADRAO = 64 * 1024;
+    private static final int CAPACIDADE_MAXIMA = Integer.MAX_VALUE - 8;
+
+    private byte[] dados;
+    private int tamanho;
+
+    public BufferSaida() {
+        this(CAPACIDADE_PADRAO);
+    }
+
+    public BufferSaida(int capacidadeInicial) {
+        if (capacidadeInicial <= 0) {
+            throw new IllegalArgumentException("Capacidade do buffer deve ser positiva");
+        }
+        this.dados = new byte[capacidadeInicial];
+    }
+
+    @Override
+    public void write(int b) {
+        garantirCapacidade(tamanho + 1);
+        dados[tamanho++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        garantirCapacidade(tamanho + len);
+        System.arraycopy(b, off, dados, tamanho, len);
+        tamanho += len;
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public int getCapacidade() {
+        return dados.length;
+    }
+
+    /**
+     * Descarta o conteúdo e mantém a capacidade
+     */
+    public void limpar() {
+        tamanho = 0;
+    }
+
+    /**
+     * Visão somente leitura do conteúdo, sem cópia; deixa de ser válida na próxima escrita ou em {@link #limpar()}
+     */
+    public ByteBuffer comoByteBuffer() {
+        return ByteBuffer.wrap(dados, 0, tamanho).asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(dados, tamanho);
+    }
+
+    public void escreverEm(OutputStream destino) throws IOException {
+        destino.write(dados, 0, tamanho);
+    }
+
+    public void escreverEm(WritableByteChannel destino) throws IOException {
+        ByteBuffer conteudo = ByteBuffer.wrap(dados, 0, tamanho);
+        while (conteudo.hasRemaining()) {
+            destino.write(conteudo);
+        }
+    }
+
+    private void garantirCapacidade(int necessaria) {
+        if (necessaria < 0 || necessaria > CAPACIDADE_MAXIMA) {
+            throw new OutOfMemoryError("Buffer de saída excede o tamanho máximo de um array");
+        }
+        if (necessaria > dados.length) {
+            int novaCapacidade = (int) Math.min(CAPACIDADE_MAXIMA, Math.max((long) dados.length * 2, necessaria));
+            dados = Arrays.copyOf(dados, novaCapacidade);
+        }
+    }
+}
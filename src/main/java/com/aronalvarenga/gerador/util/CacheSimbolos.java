@@ -0,0 +1,232 @@
+package com.aronalvarenga.gerador.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache LRU dos símbolos gerados (matriz e imagem do QR Code PIX, barras e imagem do código de barras),
+ * compartilhado entre a visualização e o PDF
+ *
+ * A chave é o conteúdo do símbolo com suas dimensões (tamanho do QR Code; DPI, altura e largura do módulo
+ * do código de barras). O limite é em bytes estimados, e as entradas menos usadas são descartadas primeiro.
+ * Os objetos devolvidos são compartilhados e não devem ser alterados.
+ *
+ * A codificação acontece fora da trava: duas threads pedindo o mesmo símbolo ao mesmo tempo podem
+ * codificá-lo duas vezes, mas só um resultado fica no cache.
+ */
+public class CacheSimbolos {
+
+    private static final long LIMITE_BYTES_PADRAO = 32L * 1024 * 1024;
+    private static final CacheSimbolos COMPARTILHADO = new CacheSimbolos(LIMITE_BYTES_PADRAO);
+
+    private static final int MATRIZ_QR_CODE = 0;
+    private static final int IMAGEM_QR_CODE = 1;
+    private static final int IMAGEM_CODIGO_BARRAS = 2;
+    private static final int BARRAS_ITF = 3;
+    private static final int IMAGEM_ITF = 4;
+
+    private final long limiteBytes;
+    private final LinkedHashMap<Chave, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesOcupados;
+    private long acertos;
+    private long falhas;
+
+    public CacheSimbolos(long limiteBytes) {
+        if (limiteBytes <= 0) {
+            throw new IllegalArgumentException("Limite do cache deve ser positivo");
+        }
+        this.limiteBytes = limiteBytes;
+    }
+
+    /**
+     * Instância usada por padrão pela visualização e pelo PDF
+     */
+    public static CacheSimbolos getCompartilhado() {
+        return COMPARTILHADO;
+    }
+
+    public BitMatrix obterMatrizQRCode(String payload, int tamanho) throws WriterException {
+        Chave chave = new Chave(MATRIZ_QR_CODE, payload, tamanho, 0, 0);
+        BitMatrix matriz = (BitMatrix) buscar(chave);
+        if (matriz == null) {
+            matriz = new QRCodeWriter().encode(payload, BarcodeFormat.QR_CODE, tamanho, tamanho);
+            matriz = (BitMatrix) guardar(chave, matriz, (long) matriz.getRowSize() * 4 * matriz.getHeight());
+        }
+        return matriz;
+    }
+
+    /**
+     * Matriz do QR Code com um pixel por módulo (incluindo a zona de silêncio), para desenho vetorial
+     */
+    public BitMatrix obterModulosQRCode(String payload) throws WriterException {
+        return obterMatrizQRCode(payload, 0);
+    }
+
+    public BufferedImage obterImagemQRCode(String payload, int tamanho) throws WriterException {
+        Chave chave = new Chave(IMAGEM_QR_CODE, payload, tamanho, 0, 0);
+        BufferedImage imagem = (BufferedImage) buscar(chave);
+        if (imagem == null) {
+            imagem = MatrixToImageWriter.toBufferedImage(obterMatrizQRCode(payload, tamanho));
+            imagem = (BufferedImage) guardar(chave, imagem, tamanhoImagem(imagem));
+        }
+        return imagem;
+    }
+
+    /**
+     * Imagem do código de barras gerada por {@link BarcodeUtil#gerarCodigoBarrasImagem(String, int, double, double)}
+     */
+    public BufferedImage obterImagemCodigoBarras(String codigo, int dpi, double altura, double larguraModulo) {
+        Chave chave = new Chave(IMAGEM_CODIGO_BARRAS, codigo, dpi, altura, larguraModulo);
+        BufferedImage imagem = (BufferedImage) buscar(chave);
+        if (imagem == null) {
+            imagem = BarcodeUtil.gerarCodigoBarrasImagem(codigo, dpi, altura, larguraModulo);
+            imagem = (BufferedImage) guardar(chave, imagem, tamanhoImagem(imagem));
+        }
+        return imagem;
+    }
+
+    /**
+     * Larguras das barras ITF do código de barras, de {@link CodigoBarrasItfUtil#codificar(CharSequence)}
+     */
+    public int[] obterBarrasItf(String codigo) {
+        Chave chave = new Chave(BARRAS_ITF, codigo, 0, 0, 0);
+        int[] barras = (int[]) buscar(chave);
+        if (barras == null) {
+            barras = CodigoBarrasItfUtil.codificar(codigo);
+            barras = (int[]) guardar(chave, barras, (long) barras.length * 4);
+        }
+        return barras;
+    }
+
+    /**
+     * Imagem de 1 bit do código de barras ITF, de {@link CodigoBarrasItfUtil#rasterizar(int[], int, int)}
+     */
+    public BufferedImage obterImagemItf(String codigo, int pixelsPorModulo, int altura) {
+        Chave chave = new Chave(IMAGEM_ITF, codigo, pixelsPorModulo, altura, 0);
+        BufferedImage imagem = (BufferedImage) buscar(chave);
+        if (imagem == null) {
+            imagem = CodigoBarrasItfUtil.rasterizar(obterBarrasItf(codigo), pixelsPorModulo, altura);
+            imagem = (BufferedImage) guardar(chave, imagem, tamanhoImagem(imagem));
+        }
+        return imagem;
+    }
+
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    public synchronized long getFalhas() {
+        return falhas;
+    }
+
+    public synchronized int getQuantidade() {
+        return entradas.size();
+    }
+
+    public synchronized long getBytesOcupados() {
+        return bytesOcupados;
+    }
+
+    public synchronized void limpar() {
+        entradas.clear();
+        bytesOcupados = 0;
+    }
+
+    private synchronized Object buscar(Chave chave) {
+        Entrada entrada = entradas.get(chave);
+        if (entrada == null) {
+            falhas++;
+            return null;
+        }
+        acertos++;
+        return entrada.simbolo;
+    }
+
+    /**
+     * Guarda o símbolo e descarta os menos usados até caber no limite; se outra thread guardou o mesmo símbolo
+     * antes, devolve o que já está no cache
+     */
+    private synchronized Object guardar(Chave chave, Object simbolo, long bytes) {
+        Entrada existente = entradas.get(chave);
+        if (existente != null) {
+            return existente.simbolo;
+        }
+
+        entradas.put(chave, new Entrada(simbolo, bytes));
+        bytesOcupados += bytes;
+
+        Iterator<Map.Entry<Chave, Entrada>> maisAntigas = entradas.entrySet().iterator();
+        while (bytesOcupados > limiteBytes && maisAntigas.hasNext()) {
+            Map.Entry<Chave, Entrada> maisAntiga = maisAntigas.next();
+            if (maisAntiga.getKey().equals(chave)) {
+                // Todas as outras já saíram: um símbolo maior que o limite inteiro não fica no cache
+                maisAntigas.remove();
+                bytesOcupados -= bytes;
+                break;
+            }
+            bytesOcupados -= maisAntiga.getValue().bytes;
+            maisAntigas.remove();
+        }
+        return simbolo;
+    }
+
+    private static long tamanhoImagem(BufferedImage imagem) {
+        long bits = (long) imagem.getWidth() * imagem.getHeight() * imagem.getColorModel().getPixelSize();
+        return Math.max(1, (bits + 7) / 8);
+    }
+
+    private static final class Chave {
+        private final int tipo;
+        private final String conteudo;
+        private final int tamanho;
+        private final double altura;
+        private final double larguraModulo;
+
+        private Chave(int tipo, String conteudo, int tamanho, double altura, double larguraModulo) {
+            this.tipo = tipo;
+            this.conteudo = Objects.requireNonNull(conteudo, "Conteúdo do símbolo não informado");
+            this.tamanho = tamanho;
+            this.altura = altura;
+            this.larguraModulo = larguraModulo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave)) return false;
+            Chave outra = (Chave) o;
+            return tipo == outra.tipo && tamanho == outra.tamanho
+                    && Double.compare(altura, outra.altura) == 0
+                    && Double.compare(larguraModulo, outra.larguraModulo) == 0
+                    && conteudo.equals(outra.conteudo);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = conteudo.hashCode();
+            h = 31 * h + tipo;
+            h = 31 * h + tamanho;
+            h = 31 * h + Double.hashCode(altura);
+            return 31 * h + Double.hashCode(larguraModulo);
+        }
+    }
+
+    private static final class Entrada {
+        private final Object simbolo;
+        private final long bytes;
+
+        private Entrada(Object simbolo, long bytes) {
+            this.simbolo = simbolo;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.aronalvarenga.gerador.util;
+
+import com.aronalvarenga.gerador.model.TipoChavePix;
+
+/**
+ * Classificação de chaves PIX em uma única passada, sem expressões regulares e sem alocação
+ *
+ * O primeiro caractere e o tamanho decidem o único formato possível, e só esse formato é verificado.
+ * Espaços no início e no fim são ignorados.
+ */
+public final class ChavePixUtil {
+
+    private static final int TAMANHO_MAXIMO_EMAIL = 77;
+    private static final int TAMANHO_CPF = 11;
+    private static final int TAMANHO_CNPJ = 14;
+    private static final int TAMANHO_UUID = 36;
+
+    // Resultado da verificação de CPF e CNPJ
+    private static final int NAO_NUMERICO = -1;
+    private static final int DV_INVALIDO = 0;
+    private static final int DOCUMENTO_VALIDO = 1;
+
+    private static final int[] PESOS_CNPJ = {6, 5, 4, 3, 2, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    private ChavePixUtil() {
+    }
+
+    public static TipoChavePix classificar(CharSequence chave) {
+        if (chave == null) {
+            return TipoChavePix.INVALIDA;
+        }
+
+        int inicio = 0;
+        int fim = chave.length();
+        while (inicio < fim && chave.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fim > inicio && chave.charAt(fim - 1) <= ' ') {
+            fim--;
+        }
+
+        int tamanho = fim - inicio;
+        if (tamanho == 0) {
+            return TipoChavePix.INVALIDA;
+        }
+
+        char primeiro = chave.charAt(inicio);
+        if (primeiro == '+') {
+            return isTelefone(chave, inicio, fim) ? TipoChavePix.TELEFONE : TipoChavePix.INVALIDA;
+        }
+        if (tamanho == TAMANHO_UUID && isUuid(chave, inicio)) {
+            return TipoChavePix.ALEATORIA;
+        }
+        if (isDigito(primeiro) && (tamanho == TAMANHO_CPF || tamanho == TAMANHO_CNPJ)) {
+            int documento = tamanho == TAMANHO_CPF ? verificarCpf(chave, inicio) : verificarCnpj(chave, inicio);
+            if (documento == DOCUMENTO_VALIDO) {
+                return tamanho == TAMANHO_CPF ? TipoChavePix.CPF : TipoChavePix.CNPJ;
+            }
+            if (documento == DV_INVALIDO) {
+                return TipoChavePix.INVALIDA;
+            }
+            // Não é numérica: pode ser um e-mail iniciado por dígito, como "1@email.com"
+        }
+        return isEmail(chave, inicio, fim) ? TipoChavePix.EMAIL : TipoChavePix.INVALIDA;
+    }
+
+    /**
+     * +55 seguido de 10 ou 11 dígitos
+     */
+    private static boolean isTelefone(CharSequence chave, int inicio, int fim) {
+        int tamanho = fim - inicio;
+        if (tamanho != 13 && tamanho != 14) {
+            return false;
+        }
+        if (chave.charAt(inicio + 1) != '5' || chave.charAt(inicio + 2) != '5') {
+            return false;
+        }
+        for (int i = inicio + 3; i < fim; i++) {
+            if (!isDigito(chave.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 8-4-4-4-12 dígitos hexadecimais
+     */
+    private static boolean isUuid(CharSequence chave, int inicio) {
+        for (int i = 0; i < TAMANHO_UUID; i++) {
+            char c = chave.charAt(inicio + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!isDigito(c) && !((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Os dois dígitos verificadores são acumulados na mesma passada (pesos 10..2 e 11..2)
+     */
+    private static int verificarCpf(CharSequence chave, int inicio) {
+        int soma1 = 0;
+        int soma2 = 0;
+        boolean todosIguais = true;
+        char primeiro = chave.charAt(inicio);
+
+        for (int i = 0; i < TAMANHO_CPF; i++) {
+            char c = chave.charAt(inicio + i);
+            if (!isDigito(c)) {
+                return NAO_NUMERICO;
+            }
+            int digito = c - '0';
+            todosIguais &= c == primeiro;
+            if (i < 9) {
+                soma1 += digito * (10 - i);
+            }
+            if (i < 10) {
+                soma2 += digito * (11 - i);
+            }
+        }
+
+        int dv1 = digitoVerificador(soma1);
+        int dv2 = digitoVerificador(soma2);
+        boolean valido = !todosIguais
+                && dv1 == chave.charAt(inicio + 9) - '0'
+                && dv2 == chave.charAt(inicio + 10) - '0';
+        return valido ? DOCUMENTO_VALIDO : DV_INVALIDO;
+    }
+
+    /**
+     * Pesos 5..2,9..2 para o primeiro DV e 6..2,9..2 para o segundo, na mesma passada
+     */
+    private static int verificarCnpj(CharSequence chave, int inicio) {
+        int soma1 = 0;
+        int soma2 = 0;
+        boolean todosIguais = true;
+        char primeiro = chave.charAt(inicio);
+
+        for (int i = 0; i < TAMANHO_CNPJ; i++) {
+            char c = chave.charAt(inicio + i);
+            if (!isDigito(c)) {
+                return NAO_NUMERICO;
+            }
+            int digito = c - '0';
+            todosIguais &= c == primeiro;
+            if (i < 12) {
+                soma1 += digito * PESOS_CNPJ[i + 1];
+            }
+            if (i < 13) {
+                soma2 += digito * PESOS_CNPJ[i];
+            }
+        }
+
+        int dv1 = digitoVerificador(soma1);
+        int dv2 = digitoVerificador(soma2);
+        boolean valido = !todosIguais
+                && dv1 == chave.charAt(inicio + 12) - '0'
+                && dv2 == chave.charAt(inicio + 13) - '0';
+        return valido ? DOCUMENTO_VALIDO : DV_INVALIDO;
+    }
+
+    private static int digitoVerificador(int soma) {
+        int resto = soma % 11;
+        return resto < 2 ? 0 : 11 - resto;
+    }
+
+    /**
+     * Parte local com letras, dígitos, '_', '.' ou '-', um único '@' e domínio com os mesmos caracteres,
+     * terminando em um rótulo de pelo menos 2 letras após o último ponto
+     */
+    private static boolean isEmail(CharSequence chave, int inicio, int fim) {
+        if (fim - inicio > TAMANHO_MAXIMO_EMAIL) {
+            return false;
+        }
+
+        int arroba = -1;
+        int ultimoPonto = -1;
+        boolean rotuloFinalSoLetras = true;
+
+        for (int i = inicio; i < fim; i++) {
+            char c = chave.charAt(i);
+            if (c == '@') {
+                if (arroba >= 0 || i == inicio) {
+                    return false;
+                }
+                arroba = i;
+            } else if (c == '.') {
+                if (arroba >= 0) {
+                    ultimoPonto = i;
+                    rotuloFinalSoLetras = true;
+                }
+            } else if (isDigito(c) || c == '_' || c == '-') {
+                if (arroba >= 0) {
+                    rotuloFinalSoLetras = false;
+                }
+            } else if (!isLetra(c)) {
+                return false;
+            }
+        }
+
+        return arroba >= 0
+                && ultimoPonto > arroba + 1
+                && fim - ultimoPonto - 1 >= 2
+                && rotuloFinalSoLetras;
+    }
+
+    private static boolean isDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetra(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
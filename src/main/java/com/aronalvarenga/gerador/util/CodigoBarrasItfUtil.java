@@ -0,0 +1,175 @@
+package com.aronalvarenga.gerador.util;
+
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfTemplate;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+
+/**
+ * Código de barras Interleaved 2 of 5 (ITF), o padrão FEBRABAN para os 44 dígitos do boleto
+ *
+ * A codificação devolve as larguras dos elementos em módulos, alternando barra e espaço a partir da
+ * primeira barra do início (estreita = 1, larga = {@link #LARGA}). A partir desse vetor o símbolo é desenhado
+ * como retângulos no PDF ou rasterizado em uma imagem de 1 bit por pixel, sem Barcode4J.
+ */
+public final class CodigoBarrasItfUtil {
+
+    /**
+     * Largura da barra larga em módulos; a FEBRABAN admite razão larga/estreita entre 2,25 e 3
+     */
+    public static final int LARGA = 3;
+
+    /**
+     * Zona de silêncio em módulos, de cada lado
+     */
+    public static final int ZONA_SILENCIO = 10;
+
+    /**
+     * Barra estreita de 0,254 mm e altura de 13 mm, em pontos do PDF
+     */
+    public static final float LARGURA_MODULO_PADRAO = 0.72f;
+    public static final float ALTURA_PADRAO = 36.85f;
+
+    private static final int[] INICIO = {1, 1, 1, 1};
+    private static final int[] FIM = {LARGA, 1, 1};
+
+    // Elementos largos de cada dígito, com o primeiro elemento no bit 4 (0 = NNWWN, 1 = WNNNW, ...)
+    private static final int[] PADROES = {
+            0b00110, 0b10001, 0b01001, 0b11000, 0b00101,
+            0b10100, 0b01100, 0b00011, 0b10010, 0b01010
+    };
+
+    private CodigoBarrasItfUtil() {
+    }
+
+    /**
+     * Larguras dos elementos do símbolo, de início a fim e sem a zona de silêncio
+     *
+     * @param codigo quantidade par de dígitos
+     */
+    public static int[] codificar(CharSequence codigo) {
+        if (codigo == null || codigo.length() == 0 || codigo.length() % 2 != 0) {
+            throw new IllegalArgumentException("ITF exige uma quantidade par de dígitos");
+        }
+
+        int[] barras = new int[INICIO.length + codigo.length() * 5 + FIM.length];
+        System.arraycopy(INICIO, 0, barras, 0, INICIO.length);
+        int posicao = INICIO.length;
+
+        // Cada par intercala as barras do primeiro dígito com os espaços do segundo
+        for (int i = 0; i < codigo.length(); i += 2) {
+            int padraoBarras = PADROES[digito(codigo, i)];
+            int padraoEspacos = PADROES[digito(codigo, i + 1)];
+            for (int bit = 4; bit >= 0; bit--) {
+                barras[posicao++] = (padraoBarras >> bit & 1) != 0 ? LARGA : 1;
+                barras[posicao++] = (padraoEspacos >> bit & 1) != 0 ? LARGA : 1;
+            }
+        }
+
+        System.arraycopy(FIM, 0, barras, posicao, FIM.length);
+        return barras;
+    }
+
+    /**
+     * Largura do símbolo em módulos, incluindo as duas zonas de silêncio
+     */
+    public static int larguraModulos(int[] barras) {
+        int largura = 2 * ZONA_SILENCIO;
+        for (int elemento : barras) {
+            largura += elemento;
+        }
+        return largura;
+    }
+
+    /**
+     * Desenha as barras com a primeira barra em (x, y), canto inferior esquerdo, sem a zona de silêncio
+     */
+    public static void desenhar(PdfContentByte canvas, int[] barras, float x, float y, float larguraModulo, float altura) {
+        // Retângulos em módulos e altura unitária; a escala fica na matriz de transformação
+        canvas.saveState();
+        canvas.concatCTM(larguraModulo, 0, 0, altura, x, y);
+        canvas.setGrayFill(0);
+        int posicao = 0;
+        for (int i = 0; i < barras.length; i++) {
+            if (i % 2 == 0) {
+                canvas.rectangle(posicao, 0, barras[i], 1);
+            }
+            posicao += barras[i];
+        }
+        canvas.fill();
+        canvas.restoreState();
+    }
+
+    /**
+     * Desenha o símbolo, com as zonas de silêncio, em um form XObject
+     */
+    public static PdfTemplate criarTemplate(PdfContentByte canvas, int[] barras, float larguraModulo, float altura) {
+        PdfTemplate template = canvas.createTemplate(larguraModulos(barras) * larguraModulo, altura);
+        desenhar(template, barras, ZONA_SILENCIO * larguraModulo, 0, larguraModulo, altura);
+        return template;
+    }
+
+    /**
+     * Template embrulhado como {@link Image}, para entrar no fluxo do {@code Document} como uma imagem comum
+     */
+    public static Image criarImagem(PdfContentByte canvas, int[] barras, float larguraModulo, float altura) throws BadElementException {
+        return Image.getInstance(criarTemplate(canvas, barras, larguraModulo, altura));
+    }
+
+    /**
+     * Uma linha do símbolo com as zonas de silêncio, em bits empacotados: pixel mais à esquerda no bit mais
+     * alto e 1 nas barras
+     */
+    public static byte[] empacotarLinha(int[] barras, int pixelsPorModulo) {
+        if (pixelsPorModulo <= 0) {
+            throw new IllegalArgumentException("Dimensões do código de barras devem ser positivas");
+        }
+
+        int largura = larguraModulos(barras) * pixelsPorModulo;
+        byte[] linha = new byte[(largura + 7) / 8];
+        int coluna = ZONA_SILENCIO * pixelsPorModulo;
+        for (int i = 0; i < barras.length; i++) {
+            int larguraElemento = barras[i] * pixelsPorModulo;
+            if (i % 2 == 0) {
+                for (int px = coluna; px < coluna + larguraElemento; px++) {
+                    linha[px >> 3] |= (byte) (0x80 >> (px & 7));
+                }
+            }
+            coluna += larguraElemento;
+        }
+        return linha;
+    }
+
+    /**
+     * Imagem de 1 bit por pixel com as zonas de silêncio; a primeira linha é montada e copiada para as demais
+     */
+    public static BufferedImage rasterizar(int[] barras, int pixelsPorModulo, int altura) {
+        if (pixelsPorModulo <= 0 || altura <= 0) {
+            throw new IllegalArgumentException("Dimensões do código de barras devem ser positivas");
+        }
+
+        BufferedImage imagem = new BufferedImage(larguraModulos(barras) * pixelsPorModulo, altura, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] pixels = ((DataBufferByte) imagem.getRaster().getDataBuffer()).getData();
+        byte[] linha = empacotarLinha(barras, pixelsPorModulo);
+
+        // Na paleta binária padrão o bit 1 é branco
+        for (int i = 0; i < linha.length; i++) {
+            pixels[i] = (byte) ~linha[i];
+        }
+        for (int y = 1; y < altura; y++) {
+            System.arraycopy(pixels, 0, pixels, y * linha.length, linha.length);
+        }
+        return imagem;
+    }
+
+    private static int digito(CharSequence codigo, int indice) {
+        char c = codigo.charAt(indice);
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("ITF aceita apenas dígitos: '" + c + "' na posição " + indice);
+        }
+        return c - '0';
+    }
+}
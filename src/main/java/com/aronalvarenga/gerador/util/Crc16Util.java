@@ -0,0 +1,248 @@
+package com.aronalvarenga.gerador.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CRC16-CCITT (polinômio refletido 0x8408, valor inicial 0xFFFF, complemento no final) usado no payload PIX
+ *
+ * Usa tabelas slicing-by-8: oito bytes por iteração com oito consultas de tabela, em vez de oito
+ * iterações com desvio por bit. A API é incremental: o estado retornado por {@code atualizar} pode ser
+ * passado para a próxima chamada e só é convertido no CRC final por {@link #finalizar(int)}.
+ */
+public final class Crc16Util {
+
+    public static final int ESTADO_INICIAL = 0xFFFF;
+
+    private static final int POLINOMIO = 0x8408;
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    // Tamanho do campo CRC no payload EMV: "6304" + 4 dígitos hexadecimais
+    private static final int TAMANHO_CAMPO_CRC = 8;
+
+    private static final int[][] TABELAS = new int[8][256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLINOMIO : crc >>> 1;
+            }
+            TABELAS[0][i] = crc;
+        }
+        for (int t = 1; t < 8; t++) {
+            for (int i = 0; i < 256; i++) {
+                int anterior = TABELAS[t - 1][i];
+                TABELAS[t][i] = (anterior >>> 8) ^ TABELAS[0][anterior & 0xFF];
+            }
+        }
+    }
+
+    private Crc16Util() {
+    }
+
+    /**
+     * Atualiza o estado do CRC com um trecho de bytes
+     */
+    public static int atualizar(int estado, byte[] bytes, int offset, int tamanho) {
+        int[] t0 = TABELAS[0], t1 = TABELAS[1], t2 = TABELAS[2], t3 = TABELAS[3];
+        int[] t4 = TABELAS[4], t5 = TABELAS[5], t6 = TABELAS[6], t7 = TABELAS[7];
+
+        int crc = estado;
+        int i = offset;
+        int fim = offset + tamanho;
+
+        for (; i + 8 <= fim; i += 8) {
+            crc = t7[(crc ^ bytes[i]) & 0xFF]
+                    ^ t6[((crc >>> 8) ^ bytes[i + 1]) & 0xFF]
+                    ^ t5[bytes[i + 2] & 0xFF]
+                    ^ t4[bytes[i + 3] & 0xFF]
+                    ^ t3[bytes[i + 4] & 0xFF]
+                    ^ t2[bytes[i + 5] & 0xFF]
+                    ^ t1[bytes[i + 6] & 0xFF]
+                    ^ t0[bytes[i + 7] & 0xFF];
+        }
+        for (; i < fim; i++) {
+            crc = (crc >>> 8) ^ t0[(crc ^ bytes[i]) & 0xFF];
+        }
+
+        return crc;
+    }
+
+    /**
+     * Atualiza o estado do CRC com os bytes restantes de um buffer (heap ou direto), sem alterar sua posição
+     */
+    public static int atualizar(int estado, ByteBuffer buffer) {
+        return atualizar(estado, buffer, buffer.position(), buffer.remaining());
+    }
+
+    /**
+     * Atualiza o estado do CRC com {@code tamanho} bytes a partir do índice absoluto {@code indice} do buffer
+     */
+    public static int atualizar(int estado, ByteBuffer buffer, int indice, int tamanho) {
+        if (buffer.hasArray()) {
+            return atualizar(estado, buffer.array(), buffer.arrayOffset() + indice, tamanho);
+        }
+
+        int[] t0 = TABELAS[0];
+        int crc = estado;
+        for (int i = indice; i < indice + tamanho; i++) {
+            crc = (crc >>> 8) ^ t0[(crc ^ buffer.get(i)) & 0xFF];
+        }
+        return crc;
+    }
+
+    /**
+     * Atualiza o estado do CRC com o texto codificado em UTF-8, sem criar o array de bytes
+     */
+    public static int atualizar(int estado, CharSequence texto) {
+        return atualizar(estado, texto, 0, texto.length());
+    }
+
+    /**
+     * Atualiza o estado do CRC com o trecho {@code [inicio, fim)} do texto codificado em UTF-8
+     */
+    public static int atualizar(int estado, CharSequence texto, int inicio, int fim) {
+        int[] t0 = TABELAS[0];
+        int crc = estado;
+
+        for (int i = inicio; i < fim; i++) {
+            int c = texto.charAt(i);
+            if (c < 0x80) {
+                crc = (crc >>> 8) ^ t0[(crc ^ c) & 0xFF];
+                continue;
+            }
+
+            if (Character.isHighSurrogate((char) c) && i + 1 < fim
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                c = Character.toCodePoint((char) c, texto.charAt(++i));
+            } else if (Character.isSurrogate((char) c)) {
+                // Surrogate isolado: String.getBytes(UTF_8) o substitui por '?'
+                c = '?';
+            }
+
+            if (c < 0x80) {
+                crc = (crc >>> 8) ^ t0[(crc ^ c) & 0xFF];
+            } else if (c < 0x800) {
+                crc = (crc >>> 8) ^ t0[(crc ^ (0xC0 | (c >>> 6))) & 0xFF];
+                crc = (crc >>> 8) ^ t0[(crc ^ (0x80 | (c & 0x3F))) & 0xFF];
+            } else if (c < 0x10000) {
+                crc = (crc >>> 8) ^ t0[(crc ^ (0xE0 | (c >>> 12))) & 0xFF];
+                crc = (crc >>> 8) ^ t0[(crc ^ (0x80 | ((c >>> 6) & 0x3F))) & 0xFF];
+                crc = (crc >>> 8) ^ t0[(crc ^ (0x80 | (c & 0x3F))) & 0xFF];
+            } else {
+                crc = (crc >>> 8) ^ t0[(crc ^ (0xF0 | (c >>> 18))) & 0xFF];
+                crc = (crc >>> 8) ^ t0[(crc ^ (0x80 | ((c >>> 12) & 0x3F))) & 0xFF];
+                crc = (crc >>> 8) ^ t0[(crc ^ (0x80 | ((c >>> 6) & 0x3F))) & 0xFF];
+                crc = (crc >>> 8) ^ t0[(crc ^ (0x80 | (c & 0x3F))) & 0xFF];
+            }
+        }
+
+        return crc;
+    }
+
+    /**
+     * Converte o estado no CRC final (complemento de 16 bits)
+     */
+    public static int finalizar(int estado) {
+        return ~estado & 0xFFFF;
+    }
+
+    public static int calcular(byte[] bytes, int offset, int tamanho) {
+        return finalizar(atualizar(ESTADO_INICIAL, bytes, offset, tamanho));
+    }
+
+    public static int calcular(CharSequence texto) {
+        return finalizar(atualizar(ESTADO_INICIAL, texto));
+    }
+
+    /**
+     * Escreve o CRC em 4 dígitos hexadecimais maiúsculos
+     */
+    public static void escreverHex(int crc, byte[] destino, int offset) {
+        destino[offset] = HEX[(crc >>> 12) & 0xF];
+        destino[offset + 1] = HEX[(crc >>> 8) & 0xF];
+        destino[offset + 2] = HEX[(crc >>> 4) & 0xF];
+        destino[offset + 3] = HEX[crc & 0xF];
+    }
+
+    /**
+     * Anexa o CRC em 4 dígitos hexadecimais maiúsculos
+     */
+    public static StringBuilder anexarHex(int crc, StringBuilder destino) {
+        return destino.append((char) HEX[(crc >>> 12) & 0xF])
+                .append((char) HEX[(crc >>> 8) & 0xF])
+                .append((char) HEX[(crc >>> 4) & 0xF])
+                .append((char) HEX[crc & 0xF]);
+    }
+
+    /**
+     * Verifica o CRC de um payload EMV completo (terminado em "6304" + 4 dígitos hexadecimais), sem alocação
+     */
+    public static boolean verificarPayload(byte[] payload, int offset, int tamanho) {
+        if (tamanho < TAMANHO_CAMPO_CRC) {
+            return false;
+        }
+
+        int inicioCampo = offset + tamanho - TAMANHO_CAMPO_CRC;
+        if (payload[inicioCampo] != '6' || payload[inicioCampo + 1] != '3'
+                || payload[inicioCampo + 2] != '0' || payload[inicioCampo + 3] != '4') {
+            return false;
+        }
+
+        int esperado = lerHex(payload, inicioCampo + 4);
+        return esperado >= 0 && esperado == calcular(payload, offset, tamanho - 4);
+    }
+
+    /**
+     * Verifica o CRC de um payload EMV completo em texto
+     */
+    public static boolean verificarPayload(CharSequence payload) {
+        int tamanho = payload.length();
+        if (tamanho < TAMANHO_CAMPO_CRC) {
+            return false;
+        }
+
+        int inicioCampo = tamanho - TAMANHO_CAMPO_CRC;
+        if (payload.charAt(inicioCampo) != '6' || payload.charAt(inicioCampo + 1) != '3'
+                || payload.charAt(inicioCampo + 2) != '0' || payload.charAt(inicioCampo + 3) != '4') {
+            return false;
+        }
+
+        int esperado = 0;
+        for (int i = inicioCampo + 4; i < tamanho; i++) {
+            int digito = valorHex(payload.charAt(i));
+            if (digito < 0) {
+                return false;
+            }
+            esperado = (esperado << 4) | digito;
+        }
+
+        return esperado == finalizar(atualizar(ESTADO_INICIAL, payload, 0, tamanho - 4));
+    }
+
+    private static int lerHex(byte[] bytes, int offset) {
+        int valor = 0;
+        for (int i = offset; i < offset + 4; i++) {
+            int digito = valorHex(bytes[i]);
+            if (digito < 0) {
+                return -1;
+            }
+            valor = (valor << 4) | digito;
+        }
+        return valor;
+    }
+
+    private static int valorHex(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
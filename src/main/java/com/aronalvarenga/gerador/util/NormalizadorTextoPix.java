@@ -0,0 +1,207 @@
+package com.aronalvarenga.gerador.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Normalização do nome do recebedor (campo 59) e da cidade (campo 60) do payload PIX
+ *
+ * Uma tabela pré-calculada para Latin-1 e Latin Extended (até U+024F) converte cada caractere em sua letra
+ * maiúscula sem acento ("ã" vira "A", "ß" vira "SS"); os demais caracteres fora de A-Z, 0-9 e espaços são
+ * descartados. Remoção, espaços nas pontas e truncamento no limite EMV acontecem na mesma passada.
+ *
+ * Os resultados ficam em caches LRU limitados, pois em lote os mesmos nomes e endereços se repetem.
+ */
+public class NormalizadorTextoPix {
+
+    public static final int TAMANHO_MAXIMO_NOME = 25;
+    public static final int TAMANHO_MAXIMO_CIDADE = 15;
+    public static final String NOME_PADRAO = "PROPRIETARIO";
+    public static final String CIDADE_PADRAO = "CAMPO GRANDE";
+
+    private static final int CAPACIDADE_CACHE_PADRAO = 1024;
+
+    // Caracteres descartados ficam com 0; os que viram duas letras ficam com EXPANSAO e estão em EXPANSOES
+    private static final char EXPANSAO = '\u0001';
+    private static final char[] TABELA = new char[0x250];
+    private static final String[] EXPANSOES = new String[0x250];
+
+    static {
+        for (char c = 0; c < TABELA.length; c++) {
+            if ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || isEspaco(c)) {
+                TABELA[c] = c;
+            } else if (c >= 'a' && c <= 'z') {
+                TABELA[c] = (char) (c - 'a' + 'A');
+            } else if (c >= 0xC0) {
+                char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+                if (base >= 'a' && base <= 'z') {
+                    TABELA[c] = (char) (base - 'a' + 'A');
+                } else if (base >= 'A' && base <= 'Z') {
+                    TABELA[c] = base;
+                }
+            }
+        }
+
+        // Letras sem decomposição canônica
+        mapear("ØøǾǿ", 'O');
+        mapear("ĐđÐðƉ", 'D');
+        mapear("ŁłĿŀ", 'L');
+        mapear("Ħħ", 'H');
+        mapear("Ŧŧ", 'T');
+        mapear("ı", 'I');
+        mapear("ſ", 'S');
+        mapear("ƒ", 'F');
+        expandir("ÆæǼǽǢǣ", "AE");
+        expandir("Œœ", "OE");
+        expandir("Ĳĳ", "IJ");
+        expandir("Þþ", "TH");
+        expandir("ß", "SS");
+    }
+
+    private final Map<String, String> cacheNomes;
+    private final Map<String, String> cacheCidades;
+    private final StringBuilder buffer = new StringBuilder(64);
+
+    public NormalizadorTextoPix() {
+        this(CAPACIDADE_CACHE_PADRAO);
+    }
+
+    /**
+     * @param capacidadeCache quantidade máxima de nomes e de endereços guardados em cada cache
+     */
+    public NormalizadorTextoPix(int capacidadeCache) {
+        this.cacheNomes = criarCache(capacidadeCache);
+        this.cacheCidades = criarCache(capacidadeCache);
+    }
+
+    /**
+     * Nome do recebedor em maiúsculas sem acentos, com até 25 caracteres, ou "PROPRIETARIO" se ficar vazio
+     */
+    public synchronized String normalizarNome(String nome) {
+        if (nome == null) {
+            return NOME_PADRAO;
+        }
+
+        String normalizado = cacheNomes.get(nome);
+        if (normalizado == null) {
+            buffer.setLength(0);
+            normalizar(nome, 0, nome.length(), TAMANHO_MAXIMO_NOME, buffer);
+            normalizado = buffer.length() == 0 ? NOME_PADRAO : buffer.toString();
+            cacheNomes.put(nome, normalizado);
+        }
+        return normalizado;
+    }
+
+    /**
+     * Cidade do endereço no formato "logradouro - bairro - cidade/UF": o trecho após o último '-', até a '/',
+     * normalizado com até 15 caracteres, ou "CAMPO GRANDE" se não houver cidade
+     */
+    public synchronized String extrairCidade(String endereco) {
+        if (endereco == null) {
+            return CIDADE_PADRAO;
+        }
+
+        String cidade = cacheCidades.get(endereco);
+        if (cidade == null) {
+            buffer.setLength(0);
+            // Mesma divisão de endereco.split("-"), que ignora partes vazias no final, sem criar as partes
+            int fim = endereco.length();
+            while (fim > 0 && endereco.charAt(fim - 1) == '-') {
+                fim--;
+            }
+            int separador = fim == 0 ? -1 : endereco.lastIndexOf('-', fim - 1);
+            if (separador >= 0) {
+                int barra = endereco.indexOf('/', separador + 1);
+                normalizar(endereco, separador + 1, barra >= 0 && barra < fim ? barra : fim, TAMANHO_MAXIMO_CIDADE, buffer);
+            }
+            cidade = buffer.length() == 0 ? CIDADE_PADRAO : buffer.toString();
+            cacheCidades.put(endereco, cidade);
+        }
+        return cidade;
+    }
+
+    /**
+     * Anexa o trecho {@code [inicio, fim)} normalizado ao buffer, sem espaços nas pontas e com até
+     * {@code limite} caracteres
+     *
+     * @return quantidade de caracteres anexados
+     */
+    public static int normalizar(CharSequence texto, int inicio, int fim, int limite, StringBuilder destino) {
+        int base = destino.length();
+        int escritos = 0;
+        // Espaços só são escritos quando um caractere mantido aparece depois deles
+        int inicioEspacos = -1;
+
+        for (int i = inicio; i < fim; i++) {
+            char c = texto.charAt(i);
+            char convertido = c < TABELA.length ? TABELA[c] : 0;
+            if (convertido == 0) {
+                continue;
+            }
+
+            if (isEspaco(convertido)) {
+                if (escritos > 0 && inicioEspacos < 0) {
+                    inicioEspacos = i;
+                }
+                continue;
+            }
+
+            if (inicioEspacos >= 0) {
+                for (int j = inicioEspacos; j < i && escritos < limite; j++) {
+                    char espaco = texto.charAt(j);
+                    if (isEspaco(espaco)) {
+                        destino.append(espaco);
+                        escritos++;
+                    }
+                }
+                inicioEspacos = -1;
+            }
+            if (escritos >= limite) {
+                break;
+            }
+
+            if (convertido == EXPANSAO) {
+                String expansao = EXPANSOES[c];
+                for (int k = 0; k < expansao.length() && escritos < limite; k++) {
+                    destino.append(expansao.charAt(k));
+                    escritos++;
+                }
+            } else {
+                destino.append(convertido);
+                escritos++;
+            }
+            if (escritos >= limite) {
+                break;
+            }
+        }
+
+        return destino.length() - base;
+    }
+
+    private static boolean isEspaco(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static void mapear(String caracteres, char letra) {
+        for (int i = 0; i < caracteres.length(); i++) {
+            TABELA[caracteres.charAt(i)] = letra;
+        }
+    }
+
+    private static void expandir(String caracteres, String letras) {
+        for (int i = 0; i < caracteres.length(); i++) {
+            TABELA[caracteres.charAt(i)] = EXPANSAO;
+            EXPANSOES[caracteres.charAt(i)] = letras;
+        }
+    }
+
+    private static Map<String, String> criarCache(int capacidade) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> maisAntiga) {
+                return size() > capacidade;
+            }
+        };
+    }
+}
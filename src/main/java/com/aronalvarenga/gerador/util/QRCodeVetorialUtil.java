@@ -0,0 +1,112 @@
+package com.aronalvarenga.gerador.util;
+
+import com.google.zxing.common.BitMatrix;
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfTemplate;
+
+import java.util.Arrays;
+
+/**
+ * Desenho vetorial do QR Code no conteúdo do PDF, sem rasterizar em {@code BufferedImage}
+ *
+ * A matriz deve ter um pixel por módulo ({@link CacheSimbolos#obterModulosQRCode(String)}). Módulos escuros
+ * vizinhos na mesma linha viram um único retângulo, e retângulos iguais em linhas seguidas são unidos, o que
+ * reduz o QR Code a poucas centenas de operadores {@code re} preenchidos de uma só vez.
+ */
+public final class QRCodeVetorialUtil {
+
+    private QRCodeVetorialUtil() {
+    }
+
+    /**
+     * Recebe cada retângulo em coordenadas de módulo (linha 0 no topo)
+     */
+    public interface ConsumidorRetangulo {
+        void aceitar(int coluna, int linha, int largura, int altura);
+    }
+
+    /**
+     * Desenha a matriz em um quadrado de lado {@code tamanho} com o canto inferior esquerdo em (x, y)
+     */
+    public static void desenhar(PdfContentByte canvas, BitMatrix modulos, float x, float y, float tamanho) {
+        float modulo = tamanho / modulos.getWidth();
+        int alturaModulos = modulos.getHeight();
+
+        // Os retângulos são escritos em unidades de módulo, com inteiros curtos; a escala fica na matriz de transformação
+        canvas.saveState();
+        canvas.concatCTM(modulo, 0, 0, modulo, x, y);
+        canvas.setGrayFill(0);
+        percorrerRetangulos(modulos, (coluna, linha, largura, altura) ->
+                canvas.rectangle(coluna, alturaModulos - linha - altura, largura, altura));
+        canvas.fill();
+        canvas.restoreState();
+    }
+
+    /**
+     * Desenha a matriz uma vez em um form XObject, que pode ser reutilizado em várias páginas
+     */
+    public static PdfTemplate criarTemplate(PdfContentByte canvas, BitMatrix modulos, float tamanho) {
+        PdfTemplate template = canvas.createTemplate(tamanho, tamanho);
+        desenhar(template, modulos, 0, 0, tamanho);
+        return template;
+    }
+
+    /**
+     * Template embrulhado como {@link Image}, para entrar no fluxo do {@code Document} como uma imagem comum
+     */
+    public static Image criarImagem(PdfContentByte canvas, BitMatrix modulos, float tamanho) throws BadElementException {
+        return Image.getInstance(criarTemplate(canvas, modulos, tamanho));
+    }
+
+    /**
+     * Retângulos de módulos escuros, unidos na horizontal e na vertical; também usados no desenho em
+     * {@code Graphics2D}
+     *
+     * @return quantidade de retângulos
+     */
+    public static int percorrerRetangulos(BitMatrix modulos, ConsumidorRetangulo consumidor) {
+        int largura = modulos.getWidth();
+        int altura = modulos.getHeight();
+
+        // Retângulo aberto indexado pela coluna inicial: coluna final (exclusiva) e linha inicial; -1 se fechado
+        int[] fimAberto = new int[largura];
+        int[] linhaAberta = new int[largura];
+        // Trechos da linha atual indexados pela coluna inicial
+        int[] fimLinha = new int[largura];
+        Arrays.fill(fimAberto, -1);
+
+        int retangulos = 0;
+        for (int linha = 0; linha <= altura; linha++) {
+            Arrays.fill(fimLinha, -1);
+            if (linha < altura) {
+                int coluna = 0;
+                while (coluna < largura) {
+                    if (!modulos.get(coluna, linha)) {
+                        coluna++;
+                        continue;
+                    }
+                    int inicio = coluna;
+                    while (coluna < largura && modulos.get(coluna, linha)) {
+                        coluna++;
+                    }
+                    fimLinha[inicio] = coluna;
+                }
+            }
+
+            for (int inicio = 0; inicio < largura; inicio++) {
+                if (fimAberto[inicio] >= 0 && fimAberto[inicio] != fimLinha[inicio]) {
+                    consumidor.aceitar(inicio, linhaAberta[inicio], fimAberto[inicio] - inicio, linha - linhaAberta[inicio]);
+                    retangulos++;
+                    fimAberto[inicio] = -1;
+                }
+                if (fimLinha[inicio] >= 0 && fimAberto[inicio] < 0) {
+                    fimAberto[inicio] = fimLinha[inicio];
+                    linhaAberta[inicio] = linha;
+                }
+            }
+        }
+        return retangulos;
+    }
+}
@@ -0,0 +1,85 @@
+package com.aronalvarenga.gerador.util;
+
+import com.google.zxing.common.BitMatrix;
+import com.itextpdf.text.BadElementException;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.ImgRaw;
+import com.itextpdf.text.pdf.codec.CCITTG4Encoder;
+
+/**
+ * Imagens de 1 bit por pixel do QR Code e do código de barras para o PDF, montadas direto em bits
+ * empacotados, sem {@link java.awt.image.BufferedImage}
+ *
+ * Os bits seguem a convenção do CCITT com 1 = preto e o pixel mais à esquerda no bit mais alto. Em CCITT G4
+ * cada linha é codificada pelas diferenças em relação à anterior, então as linhas repetidas dos módulos e
+ * das barras quase não ocupam espaço; em Flate a imagem é marcada como invertida ({@code /Decode [1 0]}).
+ */
+public final class SimboloMonocromaticoUtil {
+
+    private SimboloMonocromaticoUtil() {
+    }
+
+    /**
+     * Pixels por módulo para um módulo de {@code tamanhoModulo} pontos na resolução informada (mínimo 1)
+     */
+    public static int pixelsPorModulo(float tamanhoModulo, int dpi) {
+        return Math.max(1, Math.round(tamanhoModulo * dpi / 72f));
+    }
+
+    /**
+     * QR Code com cada módulo da matriz (um pixel por módulo) ampliado para {@code pixelsPorModulo} pixels
+     */
+    public static Image criarQRCode(BitMatrix modulos, int pixelsPorModulo, boolean ccittG4, int nivelCompressao)
+            throws BadElementException {
+        int largura = modulos.getWidth() * pixelsPorModulo;
+        int altura = modulos.getHeight() * pixelsPorModulo;
+        int bytesPorLinha = (largura + 7) / 8;
+        byte[] bits = new byte[bytesPorLinha * altura];
+
+        for (int linhaModulo = 0; linhaModulo < modulos.getHeight(); linhaModulo++) {
+            int inicioLinha = linhaModulo * pixelsPorModulo * bytesPorLinha;
+            for (int colunaModulo = 0; colunaModulo < modulos.getWidth(); colunaModulo++) {
+                if (modulos.get(colunaModulo, linhaModulo)) {
+                    int px = colunaModulo * pixelsPorModulo;
+                    for (int fim = px + pixelsPorModulo; px < fim; px++) {
+                        bits[inicioLinha + (px >> 3)] |= (byte) (0x80 >> (px & 7));
+                    }
+                }
+            }
+            for (int copia = 1; copia < pixelsPorModulo; copia++) {
+                System.arraycopy(bits, inicioLinha, bits, inicioLinha + copia * bytesPorLinha, bytesPorLinha);
+            }
+        }
+        return criarImagem(bits, largura, altura, ccittG4, nivelCompressao);
+    }
+
+    /**
+     * Código de barras ITF com as zonas de silêncio e {@code altura} linhas iguais
+     */
+    public static Image criarCodigoBarras(int[] barras, int pixelsPorModulo, int altura, boolean ccittG4,
+                                          int nivelCompressao) throws BadElementException {
+        byte[] linha = CodigoBarrasItfUtil.empacotarLinha(barras, pixelsPorModulo);
+        byte[] bits = new byte[linha.length * altura];
+        for (int y = 0; y < altura; y++) {
+            System.arraycopy(linha, 0, bits, y * linha.length, linha.length);
+        }
+        return criarImagem(bits, CodigoBarrasItfUtil.larguraModulos(barras) * pixelsPorModulo, altura, ccittG4,
+                nivelCompressao);
+    }
+
+    /**
+     * @param bits linhas empacotadas com 1 = preto, cada uma começando em um novo byte
+     */
+    public static Image criarImagem(byte[] bits, int largura, int altura, boolean ccittG4, int nivelCompressao)
+            throws BadElementException {
+        if (ccittG4) {
+            byte[] codificado = CCITTG4Encoder.compress(bits, largura, altura);
+            return Image.getInstance(largura, altura, false, Image.CCITTG4, Image.CCITT_BLACKIS1, codificado);
+        }
+        // Image.getInstance converteria 1 bit para CCITT G4; ImgRaw mantém os bits para o Flate
+        Image imagem = new ImgRaw(largura, altura, 1, 1, bits);
+        imagem.setInverted(true);
+        imagem.setCompressionLevel(nivelCompressao);
+        return imagem;
+    }
+}
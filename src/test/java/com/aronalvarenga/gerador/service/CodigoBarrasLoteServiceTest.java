@@ -0,0 +1,69 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.ValidacaoUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes de Código de Barras em Lote - Entrada Colunar")
+class CodigoBarrasLoteServiceTest {
+
+    private CodigoBarrasService codigoBarrasService;
+    private CodigoBarrasLoteService loteService;
+
+    @BeforeEach
+    void setUp() {
+        codigoBarrasService = new CodigoBarrasService();
+        loteService = new CodigoBarrasLoteService();
+    }
+
+    @Test
+    @DisplayName("Deve gerar em lote os mesmos códigos da geração individual")
+    void deveGerarMesmosCodigosDaGeracaoIndividual() {
+        // Lote maior que o limiar de divisão para exercitar o fork-join
+        int quantidade = 20_000;
+        long[] centavos = new long[quantidade];
+        int[] diasVencimento = new int[quantidade];
+        long[] camposGuia = new long[quantidade];
+        long[] camposCpf = new long[quantidade];
+
+        int diaBase = (int) LocalDate.of(2025, 1, 10).toEpochDay();
+        for (int i = 0; i < quantidade; i++) {
+            centavos[i] = 1 + i * 137L;
+            diasVencimento[i] = diaBase + (i % 365);
+            camposGuia[i] = CodigoBarrasService.empacotarDigitos("2025" + i);
+            camposCpf[i] = CodigoBarrasService.empacotarDigitos(String.format("%011d", i * 7919L));
+        }
+
+        byte[] destino = new byte[quantidade * CodigoBarrasService.TAMANHO_CODIGO_BARRAS];
+        loteService.gerarCodigosBarras(centavos, diasVencimento, camposGuia, camposCpf, destino);
+
+        char[] esperado = new char[CodigoBarrasService.TAMANHO_CODIGO_BARRAS];
+        for (int i = 0; i < quantidade; i++) {
+            codigoBarrasService.gerarCodigoBarras(centavos[i], diasVencimento[i], camposGuia[i], camposCpf[i], esperado, 0);
+            String codigo = CodigoBarrasLoteService.lerCodigoBarras(destino, i);
+
+            assertEquals(new String(esperado), codigo, "Código da guia " + i + " deve ser igual ao individual");
+            assertTrue(ValidacaoUtil.validarDVFEBRABAN(codigo), "DV FEBRABAN deve ser válido");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar colunas com tamanhos diferentes ou buffer insuficiente")
+    void deveRejeitarColunasInconsistentes() {
+        long[] centavos = {100, 200};
+        int[] dias = {20000, 20001};
+        long[] campos = {1, 2};
+
+        assertThrows(IllegalArgumentException.class,
+                () -> loteService.gerarCodigosBarras(centavos, new int[]{20000}, campos, campos, new byte[88]),
+                "Colunas de tamanhos diferentes devem ser rejeitadas");
+        assertThrows(IllegalArgumentException.class,
+                () -> loteService.gerarCodigosBarras(centavos, dias, campos, campos, new byte[87]),
+                "Buffer menor que o lote deve ser rejeitado");
+    }
+}
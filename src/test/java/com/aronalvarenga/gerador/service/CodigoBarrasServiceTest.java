@@ -5,8 +5,11 @@ import com.aronalvarenga.gerador.util.ValidacaoUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -210,4 +213,68 @@ class CodigoBarrasServiceTest {
                 "Código da moeda deve ser 9");
     }
 
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            // Golden file - codigo-barras-casos-conhecidos.json (codigoBarrasEsperado)
+            "caso-001|12345678901|100.50|2024-01-15|1234567890|00191959600000100501234567890000011234567890",
+            "caso-002|98765432100|999999.99|2024-12-31|9999999999|00198994700999999999999999999000019876543210",
+            "caso-003|11122233344|0.01|2024-06-01|1111111111|00193973400000000011111111111000011112223334",
+            "caso-004|55566677788|250.75|1997-10-08|5555555555|00199000100000250755555555555000015556667778",
+            "caso-005|123.456.789-01|150.50|2025-02-28|2025/01-0001|00191000600000150502025010001000011234567890",
+            "caso-006|12|150.509|2030-02-28|123456789012345|00196183200000150501234567890000011200000000"
+    })
+    @DisplayName("Deve gerar código idêntico ao golden file")
+    void deveGerarCodigoIdenticoAoGoldenFile(String caso, String cpf, String valor, String vencimento,
+                                             String numeroGuia, String codigoEsperado) {
+        GuiaPagamento guia = new GuiaPagamento(
+                "GOLDEN FILE",
+                cpf,
+                "Rua Teste - Campo Grande/MS",
+                cpf,
+                new BigDecimal(valor),
+                caso,
+                LocalDate.parse(vencimento),
+                numeroGuia
+        );
+
+        assertEquals(codigoEsperado, codigoBarrasService.gerarCodigoBarras(guia),
+                "Código de barras deve ser idêntico ao golden file");
+    }
+
+    @Test
+    @DisplayName("Deve gerar o mesmo código nos buffers char[] e byte[]")
+    void deveGerarMesmoCodigoNosBuffersCharEByte() {
+        long centavos = 10050;
+        long diaVencimento = LocalDate.of(2024, 1, 15).toEpochDay();
+        long campoGuia = CodigoBarrasService.empacotarDigitos("1234567890");
+        long campoCpf = CodigoBarrasService.empacotarDigitos("123.456.789-01");
+
+        char[] chars = new char[50];
+        byte[] bytes = new byte[50];
+        codigoBarrasService.gerarCodigoBarras(centavos, diaVencimento, campoGuia, campoCpf, chars, 3);
+        codigoBarrasService.gerarCodigoBarras(centavos, diaVencimento, campoGuia, campoCpf, bytes, 3);
+
+        String esperado = "00191959600000100501234567890000011234567890";
+        assertEquals(esperado, new String(chars, 3, 44), "Buffer char[] deve conter o código a partir do offset");
+        assertEquals(esperado, new String(bytes, 3, 44, StandardCharsets.US_ASCII),
+                "Buffer byte[] deve conter o código a partir do offset");
+        assertEquals(0, chars[2], "Posições fora do código não devem ser alteradas");
+        assertEquals(0, bytes[47], "Posições fora do código não devem ser alteradas");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar vencimento anterior à data base e valor acima de 10 dígitos")
+    void deveRejeitarEntradasForaDoLayout() {
+        char[] destino = new char[44];
+        long diaValido = LocalDate.of(2024, 1, 1).toEpochDay();
+        long diaInvalido = LocalDate.of(1997, 10, 6).toEpochDay();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> codigoBarrasService.gerarCodigoBarras(100, diaInvalido, 0, 0, destino, 0),
+                "Vencimento anterior à data base deve ser rejeitado");
+        assertThrows(IllegalArgumentException.class,
+                () -> codigoBarrasService.gerarCodigoBarras(10_000_000_000L, diaValido, 0, 0, destino, 0),
+                "Valor com mais de 10 dígitos deve ser rejeitado");
+    }
+
 }
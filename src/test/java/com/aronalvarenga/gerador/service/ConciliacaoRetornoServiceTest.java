@@ -0,0 +1,211 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.ResumoConciliacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes de Conciliação - Arquivos de Retorno CNAB")
+class ConciliacaoRetornoServiceTest {
+
+    // Golden file caso-001 e caso-003 (codigo-barras-casos-conhecidos.json)
+    private static final String CODIGO_1 = "00191959600000100501234567890000011234567890";
+    private static final String CODIGO_2 = "00193973400000000011111111111000011112223334";
+
+    @TempDir
+    Path diretorio;
+
+    private ConciliacaoRetornoService conciliacaoService;
+
+    @BeforeEach
+    void setUp() {
+        byte[] emitidos = (CODIGO_1 + CODIGO_2).getBytes(StandardCharsets.US_ASCII);
+        conciliacaoService = new ConciliacaoRetornoService(emitidos, 2);
+    }
+
+    @Test
+    @DisplayName("Deve conciliar retorno CNAB 240 pelos segmentos T e U de cada título")
+    void deveConciliarRetornoCnab240() throws IOException {
+        Path retorno = gravarRetorno(240,
+                registro(240, 7, "0"),
+                segmentoT(1, "1234567890", 10050),
+                segmentoU(2, 10050),
+                segmentoT(3, "1111111111", 1),
+                segmentoU(4, 2),
+                segmentoT(5, "9999999999", 10050),
+                segmentoU(6, 10050),
+                // Segmento U sem o T anterior e segmento T sem o U seguinte
+                segmentoU(7, 500),
+                segmentoT(8, "1234567890", 10050),
+                registro(240, 7, "9"));
+
+        ResumoConciliacao resumo = conciliacaoService.conciliar(retorno, LayoutRetornoCnab.CNAB_240, diretorio);
+
+        assertEquals(3, resumo.getRegistrosLidos());
+        assertEquals(1, resumo.getConciliados());
+        assertEquals(1, resumo.getDivergentes());
+        assertEquals(1, resumo.getNaoEncontrados());
+        assertEquals(4, resumo.getRegistrosIgnorados(), "Header, trailer e segmentos sem par devem ser ignorados");
+        assertEquals(20102, resumo.getTotalPagoCentavos());
+
+        assertEquals(List.of("registro;chave;valor_pago", "2;1234567890;10050"),
+                Files.readAllLines(diretorio.resolve(ConciliacaoRetornoService.RELATORIO_CONCILIADOS)));
+        assertEquals(List.of("registro;chave;valor_emitido;valor_pago", "4;1111111111;1;2"),
+                Files.readAllLines(diretorio.resolve(ConciliacaoRetornoService.RELATORIO_DIVERGENTES)));
+        assertEquals(List.of("registro;chave;valor_pago", "6;9999999999;10050"),
+                Files.readAllLines(diretorio.resolve(ConciliacaoRetornoService.RELATORIO_NAO_ENCONTRADOS)));
+    }
+
+    @Test
+    @DisplayName("Deve conciliar retorno CNAB 400 pelo número da guia no nosso número")
+    void deveConciliarRetornoCnab400() throws IOException {
+        Path retorno = gravarRetorno(400,
+                registro(400, 0, "0"),
+                detalhe400("1234567890", 10050),
+                detalhe400("1111111111", 1),
+                detalhe400("5555555555", 25075),
+                registro(400, 0, "9"));
+
+        ResumoConciliacao resumo = conciliacaoService.conciliar(retorno, LayoutRetornoCnab.CNAB_400, diretorio);
+
+        assertEquals(3, resumo.getRegistrosLidos());
+        assertEquals(2, resumo.getConciliados());
+        assertEquals(0, resumo.getDivergentes());
+        assertEquals(1, resumo.getNaoEncontrados());
+        assertEquals(List.of("registro;chave;valor_pago", "4;5555555555;25075"),
+                Files.readAllLines(diretorio.resolve(ConciliacaoRetornoService.RELATORIO_NAO_ENCONTRADOS)));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar registros sem quebra de linha e ignorar registro truncado no final")
+    void deveAceitarRegistrosSemQuebraDeLinha() throws IOException {
+        String conteudo = segmentoT(1, "1234567890", 10050) + segmentoU(2, 10050)
+                + segmentoT(3, "1111111111", 1) + segmentoU(4, 1) + "3".repeat(100);
+        Path retorno = diretorio.resolve("retorno-continuo.ret");
+        Files.write(retorno, conteudo.getBytes(StandardCharsets.US_ASCII));
+
+        ResumoConciliacao resumo = conciliacaoService.conciliar(retorno, LayoutRetornoCnab.CNAB_240, diretorio);
+
+        assertEquals(2, resumo.getConciliados());
+        assertEquals(1, resumo.getRegistrosIgnorados());
+    }
+
+    @Test
+    @DisplayName("Deve escolher pelo valor do título entre códigos emitidos com o mesmo número de guia truncado")
+    void deveConciliarCodigosComMesmoNumeroDeGuia() throws IOException {
+        // Mesmo número de guia no campo livre (10 primeiros dígitos) que CODIGO_1, CPF e valor diferentes
+        CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
+        String primeiro = codigoBarrasService.gerarCodigoBarras(guia("12345678901", "11122233344", "150.00"));
+        String segundo = codigoBarrasService.gerarCodigoBarras(guia("12345678902", "55566677788", "275.50"));
+        assertEquals(CODIGO_1.substring(19, 29), primeiro.substring(19, 29));
+        assertEquals(primeiro.substring(19, 29), segundo.substring(19, 29));
+
+        byte[] emitidos = (CODIGO_1 + primeiro + CODIGO_2 + segundo).getBytes(StandardCharsets.US_ASCII);
+        ConciliacaoRetornoService conciliacao = new ConciliacaoRetornoService(emitidos, 4);
+        Path retorno = gravarRetorno(240,
+                segmentoT(1, "1234567890", 27550),
+                segmentoU(2, 27550),
+                segmentoT(3, "1234567890", 15000),
+                segmentoU(4, 15000),
+                segmentoT(5, "1234567890", 10050),
+                segmentoU(6, 10050),
+                // Nenhum código com esse valor: vale o primeiro emitido
+                segmentoT(7, "1234567890", 99900),
+                segmentoU(8, 99900));
+
+        ResumoConciliacao resumo = conciliacao.conciliar(retorno, LayoutRetornoCnab.CNAB_240, diretorio);
+
+        assertEquals(3, resumo.getConciliados(), "Cada título deve ser conciliado com o código do seu valor");
+        assertEquals(0, resumo.getNaoEncontrados());
+        assertEquals(List.of("registro;chave;valor_emitido;valor_pago", "7;1234567890;10050;99900"),
+                Files.readAllLines(diretorio.resolve(ConciliacaoRetornoService.RELATORIO_DIVERGENTES)));
+    }
+
+    @Test
+    @DisplayName("Deve conciliar retorno CNAB 400 de guia com número menor que 10 dígitos")
+    void deveConciliarGuiaComNumeroCurto() throws IOException {
+        // No código de barras o número vai completado à direita (1230000000), no nosso número à esquerda
+        String codigo = new CodigoBarrasService().gerarCodigoBarras(guia("123", "11122233344", "150.00"));
+        assertEquals("1230000000", codigo.substring(19, 29));
+
+        byte[] emitidos = (CODIGO_1 + codigo).getBytes(StandardCharsets.US_ASCII);
+        ConciliacaoRetornoService conciliacao = new ConciliacaoRetornoService(emitidos, 2);
+        Path retorno = gravarRetorno(400,
+                detalhe400("0000000123", 15000),
+                detalhe400("1234567890", 10050));
+
+        ResumoConciliacao resumo = conciliacao.conciliar(retorno, LayoutRetornoCnab.CNAB_400, diretorio);
+
+        assertEquals(2, resumo.getConciliados(), "Guia de número curto deve ser encontrada");
+        assertEquals(0, resumo.getNaoEncontrados());
+    }
+
+    private static GuiaPagamento guia(String numeroGuia, String cpf, String valor) {
+        return new GuiaPagamento(
+                "JOAO SILVA",
+                cpf,
+                "Rua Teste, 123 - Centro - Campo Grande/MS",
+                cpf,
+                new BigDecimal(valor),
+                "Teste",
+                LocalDate.of(2024, 1, 15),
+                numeroGuia
+        );
+    }
+
+    private Path gravarRetorno(int tamanho, String... registros) throws IOException {
+        Path retorno = diretorio.resolve("retorno-" + tamanho + ".ret");
+        Files.write(retorno, String.join("\r\n", registros).concat("\r\n").getBytes(StandardCharsets.US_ASCII));
+        return retorno;
+    }
+
+    private static String segmentoT(int sequencial, String numeroGuia, long valorNominal) {
+        char[] registro = segmento(sequencial, 'T');
+        // Nosso número: convênio de 7 posições e sequencial do título
+        escrever(registro, 37, "1234567" + numeroGuia);
+        escrever(registro, 81, String.format("%015d", valorNominal));
+        return new String(registro);
+    }
+
+    private static String segmentoU(int sequencial, long valorPago) {
+        char[] registro = segmento(sequencial, 'U');
+        escrever(registro, 77, String.format("%015d", valorPago));
+        return new String(registro);
+    }
+
+    private static char[] segmento(int sequencial, char segmento) {
+        char[] registro = registro(240, 7, "3").toCharArray();
+        escrever(registro, 8, String.format("%05d", sequencial));
+        registro[13] = segmento;
+        return registro;
+    }
+
+    private static String detalhe400(String numeroGuia, long valorPago) {
+        char[] registro = registro(400, 0, "7").toCharArray();
+        escrever(registro, 63, "1234567" + numeroGuia);
+        escrever(registro, 253, String.format("%013d", valorPago));
+        return new String(registro);
+    }
+
+    private static String registro(int tamanho, int posicaoTipo, String tipo) {
+        char[] registro = " ".repeat(tamanho).toCharArray();
+        escrever(registro, posicaoTipo, tipo);
+        return new String(registro);
+    }
+
+    private static void escrever(char[] registro, int posicao, String valor) {
+        valor.getChars(0, valor.length(), registro, posicao);
+    }
+}
@@ -0,0 +1,111 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Escritor de PDF em Lote - Arquivos Sequenciais")
+class EscritorPdfLoteTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve trocar de arquivo ao atingir o limite de páginas, com compressão completa")
+    void deveTrocarDeArquivoNoLimiteDePaginas() throws Exception {
+        PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024));
+        try (EscritorPdfLote escritor = new EscritorPdfLote(pdfService, diretorio, "lote", 2, Long.MAX_VALUE)) {
+            for (int i = 1; i <= 5; i++) {
+                escritor.adicionar(guiaComCodigos(i));
+            }
+            assertEquals(5, escritor.getGuiasEscritas());
+        }
+
+        List<Path> arquivos = List.of(diretorio.resolve("lote-0001.pdf"), diretorio.resolve("lote-0002.pdf"),
+                diretorio.resolve("lote-0003.pdf"));
+        int[] paginasEsperadas = {2, 2, 1};
+        int guia = 1;
+        for (int i = 0; i < arquivos.size(); i++) {
+            byte[] conteudo = Files.readAllBytes(arquivos.get(i));
+            String texto = new String(conteudo, StandardCharsets.ISO_8859_1);
+            assertTrue(texto.startsWith("%PDF-1.5"));
+            assertTrue(texto.contains("/XRef"), "Tabela de referências deve estar em stream");
+            assertTrue(texto.contains("/ObjStm"), "Objetos devem estar em object streams");
+
+            PdfReader leitor = new PdfReader(conteudo);
+            assertEquals(paginasEsperadas[i], leitor.getNumberOfPages());
+            for (int pagina = 1; pagina <= leitor.getNumberOfPages(); pagina++) {
+                String numero = String.format("%010d", guia++);
+                assertTrue(PdfTextExtractor.getTextFromPage(leitor, pagina).contains(numero), "Guia " + numero);
+            }
+            leitor.close();
+        }
+        assertFalse(Files.exists(diretorio.resolve("lote-0004.pdf")));
+    }
+
+    @Test
+    @DisplayName("Deve trocar de arquivo ao atingir o limite de bytes")
+    void deveTrocarDeArquivoNoLimiteDeBytes() throws Exception {
+        PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024));
+        EscritorPdfLote escritor = new EscritorPdfLote(pdfService, diretorio, "bytes", 1000, 1);
+        try (escritor) {
+            for (int i = 1; i <= 3; i++) {
+                escritor.adicionar(guiaComCodigos(i));
+            }
+        }
+
+        assertEquals(3, escritor.getArquivos().size(), "Cada guia já ultrapassa o limite de 1 byte");
+        for (Path arquivo : escritor.getArquivos()) {
+            PdfReader leitor = new PdfReader(Files.readAllBytes(arquivo));
+            assertEquals(1, leitor.getNumberOfPages());
+            leitor.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve descartar a página de uma guia que falhou no meio da escrita")
+    void deveDescartarPaginaDaGuiaQueFalhou() throws Exception {
+        PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024)) {
+            @Override
+            List<PdfTemplate> escreverGuia(PdfWriter writer, ModeloPaginaGuia modelo, GuiaPagamento guia)
+                    throws DocumentException, WriterException {
+                List<PdfTemplate> templates = super.escreverGuia(writer, modelo, guia);
+                if (guia.getNumeroGuia().equals("0000000002")) {
+                    // Falha depois de a página já ter recebido o conteúdo da guia
+                    throw new DocumentException("Falha ao escrever a guia");
+                }
+                return templates;
+            }
+        };
+
+        try (EscritorPdfLote escritor = new EscritorPdfLote(pdfService, diretorio, "falha", 10, Long.MAX_VALUE)) {
+            escritor.adicionar(guiaComCodigos(1));
+            assertThrows(DocumentException.class, () -> escritor.adicionar(guiaComCodigos(2)));
+            escritor.adicionar(guiaComCodigos(3));
+            assertEquals(2, escritor.getGuiasEscritas());
+        }
+
+        PdfReader leitor = new PdfReader(Files.readAllBytes(diretorio.resolve("falha-0001.pdf")));
+        assertEquals(2, leitor.getNumberOfPages());
+        String segundaPagina = PdfTextExtractor.getTextFromPage(leitor, 2);
+        leitor.close();
+        assertTrue(segundaPagina.contains("0000000003"));
+        assertFalse(segundaPagina.contains("0000000002"), "A guia que falhou não deve ficar sob a seguinte");
+    }
+}
@@ -0,0 +1,154 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Escritor de ZIP em Lote - Entradas STORED e Manifesto")
+class EscritorZipLoteTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve gravar os PDFs sem compressão e o manifesto com o número de cada guia")
+    void deveGravarPdfsEManifesto() throws Exception {
+        PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024));
+        try (EscritorZipLote escritor = new EscritorZipLote(diretorio, "lote")) {
+            for (int i = 1; i <= 3; i++) {
+                escritor.adicionar(guiaComCodigos(i), pdfService);
+            }
+            assertEquals(3, escritor.getGuiasEscritas());
+        }
+
+        try (ZipFile zip = new ZipFile(diretorio.resolve("lote-0001.zip").toFile())) {
+            List<String> linhas = lerManifesto(zip);
+            assertEquals("numeroGuia;sequencia;entrada;bytes;crc32", linhas.get(0));
+            assertEquals(4, linhas.size());
+
+            for (int i = 1; i <= 3; i++) {
+                String[] campos = linhas.get(i).split(";");
+                String numero = String.format("%010d", i);
+                assertEquals(numero, campos[0]);
+                assertEquals(String.valueOf(i), campos[1]);
+                assertEquals(String.format("guia-%s-%06d.pdf", numero, i), campos[2]);
+
+                ZipEntry entrada = zip.getEntry(campos[2]);
+                assertEquals(ZipEntry.STORED, entrada.getMethod());
+                assertEquals(Long.parseLong(campos[3]), entrada.getSize());
+                assertEquals(entrada.getSize(), entrada.getCompressedSize());
+                assertEquals(Long.parseLong(campos[4], 16), entrada.getCrc());
+
+                byte[] pdf;
+                try (InputStream conteudo = zip.getInputStream(entrada)) {
+                    pdf = conteudo.readAllBytes();
+                }
+                PdfReader leitor = new PdfReader(pdf);
+                assertTrue(PdfTextExtractor.getTextFromPage(leitor, 1).contains(numero));
+                leitor.close();
+            }
+        }
+        assertArquivosSomenteZip();
+    }
+
+    @Test
+    @DisplayName("Deve gravar a guia reemitida em uma entrada própria, identificada pela sequência no manifesto")
+    void deveGravarGuiaReemitidaEmEntradaPropria() throws Exception {
+        PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024));
+        try (EscritorZipLote escritor = new EscritorZipLote(diretorio, "reemissao")) {
+            escritor.adicionar(guiaComCodigos(1), pdfService);
+            escritor.adicionar(guiaComCodigos(2), pdfService);
+            escritor.adicionar(guiaComCodigos(1), pdfService);
+            assertEquals(3, escritor.getGuiasEscritas());
+        }
+
+        try (ZipFile zip = new ZipFile(diretorio.resolve("reemissao-0001.zip").toFile())) {
+            List<String> linhas = lerManifesto(zip);
+            assertEquals(4, linhas.size());
+            assertEquals("0000000001;1;guia-0000000001-000001.pdf", prefixoLinha(linhas.get(1)));
+            assertEquals("0000000002;2;guia-0000000002-000002.pdf", prefixoLinha(linhas.get(2)));
+            assertEquals("0000000001;3;guia-0000000001-000003.pdf", prefixoLinha(linhas.get(3)));
+            for (String linha : linhas.subList(1, linhas.size())) {
+                assertNotNull(zip.getEntry(linha.split(";")[2]));
+            }
+        }
+        assertArquivosSomenteZip();
+    }
+
+    @Test
+    @DisplayName("Deve dividir o lote ao atingir o limite de bytes, com um manifesto por arquivo")
+    void deveDividirNoLimiteDeBytes() throws Exception {
+        long tamanhoPdf;
+        try (EscritorZipLote medidor = new EscritorZipLote(diretorio, "medida")) {
+            medidor.adicionar(guiaComCodigos(1), new PdfService(new CacheSimbolos(1024 * 1024)));
+        }
+        try (ZipFile zip = new ZipFile(diretorio.resolve("medida-0001.zip").toFile())) {
+            tamanhoPdf = zip.getEntry("guia-0000000001-000001.pdf").getSize();
+        }
+
+        EscritorZipLote escritor = new EscritorZipLote(diretorio, "dividido", tamanhoPdf * 5 / 2);
+        try (escritor; RenderizadorLoteGuias renderizador = new RenderizadorLoteGuias(escritor,
+                2, 2, 4, () -> new PdfService(new CacheSimbolos(1024 * 1024)))) {
+            for (int i = 1; i <= 7; i++) {
+                renderizador.enviar(guiaComCodigos(i));
+            }
+            renderizador.concluir();
+        }
+
+        // Duas entradas por arquivo: a terceira ultrapassaria 2,5 PDFs
+        assertEquals(4, escritor.getArquivos().size());
+        List<String> numeros = new ArrayList<>();
+        for (Path arquivo : escritor.getArquivos()) {
+            try (ZipFile zip = new ZipFile(arquivo.toFile())) {
+                List<String> linhas = lerManifesto(zip);
+                assertTrue(linhas.size() - 1 <= 2);
+                for (String linha : linhas.subList(1, linhas.size())) {
+                    String[] campos = linha.split(";");
+                    assertNotNull(zip.getEntry(campos[2]), "Entrada do manifesto deve estar no mesmo arquivo");
+                    numeros.add(campos[0]);
+                }
+            }
+        }
+        Collections.sort(numeros);
+        List<String> esperados = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            esperados.add(String.format("%010d", i));
+        }
+        assertEquals(esperados, numeros);
+    }
+
+    private static String prefixoLinha(String linha) {
+        String[] campos = linha.split(";");
+        return campos[0] + ';' + campos[1] + ';' + campos[2];
+    }
+
+    // Os manifestos temporários são apagados ao fechar cada arquivo
+    private void assertArquivosSomenteZip() throws Exception {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            assertTrue(arquivos.allMatch(arquivo -> arquivo.getFileName().toString().endsWith(".zip")));
+        }
+    }
+
+    private static List<String> lerManifesto(ZipFile zip) throws Exception {
+        try (InputStream conteudo = zip.getInputStream(zip.getEntry(EscritorZipLote.NOME_MANIFESTO))) {
+            return List.of(new String(conteudo.readAllBytes(), StandardCharsets.UTF_8).split("\n"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.service.GeracaoIncrementalGuia.Etapa;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guia;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes da Geração Incremental da Guia")
+class GeracaoIncrementalGuiaTest {
+
+    private final GeracaoIncrementalGuia geracao = new GeracaoIncrementalGuia();
+
+    @Test
+    @DisplayName("Deve refazer apenas as etapas que dependem do campo alterado")
+    void deveRefazerApenasEtapasAfetadas() {
+        GuiaPagamento guia = guia();
+        assertEquals(EnumSet.allOf(Etapa.class), geracao.atualizar(guia));
+        assertEquals(EnumSet.noneOf(Etapa.class), geracao.atualizar(guia()), "Mesmos campos não refazem nada");
+
+        GuiaPagamento valor = guia();
+        valor.setValor(new BigDecimal("99.90"));
+        assertEquals(EnumSet.allOf(Etapa.class), geracao.atualizar(valor));
+
+        GuiaPagamento nome = guia();
+        nome.setValor(new BigDecimal("99.9"));
+        nome.setNomeProprietario("MARIA SOUZA");
+        assertEquals(EnumSet.of(Etapa.PAYLOAD_PIX), geracao.atualizar(nome), "Mesmo valor em outra escala");
+
+        GuiaPagamento vencimento = guia();
+        vencimento.setValor(new BigDecimal("99.90"));
+        vencimento.setNomeProprietario("MARIA SOUZA");
+        vencimento.setVencimento(LocalDate.of(2024, 2, 15));
+        assertEquals(EnumSet.of(Etapa.CODIGO_BARRAS), geracao.atualizar(vencimento));
+    }
+
+    @Test
+    @DisplayName("Deve refazer o payload PIX pelo endereço apenas quando a cidade muda")
+    void deveRefazerPayloadApenasQuandoCidadeMuda() {
+        geracao.atualizar(guia());
+
+        GuiaPagamento mesmaCidade = guia();
+        mesmaCidade.setEndereco("Av. Afonso Pena, 5000 - Centro - Campo Grande/MS");
+        assertEquals(EnumSet.noneOf(Etapa.class), geracao.atualizar(mesmaCidade));
+
+        GuiaPagamento outraCidade = guia();
+        outraCidade.setEndereco("Rua Teste, 123 - Centro - Dourados/MS");
+        assertEquals(EnumSet.of(Etapa.PAYLOAD_PIX), geracao.atualizar(outraCidade));
+
+        GuiaPagamento descricao = guia();
+        descricao.setEndereco("Rua Teste, 123 - Centro - Dourados/MS");
+        descricao.setDescricao("Outra descrição");
+        assertEquals(EnumSet.noneOf(Etapa.class), geracao.atualizar(descricao), "Descrição só aparece no texto");
+    }
+
+    @Test
+    @DisplayName("Deve produzir o mesmo código de barras e payload da geração completa")
+    void deveProduzirMesmoResultadoDaGeracaoCompleta() {
+        CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
+        PixService pixService = new PixService();
+        String[] nomes = {"JOAO SILVA", "JOÃO SILVA", "MARIA SOUZA"};
+        String[] enderecos = {"Rua Teste, 123 - Centro - Campo Grande/MS", "Rua Teste, 124 - Centro - Campo Grande/MS",
+                "Rua Teste, 123 - Centro - Dourados/MS"};
+
+        for (String nome : nomes) {
+            for (String endereco : enderecos) {
+                GuiaPagamento guia = guia();
+                guia.setNomeProprietario(nome);
+                guia.setEndereco(endereco);
+                geracao.atualizar(guia);
+
+                assertEquals(codigoBarrasService.gerarCodigoBarras(guia), guia.getCodigoBarras());
+                assertEquals(pixService.gerarQRCodePix(guia), guia.getQrCodePix(), nome + " / " + endereco);
+            }
+        }
+    }
+}
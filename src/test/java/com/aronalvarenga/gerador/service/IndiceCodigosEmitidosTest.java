@@ -0,0 +1,126 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Índice de Códigos Emitidos - Detecção de Colisões")
+class IndiceCodigosEmitidosTest {
+
+    // Golden file caso-001 e caso-003 (codigo-barras-casos-conhecidos.json)
+    private static final String CODIGO_1 = "00191959600000100501234567890000011234567890";
+    private static final String CODIGO_2 = "00193973400000000011111111111000011112223334";
+
+    @TempDir
+    Path diretorio;
+
+    // Identidades de duas guias diferentes
+    private static final long GUIA_1 = IndiceCodigosEmitidos.identidade("1234567890", "12345678901");
+    private static final long GUIA_2 = IndiceCodigosEmitidos.identidade("9999999999", "12345678901");
+
+    @Test
+    @DisplayName("Deve detectar colisão de guias que diferem após o 10º dígito")
+    void deveDetectarColisaoDeGuiasTruncadas() throws IOException {
+        GuiaPagamento guiaA = guiaComCodigos("12345678901");
+        GuiaPagamento guiaB = guiaComCodigos("12345678902");
+        assertEquals(guiaA.getCodigoBarras(), guiaB.getCodigoBarras());
+
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(diretorio.resolve("emitidos.idx"), 100)) {
+            assertEquals(IndiceCodigosEmitidos.Registro.NOVO, indice.registrar(guiaA),
+                    "Primeira emissão deve ser aceita");
+            assertEquals(IndiceCodigosEmitidos.Registro.COLISAO, indice.registrar(guiaB),
+                    "Guia truncada no mesmo número deve colidir");
+            assertEquals(1, indice.getQuantidade());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve distinguir a reemissão da mesma guia de uma colisão")
+    void deveDistinguirReemissaoDeColisao() throws IOException {
+        GuiaPagamento guia = guiaComCodigos("12345678901");
+        // Mesmos dígitos com outra formatação: continua sendo a mesma guia
+        GuiaPagamento mesmaGuiaFormatada = guiaComCodigos("1234567890-1");
+        mesmaGuiaFormatada.setCpf("123.456.789-01");
+        mesmaGuiaFormatada.setCodigoBarras(guia.getCodigoBarras());
+
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(diretorio.resolve("emitidos.idx"), 100)) {
+            assertEquals(IndiceCodigosEmitidos.Registro.NOVO, indice.registrar(guia));
+            assertEquals(IndiceCodigosEmitidos.Registro.REEMISSAO, indice.registrar(guia));
+            assertEquals(IndiceCodigosEmitidos.Registro.REEMISSAO, indice.registrar(mesmaGuiaFormatada));
+            assertEquals(1, indice.getQuantidade());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter os códigos registrados após reabrir o arquivo")
+    void deveManterCodigosAposReabrir() throws IOException {
+        Path arquivo = diretorio.resolve("emitidos.idx");
+
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(arquivo, 100)) {
+            assertEquals(IndiceCodigosEmitidos.Registro.NOVO, indice.registrar(CODIGO_1, GUIA_1));
+        }
+
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(arquivo, 0)) {
+            assertEquals(1, indice.getQuantidade());
+            assertTrue(indice.contem(CODIGO_1), "Código registrado antes do reinício deve ser encontrado");
+            assertFalse(indice.contem(CODIGO_2));
+            assertEquals(IndiceCodigosEmitidos.Registro.REEMISSAO, indice.registrar(CODIGO_1, GUIA_1),
+                    "A guia registrada antes do reinício deve ser reconhecida");
+            assertEquals(IndiceCodigosEmitidos.Registro.COLISAO, indice.registrar(CODIGO_1, GUIA_2));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve registrar lote e apontar colisões")
+    void deveRegistrarLoteEApontarColisoes() throws IOException {
+        int quantidade = 10_000;
+        long[] centavos = new long[quantidade];
+        int[] dias = new int[quantidade];
+        long[] guias = new long[quantidade];
+        long[] cpfs = new long[quantidade];
+        long[] identidades = new long[quantidade];
+        int diaBase = (int) LocalDate.of(2025, 1, 1).toEpochDay();
+        for (int i = 0; i < quantidade; i++) {
+            centavos[i] = 15050;
+            dias[i] = diaBase;
+            // A cada 100 guias, uma tem número de 11 dígitos que trunca no número da anterior
+            guias[i] = 2025000000L + (i % 100 == 99 ? i - 1 : i);
+            cpfs[i] = 1234567890L;
+            identidades[i] = IndiceCodigosEmitidos.identidade(
+                    i % 100 == 99 ? guias[i] + "1" : String.valueOf(guias[i]), "12345678901");
+        }
+        byte[] codigos = new byte[quantidade * 44];
+        new CodigoBarrasLoteService().gerarCodigosBarras(centavos, dias, guias, cpfs, codigos);
+
+        IndiceCodigosEmitidos.Registro[] registros = new IndiceCodigosEmitidos.Registro[quantidade];
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(diretorio.resolve("lote.idx"), quantidade)) {
+            assertEquals(100, indice.registrarLote(codigos, identidades, quantidade, registros));
+            assertEquals(IndiceCodigosEmitidos.Registro.COLISAO, registros[99]);
+            assertEquals(IndiceCodigosEmitidos.Registro.NOVO, registros[98]);
+            assertEquals(quantidade - 100, indice.getQuantidade());
+
+            // Reenviar o mesmo lote é reemissão das guias aceitas
+            assertEquals(100, indice.registrarLote(codigos, identidades, quantidade, registros));
+            assertEquals(IndiceCodigosEmitidos.Registro.REEMISSAO, registros[98]);
+            assertEquals(quantidade - 100, indice.getQuantidade());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar código que não segue o layout de emissão")
+    void deveRejeitarCodigoForaDoLayout() throws IOException {
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(diretorio.resolve("emitidos.idx"), 100)) {
+            String dvInvalido = CODIGO_1.substring(0, 4) + "2" + CODIGO_1.substring(5);
+            assertThrows(IllegalArgumentException.class, () -> indice.registrar(dvInvalido, GUIA_1));
+            assertThrows(IllegalArgumentException.class, () -> indice.registrar("0019", GUIA_1));
+        }
+    }
+}
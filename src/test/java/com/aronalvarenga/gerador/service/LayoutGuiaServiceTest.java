@@ -0,0 +1,69 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.LayoutGuia;
+import com.aronalvarenga.gerador.model.TrechoTexto;
+import com.aronalvarenga.gerador.util.BufferSaida;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do LayoutGuiaService - Layout Compartilhado")
+class LayoutGuiaServiceTest {
+
+    @Test
+    @DisplayName("Deve compartilhar o fundo e posicionar cada valor logo após o rótulo")
+    void devePosicionarValoresAposRotulos() throws Exception {
+        LayoutGuiaService layoutGuiaService = new LayoutGuiaService(new CacheSimbolos(1024 * 1024));
+        String endereco = "Avenida Afonso Pena, 1234, Bloco B, Apartamento 1502 - Jardim dos Estados - Campo Grande/MS";
+        LayoutGuia primeira = layoutGuiaService.calcular(guiaComCodigos());
+        LayoutGuia segunda = layoutGuiaService.calcular(guiaComCodigos("1234567891", endereco));
+
+        assertSame(primeira.getFundo(), segunda.getFundo(), "Os textos fixos devem ser medidos uma única vez");
+
+        TrechoTexto rotuloNome = trecho(primeira.getFundo(), "Nome: ");
+        TrechoTexto nome = trecho(primeira.getTextos(), "JOAO SILVA");
+        assertEquals(rotuloNome.getX() + rotuloNome.getLargura(), nome.getX(), 0.01f);
+        assertEquals(rotuloNome.getY(), nome.getY());
+
+        TrechoTexto enderecoLongo = trecho(segunda.getTextos(), endereco);
+        assertTrue(enderecoLongo.getTamanho() < 12, "Texto longo deve ter a fonte reduzida");
+        assertTrue(enderecoLongo.getX() + enderecoLongo.getLargura() <= LayoutGuiaService.LARGURA_PAGINA - 30 + 0.01f);
+
+        LayoutGuia.QRCode qrCode = primeira.getQRCode();
+        assertEquals(LayoutGuiaService.LARGURA_PAGINA / 2, qrCode.getX() + qrCode.getTamanho() / 2, 0.01f);
+    }
+
+    @Test
+    @DisplayName("Deve gerar o PDF de um layout pronto sem consultar os símbolos novamente")
+    void deveGerarPdfDoLayoutSemConsultarSimbolos() throws Exception {
+        CacheSimbolos cache = new CacheSimbolos(1024 * 1024);
+        GuiaPagamento guia = guiaComCodigos();
+        LayoutGuia layout = new LayoutGuiaService(cache).calcular(guia);
+        long consultas = cache.getAcertos() + cache.getFalhas();
+
+        BufferSaida buffer = new BufferSaida();
+        new PdfService(cache).gerarPdf(layout, buffer);
+
+        assertEquals(consultas, cache.getAcertos() + cache.getFalhas(), "O PDF deve usar os símbolos do layout");
+        PdfReader leitor = new PdfReader(buffer.toByteArray());
+        String texto = PdfTextExtractor.getTextFromPage(leitor, 1);
+        leitor.close();
+        assertTrue(texto.contains("JOAO SILVA"));
+        assertTrue(texto.contains(guia.getCodigoBarras()));
+    }
+
+    private static TrechoTexto trecho(Iterable<TrechoTexto> trechos, String texto) {
+        for (TrechoTexto trecho : trechos) {
+            if (trecho.getTexto().equals(texto)) {
+                return trecho;
+            }
+        }
+        return fail("Trecho não encontrado: " + texto);
+    }
+}
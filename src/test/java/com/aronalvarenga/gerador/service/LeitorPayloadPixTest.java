@@ -0,0 +1,132 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.ValidacaoUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Leitor de Payload PIX - Validação BR Code (EMV TLV)")
+class LeitorPayloadPixTest {
+
+    // Golden file caso-pix-001 e caso-pix-007 (pix-casos-conhecidos.json)
+    private static final String PAYLOAD_CPF = "00020101021226330014br.gov.bcb.pix0111123456789015204000053039865406100.505802BR5910JOAO SILVA6012CAMPO GRANDE6214051012345678906304C3F5";
+    private static final String PAYLOAD_SEM_REFERENCIA = "00020101021226270014br.gov.bcb.pix0105chave52040000530398654101234567.505802BR5912PROPRIETARIO6012CAMPO GRANDE63043E5B";
+
+    private LeitorPayloadPix leitor;
+
+    @BeforeEach
+    void setUp() {
+        leitor = new LeitorPayloadPix();
+    }
+
+    @Test
+    @DisplayName("Deve ler campos e subcampos de payload válido em texto, byte[] e ByteBuffer direto")
+    void deveLerCamposDePayloadValido() {
+        byte[] bytes = ("XX" + PAYLOAD_CPF).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer direto = ByteBuffer.allocateDirect(bytes.length).put(bytes).position(2);
+
+        assertEquals(LeitorPayloadPix.VALIDO, leitor.analisar(PAYLOAD_CPF));
+        assertEquals(LeitorPayloadPix.VALIDO, leitor.analisar(bytes, 2, bytes.length - 2));
+        assertEquals(LeitorPayloadPix.VALIDO, leitor.analisar(direto));
+        assertEquals(2, direto.position(), "A posição do buffer não deve ser alterada");
+
+        assertEquals(11, leitor.getQuantidadeCampos());
+        assertEquals(0, leitor.getIdCampo(0));
+        assertEquals(63, leitor.getIdCampo(10));
+        assertTrue(leitor.valorIgual(54, "100.50"));
+        assertEquals(PAYLOAD_CPF.indexOf("JOAO"), leitor.getInicioValor(59));
+        assertEquals(10, leitor.getTamanhoValor(59));
+
+        StringBuilder valor = new StringBuilder();
+        assertTrue(leitor.anexarSubcampo(LeitorPayloadPix.CAMPO_CONTA_PIX, 1, valor));
+        assertEquals("12345678901", valor.toString());
+        valor.setLength(0);
+        assertTrue(leitor.anexarSubcampo(LeitorPayloadPix.CAMPO_DADOS_ADICIONAIS, 5, valor));
+        assertEquals("1234567890", valor.toString());
+
+        // A mesma instância é reaproveitada: campos da análise anterior não podem vazar
+        assertEquals(LeitorPayloadPix.VALIDO, leitor.analisar(PAYLOAD_SEM_REFERENCIA));
+        assertFalse(leitor.contemCampo(LeitorPayloadPix.CAMPO_DADOS_ADICIONAIS));
+        assertFalse(leitor.contemSubcampo(LeitorPayloadPix.CAMPO_DADOS_ADICIONAIS, 5));
+        assertEquals(-1, leitor.getInicioValor(62));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar payloads gerados pelo PixService")
+    void deveAceitarPayloadsGeradosPeloPixService() {
+        TemplatePayloadPix template = new PixService().compilarTemplate(
+                "maria.santos@email.com", "MARIA SANTOS", "Av. Principal, 456 - Jardim - São Paulo/SP");
+        StringBuilder payload = new StringBuilder();
+        for (long centavos = 0; centavos < 100_000; centavos += 37) {
+            payload.setLength(0);
+            template.gerar(centavos, centavos % 2 == 0 ? "" : Long.toString(centavos), payload);
+            assertEquals(LeitorPayloadPix.VALIDO, leitor.analisar(payload), payload::toString);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve apontar erros de estrutura, campo duplicado e CRC")
+    void deveApontarErrosDeEstruturaECRC() {
+        assertEquals(LeitorPayloadPix.ESTRUTURA_INVALIDA, leitor.analisar(""));
+        assertEquals(LeitorPayloadPix.ESTRUTURA_INVALIDA, leitor.analisar("000201260"));
+        assertEquals(6, leitor.getPosicaoErro(), "Cabeçalho de campo incompleto");
+
+        assertEquals(LeitorPayloadPix.ESTRUTURA_INVALIDA, leitor.analisar("0002010199"));
+        assertEquals(6, leitor.getPosicaoErro(), "Tamanho além do fim do payload");
+        assertEquals(LeitorPayloadPix.ESTRUTURA_INVALIDA, leitor.analisar("00A201"));
+
+        assertEquals(LeitorPayloadPix.CAMPO_DUPLICADO, comCrc("000201000201"));
+        assertEquals(0, leitor.getCampoErro());
+
+        String crcAlterado = PAYLOAD_CPF.substring(0, PAYLOAD_CPF.length() - 4) + "C3F6";
+        assertEquals(LeitorPayloadPix.CRC_INVALIDO, leitor.analisar(crcAlterado));
+        String conteudoAlterado = PAYLOAD_CPF.replace("100.50", "900.50");
+        assertEquals(LeitorPayloadPix.CRC_INVALIDO, leitor.analisar(conteudoAlterado));
+
+        String semCrc = PAYLOAD_CPF.substring(0, PAYLOAD_CPF.length() - 8);
+        assertEquals(LeitorPayloadPix.CAMPO_OBRIGATORIO_AUSENTE, leitor.analisar(semCrc));
+        assertEquals(LeitorPayloadPix.CAMPO_CRC, leitor.getCampoErro());
+        assertEquals(LeitorPayloadPix.ESTRUTURA_INVALIDA, leitor.analisar(PAYLOAD_CPF + "6500"),
+                "Campo 63 deve ser o último");
+    }
+
+    @Test
+    @DisplayName("Deve validar indicador de formato, campos obrigatórios e templates 26 e 62")
+    void deveValidarCamposObrigatoriosETemplates() {
+        String conta = "26330014br.gov.bcb.pix011112345678901";
+        String fixos = "52040000530398654041.005802BR5910JOAO SILVA6012CAMPO GRANDE";
+
+        assertEquals(LeitorPayloadPix.VALIDO, comCrc("000201" + conta + fixos));
+        assertEquals(LeitorPayloadPix.VALIDO, comCrc("000201" + conta.replace("br.gov.bcb.pix", "BR.GOV.BCB.PIX") + fixos),
+                "GUI do PIX não diferencia maiúsculas");
+
+        assertEquals(LeitorPayloadPix.INDICADOR_FORMATO_INVALIDO, comCrc("000202" + conta + fixos));
+        assertEquals(LeitorPayloadPix.INDICADOR_FORMATO_INVALIDO, comCrc(conta + "000201" + fixos));
+
+        assertEquals(LeitorPayloadPix.CAMPO_OBRIGATORIO_AUSENTE, comCrc("000201" + conta + fixos.replace("5802BR", "")));
+        assertEquals(58, leitor.getCampoErro());
+
+        assertEquals(LeitorPayloadPix.CONTA_PIX_INVALIDA, comCrc("000201" + conta.replace("bcb", "xyz") + fixos));
+        assertEquals(LeitorPayloadPix.CONTA_PIX_INVALIDA, comCrc("000201" + "26180014br.gov.bcb.pix" + fixos),
+                "Conta sem chave nem URL");
+        assertEquals(LeitorPayloadPix.CONTA_PIX_INVALIDA, comCrc("000201" + "26330014br.gov.bcb.pix011912345678901" + fixos),
+                "Subcampo com tamanho além do template");
+        assertEquals(LeitorPayloadPix.VALIDO,
+                comCrc("000201" + "26390014br.gov.bcb.pix2517qr.banco.com/abc1" + fixos), "Payload dinâmico com URL");
+
+        assertEquals(LeitorPayloadPix.VALIDO, comCrc("000201" + conta + fixos + "62070503***"));
+        assertEquals(LeitorPayloadPix.DADOS_ADICIONAIS_INVALIDOS,
+                comCrc("000201" + conta + fixos + "62300526ABCDEFGHIJKLMNOPQRSTUVWXYZ"), "Referência acima de 25 caracteres");
+        assertEquals(LeitorPayloadPix.DADOS_ADICIONAIS_INVALIDOS, comCrc("000201" + conta + fixos + "6203050"));
+    }
+
+    private int comCrc(String semCrc) {
+        String payload = semCrc + "6304";
+        return leitor.analisar(payload + ValidacaoUtil.calcularCRC16(payload));
+    }
+}
@@ -0,0 +1,90 @@
+package com.aronalvarenga.gerador.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes de Linha Digitável - DVs Módulo 10")
+class LinhaDigitavelServiceTest {
+
+    // Golden file caso-001 (codigo-barras-casos-conhecidos.json)
+    private static final String CODIGO_BARRAS = "00191959600000100501234567890000011234567890";
+    private static final String LINHA_DIGITAVEL = "00191234546789000001012345678903195960000010050";
+    private static final String LINHA_FORMATADA = "00191.23454 67890.000010 12345.678903 1 95960000010050";
+
+    private LinhaDigitavelService linhaDigitavelService;
+
+    @BeforeEach
+    void setUp() {
+        linhaDigitavelService = new LinhaDigitavelService();
+    }
+
+    @Test
+    @DisplayName("Deve gerar linha digitável com os DVs módulo 10 dos campos")
+    void deveGerarLinhaDigitavel() {
+        assertEquals(LINHA_DIGITAVEL, linhaDigitavelService.gerarLinhaDigitavel(CODIGO_BARRAS));
+        assertEquals(LINHA_FORMATADA, linhaDigitavelService.formatarLinhaDigitavel(CODIGO_BARRAS));
+    }
+
+    @Test
+    @DisplayName("Deve converter linha digitável, com ou sem pontuação, no código de barras")
+    void deveConverterLinhaDigitavelParaCodigoBarras() {
+        assertEquals(CODIGO_BARRAS, linhaDigitavelService.converterParaCodigoBarras(LINHA_DIGITAVEL));
+        assertEquals(CODIGO_BARRAS, linhaDigitavelService.converterParaCodigoBarras(LINHA_FORMATADA));
+    }
+
+    @Test
+    @DisplayName("Deve detectar erro de digitação nos campos 1 a 4")
+    void deveDetectarErroDeDigitacao() {
+        // Campos 1 a 3 são protegidos pelo módulo 10 e o campo 4 é o próprio DV geral.
+        // No campo 5 a detecção depende do DV geral, que pode coincidir (DV 0, 10 e 11 viram 1)
+        for (int i = 0; i <= 32; i++) {
+            char[] linha = LINHA_DIGITAVEL.toCharArray();
+            linha[i] = (char) ('0' + (linha[i] - '0' + 1) % 10);
+            String linhaInvalida = new String(linha);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> linhaDigitavelService.converterParaCodigoBarras(linhaInvalida),
+                    "Dígito alterado na posição " + i + " deve ser detectado");
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                () -> linhaDigitavelService.converterParaCodigoBarras(LINHA_DIGITAVEL.substring(1)),
+                "Linha com 46 dígitos deve ser rejeitada");
+        assertThrows(IllegalArgumentException.class,
+                () -> linhaDigitavelService.converterParaCodigoBarras(LINHA_FORMATADA.replace(' ', '-')),
+                "Separadores diferentes de ponto e espaço devem ser rejeitados");
+    }
+
+    @Test
+    @DisplayName("Deve converter em lote nos dois sentidos")
+    void deveConverterEmLote() {
+        String[] codigos = {
+                CODIGO_BARRAS,
+                "00198994700999999999999999999000019876543210",
+                "00193973400000000011111111111000011112223334"
+        };
+        int quantidade = codigos.length;
+        byte[] codigosCompactados = String.join("", codigos).getBytes(StandardCharsets.US_ASCII);
+
+        byte[] linhas = new byte[quantidade * LinhaDigitavelService.TAMANHO_LINHA_DIGITAVEL];
+        linhaDigitavelService.codificarLote(codigosCompactados, quantidade, linhas);
+
+        assertEquals(LINHA_DIGITAVEL, new String(linhas, 0, 47, StandardCharsets.US_ASCII));
+        assertEquals("00191111111111100001111122233346397340000000001", new String(linhas, 94, 47, StandardCharsets.US_ASCII));
+
+        linhas[47 + 5]++;
+        byte[] decodificados = new byte[codigosCompactados.length];
+        boolean[] validos = new boolean[quantidade];
+        int invalidas = linhaDigitavelService.decodificarLote(linhas, quantidade, decodificados, validos);
+
+        assertEquals(1, invalidas, "Apenas a linha alterada deve ser inválida");
+        assertArrayEquals(new boolean[]{true, false, true}, validos);
+        assertEquals(codigos[0], new String(decodificados, 0, 44, StandardCharsets.US_ASCII));
+        assertEquals(codigos[2], new String(decodificados, 88, 44, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,105 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.itextpdf.text.pdf.PRIndirectReference;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.ImageRenderInfo;
+import com.itextpdf.text.pdf.parser.PdfReaderContentParser;
+import com.itextpdf.text.pdf.parser.RenderListener;
+import com.itextpdf.text.pdf.parser.TextRenderInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.NUMERO_GUIA;
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Modelo de Página da Guia - Fundo Estático e Campos Variáveis")
+class ModeloPaginaGuiaTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve reutilizar o mesmo fundo em todas as páginas do arquivo")
+    void deveReutilizarFundoEntrePaginas() throws Exception {
+        PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024));
+        try (EscritorPdfLote escritor = new EscritorPdfLote(pdfService, diretorio, "modelo", 100, Long.MAX_VALUE)) {
+            for (int i = 1; i <= 3; i++) {
+                escritor.adicionar(guiaComCodigos(i));
+            }
+        }
+
+        PdfReader leitor = new PdfReader(Files.readAllBytes(diretorio.resolve("modelo-0001.pdf")));
+        Set<Integer> fundos = new HashSet<>();
+        for (int pagina = 1; pagina <= leitor.getNumberOfPages(); pagina++) {
+            PdfDictionary xObjects = leitor.getPageN(pagina).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            for (PdfName nome : xObjects.getKeys()) {
+                PRIndirectReference referencia = (PRIndirectReference) xObjects.get(nome);
+                PdfDictionary form = (PdfDictionary) PdfReader.getPdfObject(referencia);
+                // O fundo é o único form do tamanho da página
+                if (form.getAsArray(PdfName.BBOX).getAsNumber(3).floatValue() > 800) {
+                    fundos.add(referencia.getNumber());
+                }
+            }
+        }
+        leitor.close();
+
+        assertEquals(1, fundos.size(), "As três páginas devem apontar para o mesmo form XObject do fundo");
+    }
+
+    @Test
+    @DisplayName("Deve escrever os campos ao lado dos rótulos e reduzir a fonte de texto longo")
+    void deveEscreverCamposAoLadoDosRotulos() throws Exception {
+        String endereco = "Avenida Afonso Pena, 1234, Bloco B, Apartamento 1502 - Jardim dos Estados - Campo Grande/MS";
+        Path arquivo = diretorio.resolve("guia.pdf");
+        new PdfService(new CacheSimbolos(1024 * 1024))
+                .gerarPdf(guiaComCodigos(NUMERO_GUIA, endereco), arquivo.toString());
+
+        PdfReader leitor = new PdfReader(Files.readAllBytes(arquivo));
+        Map<String, TextRenderInfo> textos = new HashMap<>();
+        new PdfReaderContentParser(leitor).processContent(1, new RenderListener() {
+            @Override
+            public void beginTextBlock() {
+            }
+
+            @Override
+            public void renderText(TextRenderInfo info) {
+                textos.put(info.getText(), info);
+            }
+
+            @Override
+            public void endTextBlock() {
+            }
+
+            @Override
+            public void renderImage(ImageRenderInfo info) {
+            }
+        });
+        leitor.close();
+
+        TextRenderInfo rotuloNome = textos.get("Nome: ");
+        TextRenderInfo nome = textos.get("JOAO SILVA");
+        assertNotNull(rotuloNome);
+        assertNotNull(nome);
+        assertEquals(rotuloNome.getBaseline().getEndPoint().get(0), nome.getBaseline().getStartPoint().get(0), 0.01f);
+        assertEquals(rotuloNome.getBaseline().getStartPoint().get(1), nome.getBaseline().getStartPoint().get(1), 0.01f);
+
+        TextRenderInfo vencimento = textos.get("15/01/2024");
+        assertEquals(565 - 2, vencimento.getBaseline().getEndPoint().get(0), 0.01f, "Data alinhada à direita");
+
+        TextRenderInfo enderecoLongo = textos.get(endereco);
+        assertNotNull(enderecoLongo);
+        assertTrue(enderecoLongo.getBaseline().getEndPoint().get(0) <= 565.01f, "Endereço deve caber até a margem");
+    }
+}
@@ -0,0 +1,159 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.PerfilRenderizacao;
+import com.aronalvarenga.gerador.util.BufferSaida;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do PdfService - Saídas em Arquivo, Stream, Canal e Memória")
+class PdfServiceTest {
+
+    @TempDir
+    Path diretorio;
+
+    private final PdfService pdfService = new PdfService(new CacheSimbolos(1024 * 1024));
+
+    @Test
+    @DisplayName("Deve gerar o mesmo documento em arquivo, stream, canal e buffer")
+    void deveGerarMesmoDocumentoEmTodasAsSaidas() throws Exception {
+        GuiaPagamento guia = guiaComCodigos();
+
+        Path arquivo = diretorio.resolve("guia.pdf");
+        pdfService.gerarPdf(guia, arquivo.toString());
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        pdfService.gerarPdf(guia, (OutputStream) stream);
+
+        ByteArrayOutputStream destinoCanal = new ByteArrayOutputStream();
+        try (WritableByteChannel canal = Channels.newChannel(destinoCanal)) {
+            pdfService.gerarPdf(guia, canal);
+        }
+
+        BufferSaida buffer = new BufferSaida(1024);
+        pdfService.gerarPdf(guia, buffer);
+
+        byte[][] saidas = {Files.readAllBytes(arquivo), stream.toByteArray(), destinoCanal.toByteArray(),
+                buffer.toByteArray()};
+        for (byte[] pdf : saidas) {
+            // ID e datas do documento mudam a cada geração; o conteúdo da página não
+            PdfReader leitor = new PdfReader(pdf);
+            assertEquals(1, leitor.getNumberOfPages());
+            assertTrue(PdfTextExtractor.getTextFromPage(leitor, 1).contains("1234567890"));
+            leitor.close();
+            assertEquals(saidas[0].length, pdf.length);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve escrever em poucos blocos e não fechar o stream recebido")
+    void deveEscreverEmPoucosBlocosSemFecharStream() throws Exception {
+        ContadorEscritas contador = new ContadorEscritas(new ByteArrayOutputStream());
+
+        pdfService.gerarPdf(guiaComCodigos(), contador);
+
+        assertFalse(contador.fechado, "O stream do chamador não deve ser fechado");
+        assertTrue(contador.bytes > 0);
+        assertTrue(contador.escritas <= contador.bytes / 8192 + 2,
+                contador.escritas + " escritas para " + contador.bytes + " bytes");
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o buffer em memória sem realocar")
+    void deveReutilizarBufferSemRealocar() throws Exception {
+        BufferSaida buffer = new BufferSaida(1024);
+        pdfService.gerarPdf(guiaComCodigos(), buffer);
+        int capacidade = buffer.getCapacidade();
+        int tamanho = buffer.getTamanho();
+
+        pdfService.gerarPdf(guiaComCodigos(), buffer);
+        assertEquals(capacidade, buffer.getCapacidade(), "Segunda geração deve caber na capacidade já alocada");
+        assertEquals(tamanho, buffer.getTamanho(), "Conteúdo anterior deve ser descartado");
+
+        ByteBuffer visao = buffer.comoByteBuffer();
+        assertTrue(visao.isReadOnly());
+        assertEquals(tamanho, visao.remaining());
+        assertEquals('%', visao.get(0));
+
+        ByteArrayOutputStream copia = new ByteArrayOutputStream();
+        try (WritableByteChannel canal = Channels.newChannel(copia)) {
+            buffer.escreverEm(canal);
+        }
+        assertArrayEquals(buffer.toByteArray(), copia.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Deve embutir os símbolos como imagens de 1 bit conforme o perfil")
+    void deveEmbutirSimbolosComoImagensDeUmBit() throws Exception {
+        for (PerfilRenderizacao perfil : new PerfilRenderizacao[]{PerfilRenderizacao.RASCUNHO,
+                PerfilRenderizacao.TELA, PerfilRenderizacao.IMPRESSAO}) {
+            BufferSaida buffer = new BufferSaida();
+            new PdfService(new CacheSimbolos(1024 * 1024), perfil).gerarPdf(guiaComCodigos(), buffer);
+
+            PdfReader leitor = new PdfReader(buffer.toByteArray());
+            PdfName filtro = perfil.getSimbolos() == PerfilRenderizacao.Simbolos.CCITT_G4
+                    ? PdfName.CCITTFAXDECODE : PdfName.FLATEDECODE;
+            PdfDictionary xObjects = leitor.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            int imagens = 0;
+            for (PdfName nome : xObjects.getKeys()) {
+                PdfDictionary xObject = (PdfDictionary) PdfReader.getPdfObject(xObjects.get(nome));
+                if (PdfName.IMAGE.equals(xObject.getAsName(PdfName.SUBTYPE))) {
+                    imagens++;
+                    assertEquals(1, xObject.getAsNumber(PdfName.BITSPERCOMPONENT).intValue(), perfil.name());
+                    assertEquals(filtro, xObject.getAsName(PdfName.FILTER), perfil.name());
+                }
+            }
+            assertEquals(2, imagens, perfil + ": código de barras e QR Code");
+            assertEquals(perfil.isCompressaoCompleta() ? '5' : '4', leitor.getPdfVersion(), perfil.name());
+            leitor.close();
+        }
+    }
+
+    private static final class ContadorEscritas extends FilterOutputStream {
+        private int escritas;
+        private long bytes;
+        private boolean fechado;
+
+        private ContadorEscritas(OutputStream destino) {
+            super(destino);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            escritas++;
+            bytes++;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            escritas++;
+            bytes += len;
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            fechado = true;
+        }
+    }
+}
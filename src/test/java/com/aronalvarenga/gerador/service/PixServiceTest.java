@@ -5,6 +5,8 @@ import com.aronalvarenga.gerador.util.ValidacaoUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -227,4 +229,62 @@ class PixServiceTest {
         }
     }
 
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', emptyValue = "", value = {
+            // Golden file - pix-casos-conhecidos.json (payloadEsperado)
+            "caso-pix-001|JOAO SILVA|Rua Teste, 123 - Centro - Campo Grande/MS|12345678901|100.50|1234567890|00020101021226330014br.gov.bcb.pix0111123456789015204000053039865406100.505802BR5910JOAO SILVA6012CAMPO GRANDE6214051012345678906304C3F5",
+            "caso-pix-002|MARIA SANTOS|Av. Principal, 456 - Jardim - São Paulo/SP|maria.santos@email.com|250.75|9876543210|00020101021226440014br.gov.bcb.pix0122maria.santos@email.com5204000053039865406250.755802BR5912MARIA SANTOS6009SAO PAULO6214051098765432106304E04D",
+            "caso-pix-003|PEDRO COSTA|Rua Pequena, 1 - Bairro - Rio de Janeiro/RJ|550e8400-e29b-41d4-a716-446655440000|50.00|1111111111|00020101021226580014br.gov.bcb.pix0136550e8400-e29b-41d4-a716-446655440000520400005303986540550.005802BR5911PEDRO COSTA6014RIO DE JANEIRO6214051011111111116304BDD2",
+            "caso-pix-004|ANA OLIVEIRA|Av. Grande, 9999 - Centro - Belo Horizonte/MG|+5511999999999|0.01|9999999999|00020101021226360014br.gov.bcb.pix0114+551199999999952040000530398654040.015802BR5912ANA OLIVEIRA6014BELO HORIZONTE6214051099999999996304B050",
+            "caso-pix-005|EMPRESA LTDA|Rua Comercial, 1000 - Centro - São Paulo/SP|12345678000190|1000.00|1234567890|00020101021226360014br.gov.bcb.pix01141234567800019052040000530398654071000.005802BR5912EMPRESA LTDA6009SAO PAULO62140510123456789063044BBA",
+            "caso-pix-006|João da Silva Santos|Rua das Flores, 123 - Centro - Campo Grande/MS|joao.silva@email.com|150.505|2025010001|00020101021226420014br.gov.bcb.pix0120joao.silva@email.com5204000053039865406150.505802BR5920JOAO DA SILVA SANTOS6012CAMPO GRANDE6214051020250100016304310B",
+            "caso-pix-007|||chave|1234567.5||00020101021226270014br.gov.bcb.pix0105chave52040000530398654101234567.505802BR5912PROPRIETARIO6012CAMPO GRANDE63043E5B"
+    })
+    @DisplayName("Deve gerar payload idêntico ao golden file")
+    void deveGerarPayloadIdenticoAoGoldenFile(String caso, String nome, String endereco, String chavePix,
+                                              String valor, String numeroGuia, String payloadEsperado) {
+        GuiaPagamento guia = new GuiaPagamento(
+                nome,
+                "12345678901",
+                endereco,
+                chavePix,
+                new BigDecimal(valor),
+                "Golden file",
+                LocalDate.of(2024, 1, 15),
+                numeroGuia
+        );
+
+        assertEquals(payloadEsperado, pixService.gerarQRCodePix(guia));
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar template do recebedor para valores e referências diferentes")
+    void deveReutilizarTemplateParaValoresEReferenciasDiferentes() {
+        TemplatePayloadPix template = pixService.compilarTemplate(
+                "12345678901", "JOAO SILVA", "Rua Teste, 123 - Centro - Campo Grande/MS");
+        String prefixo = "00020101021226330014br.gov.bcb.pix011112345678901520400005303986";
+        String trechoFixo = "5802BR5910JOAO SILVA6012CAMPO GRANDE";
+
+        long[] valores = {0, 1, 99, 100, 10050, 123456789, 99999999999L};
+        String[] referencias = {"", "1", "1234567890", "REFERENCIA-COM-MAIS-DE-25-CARACTERES"};
+        StringBuilder reutilizado = new StringBuilder();
+
+        for (long centavos : valores) {
+            for (String referencia : referencias) {
+                String valor = String.format("%d.%02d", centavos / 100, centavos % 100);
+                String ref = referencia.length() > 25 ? referencia.substring(0, 25) : referencia;
+                String campo62 = ref.isEmpty() ? ""
+                        : "62" + String.format("%02d", ref.length() + 4) + "05" + String.format("%02d", ref.length()) + ref;
+                String semCrc = prefixo + "54" + String.format("%02d", valor.length()) + valor + trechoFixo + campo62 + "6304";
+                String esperado = semCrc + ValidacaoUtil.calcularCRC16(semCrc);
+
+                assertEquals(esperado, template.gerar(centavos, referencia), "Valor " + centavos + ", referência " + referencia);
+
+                reutilizado.setLength(0);
+                template.gerar(centavos, referencia, reutilizado);
+                assertEquals(esperado, reutilizado.toString());
+            }
+        }
+    }
+
 }
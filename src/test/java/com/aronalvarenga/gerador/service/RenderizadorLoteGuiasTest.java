@@ -0,0 +1,198 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.ResumoRenderizacao;
+import com.aronalvarenga.gerador.util.BufferSaida;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import com.google.zxing.WriterException;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guia;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Renderizador de Guias em Lote - Pools e Contrapressão")
+class RenderizadorLoteGuiasTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve renderizar o lote em paralelo e gravar um PDF por guia")
+    void deveRenderizarLoteEmParalelo() throws Exception {
+        Map<String, byte[]> pdfs = new ConcurrentHashMap<>();
+        int quantidade = 200;
+
+        ResumoRenderizacao resumo;
+        try (RenderizadorLoteGuias renderizador = new RenderizadorLoteGuias(
+                (guia, pdf) -> pdfs.put(guia.getNumeroGuia(), pdf.toByteArray()),
+                4, 2, 8, () -> new PdfService(new CacheSimbolos(1024 * 1024)))) {
+            for (int i = 1; i <= quantidade; i++) {
+                renderizador.enviar(guia(i));
+            }
+            resumo = renderizador.concluir();
+        }
+
+        assertEquals(quantidade, resumo.getGuiasRenderizadas());
+        assertEquals(quantidade, resumo.getGuiasGravadas());
+        assertEquals(0, resumo.getFalhas());
+        assertEquals(quantidade, pdfs.size());
+        assertTrue(resumo.getBytesGravados() > 0);
+        assertTrue(resumo.getVazaoRenderizacao() > 0 && resumo.getVazaoGravacao() > 0 && resumo.getVazaoTotal() > 0);
+
+        // Código de barras e payload PIX são gerados na thread de renderização quando faltam
+        for (int i : new int[]{1, 100, quantidade}) {
+            String numero = String.format("%010d", i);
+            PdfReader leitor = new PdfReader(pdfs.get(numero));
+            String texto = PdfTextExtractor.getTextFromPage(leitor, 1);
+            leitor.close();
+            assertTrue(texto.contains(numero), "Guia " + numero);
+            assertTrue(texto.contains(new CodigoBarrasService().gerarCodigoBarras(guia(i))));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve bloquear o produtor quando a capacidade de guias em andamento é atingida")
+    void deveBloquearProdutorNaCapacidade() throws Exception {
+        CountDownLatch liberarGravacao = new CountDownLatch(1);
+        AtomicInteger enviadas = new AtomicInteger();
+        int capacidade = 4;
+
+        try (RenderizadorLoteGuias renderizador = new RenderizadorLoteGuias(
+                (guia, pdf) -> {
+                    try {
+                        liberarGravacao.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                },
+                2, 1, capacidade, () -> new PdfService(new CacheSimbolos(1024 * 1024)))) {
+
+            Thread produtor = new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 10; i++) {
+                        renderizador.enviar(guia(i));
+                        enviadas.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            produtor.start();
+
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (enviadas.get() < capacidade && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(300);
+            assertEquals(capacidade, enviadas.get(), "Produtor deve parar enquanto a gravação está bloqueada");
+            assertTrue(produtor.isAlive());
+
+            liberarGravacao.countDown();
+            produtor.join(TimeUnit.SECONDS.toMillis(30));
+            assertEquals(10, enviadas.get());
+            assertEquals(10, renderizador.concluir().getGuiasGravadas());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar as demais guias e informar a primeira falha ao concluir")
+    void deveInformarPrimeiraFalhaAoConcluir() throws Exception {
+        RenderizadorLoteGuias.DestinoPdf arquivos = RenderizadorLoteGuias.diretorio(diretorio);
+
+        try (RenderizadorLoteGuias renderizador = new RenderizadorLoteGuias(
+                (guia, pdf) -> {
+                    if (guia.getNumeroGuia().equals("0000000003")) {
+                        throw new IOException("Disco cheio");
+                    }
+                    arquivos.gravar(guia, pdf);
+                },
+                2, 1, 4, () -> new PdfService(new CacheSimbolos(1024 * 1024)))) {
+            for (int i = 1; i <= 5; i++) {
+                renderizador.enviar(guia(i));
+            }
+
+            ExecutionException falha = assertThrows(ExecutionException.class, renderizador::concluir);
+            assertEquals("Disco cheio", falha.getCause().getMessage());
+            assertEquals(1, renderizador.getResumo().getFalhas());
+            assertEquals(4, renderizador.getResumo().getGuiasGravadas());
+        }
+
+        assertTrue(Files.size(diretorio.resolve("guia-0000000005.pdf")) > 0);
+        assertFalse(Files.exists(diretorio.resolve("guia-0000000003.pdf")));
+    }
+
+    @Test
+    @DisplayName("Deve devolver a vaga e informar a falha quando a renderização lança um Error")
+    void deveDevolverVagaQuandoRenderizacaoLancaError() throws Exception {
+        Map<String, byte[]> pdfs = new ConcurrentHashMap<>();
+
+        try (RenderizadorLoteGuias renderizador = new RenderizadorLoteGuias(
+                (guia, pdf) -> pdfs.put(guia.getNumeroGuia(), pdf.toByteArray()),
+                1, 1, 2, () -> new PdfService(new CacheSimbolos(1024 * 1024)) {
+                    @Override
+                    public void gerarPdf(GuiaPagamento guia, BufferSaida buffer)
+                            throws DocumentException, IOException, WriterException {
+                        if (guia.getNumeroGuia().equals("0000000002")) {
+                            throw new StackOverflowError("Erro simulado");
+                        }
+                        super.gerarPdf(guia, buffer);
+                    }
+                })) {
+            // Capacidade 2: sem a vaga da guia que falhou, o envio e a conclusão ficariam bloqueados
+            for (int i = 1; i <= 4; i++) {
+                renderizador.enviar(guia(i));
+            }
+
+            ExecutionException falha = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                    () -> assertThrows(ExecutionException.class, renderizador::concluir));
+            assertInstanceOf(StackOverflowError.class, falha.getCause());
+            assertEquals(1, renderizador.getResumo().getFalhas());
+            assertEquals(3, renderizador.getResumo().getGuiasGravadas());
+        }
+
+        assertFalse(pdfs.containsKey("0000000002"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar a guia cujo código já foi emitido para outra guia e aceitar a reemissão")
+    void deveRecusarColisaoEAceitarReemissao() throws Exception {
+        Map<String, byte[]> pdfs = new ConcurrentHashMap<>();
+
+        try (IndiceCodigosEmitidos indice = IndiceCodigosEmitidos.abrir(diretorio.resolve("emitidos.idx"), 100);
+             RenderizadorLoteGuias renderizador = new RenderizadorLoteGuias(
+                     (guia, pdf) -> pdfs.put(guia.getNumeroGuia(), pdf.toByteArray()),
+                     1, 1, 4, () -> new PdfService(new CacheSimbolos(1024 * 1024)), indice)) {
+            // Diferem só no 11º dígito, e o código de barras trunca o número da guia em 10
+            renderizador.enviar(guia("12345678901"));
+            renderizador.enviar(guia("12345678901"));
+            renderizador.enviar(guia("12345678902"));
+
+            ExecutionException falha = assertThrows(ExecutionException.class, renderizador::concluir);
+            assertInstanceOf(IllegalStateException.class, falha.getCause());
+            ResumoRenderizacao resumo = renderizador.getResumo();
+            assertEquals(1, resumo.getColisoes());
+            assertEquals(1, resumo.getFalhas());
+            assertEquals(2, resumo.getGuiasGravadas(), "A reemissão da mesma guia deve ser gravada");
+            assertEquals(1, indice.getQuantidade());
+        }
+
+        assertTrue(pdfs.containsKey("12345678901"));
+        assertFalse(pdfs.containsKey("12345678902"), "Guia com código de outra guia não deve ser gravada");
+    }
+}
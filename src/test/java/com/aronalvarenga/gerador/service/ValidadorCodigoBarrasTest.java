@@ -0,0 +1,115 @@
+package com.aronalvarenga.gerador.service;
+
+import com.aronalvarenga.gerador.util.ValidacaoUtil;
+import jdk.incubator.vector.IntVector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes de Validação em Lote - DV FEBRABAN e Layout")
+class ValidadorCodigoBarrasTest {
+
+    // Golden file caso-001 (codigo-barras-casos-conhecidos.json)
+    private static final String CODIGO_BARRAS = "00191959600000100501234567890000011234567890";
+
+    @Test
+    @DisplayName("Deve usar a Vector API quando o módulo está disponível e os vetores têm 256 bits ou mais")
+    void deveUsarVectorApiQuandoDisponivel() {
+        // O surefire inicia a JVM com --add-modules jdk.incubator.vector
+        assertEquals(IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256, new ValidadorCodigoBarras().isVetorial(),
+                "Validação vetorial deve estar ativa só com vetores de 256 bits ou mais");
+        assertFalse(new ValidadorCodigoBarras(1, 9_999_999_999L, 0, 9999, false).isVetorial());
+    }
+
+    @Test
+    @DisplayName("Deve classificar problemas de DV, prefixo, caractere, fator e valor")
+    void deveClassificarProblemas() {
+        ValidadorCodigoBarras validador = new ValidadorCodigoBarras(1, 100_000, 1000, 9999);
+
+        assertEquals(ValidadorCodigoBarras.VALIDO, validador.validar(CODIGO_BARRAS));
+        assertEquals(ValidadorCodigoBarras.DV_INVALIDO, validador.validar(alterar(CODIGO_BARRAS, 4, '2')));
+        assertEquals(ValidadorCodigoBarras.PREFIXO_INVALIDO, validador.validar(alterar(CODIGO_BARRAS, 3, '8')));
+        assertEquals(ValidadorCodigoBarras.CARACTERE_INVALIDO, validador.validar(alterar(CODIGO_BARRAS, 30, 'X')));
+        assertEquals(ValidadorCodigoBarras.CARACTERE_INVALIDO, validador.validar("0019"));
+        // Golden file caso-004: fator 0001, abaixo do mínimo configurado
+        assertEquals(ValidadorCodigoBarras.FATOR_FORA_DA_FAIXA,
+                validador.validar("00199000100000250755555555555000015556667778"));
+        // Golden file caso-002: valor 999999.99, acima do máximo configurado
+        assertEquals(ValidadorCodigoBarras.VALOR_FORA_DA_FAIXA,
+                validador.validar("00198994700999999999999999999000019876543210"));
+    }
+
+    @Test
+    @DisplayName("Deve produzir o mesmo resultado nos caminhos vetorial e escalar")
+    void deveProduzirMesmoResultadoVetorialEEscalar() {
+        // Quantidade fora do múltiplo de lanes: a sobra do lote passa pelo caminho escalar
+        int quantidade = 5_003;
+        byte[] codigos = gerarLote(quantidade);
+
+        // Corrompe um dígito de parte dos códigos
+        Random random = new Random(42);
+        for (int i = 0; i < quantidade; i += 3) {
+            int posicao = i * 44 + random.nextInt(44);
+            codigos[posicao] = (byte) ('0' + (codigos[posicao] - '0' + 1 + random.nextInt(9)) % 10);
+        }
+
+        ValidadorCodigoBarras vetorial = new ValidadorCodigoBarras();
+        ValidadorCodigoBarras escalar = new ValidadorCodigoBarras(1, 9_999_999_999L, 0, 9999, false);
+
+        byte[] resultadosVetorial = new byte[quantidade];
+        byte[] resultadosEscalar = new byte[quantidade];
+        int invalidosVetorial = vetorial.validarLote(codigos, quantidade, resultadosVetorial);
+        int invalidosEscalar = escalar.validarLote(codigos, quantidade, resultadosEscalar);
+
+        assertArrayEquals(resultadosEscalar, resultadosVetorial, "Os dois caminhos devem classificar igual");
+        assertEquals(invalidosEscalar, invalidosVetorial);
+        assertTrue(invalidosVetorial > 0, "Códigos corrompidos devem ser detectados");
+
+        // Faixas estreitas de valor e fator: parte dos códigos válidos cai fora de cada uma
+        ValidadorCodigoBarras vetorialFaixas = new ValidadorCodigoBarras(10_000, 100_000, 1000, 1050);
+        ValidadorCodigoBarras escalarFaixas = new ValidadorCodigoBarras(10_000, 100_000, 1000, 1050, false);
+        byte[] resultadosFaixas = new byte[quantidade];
+        byte[] referenciaFaixas = new byte[quantidade];
+        vetorialFaixas.validarLote(codigos, quantidade, resultadosFaixas);
+        escalarFaixas.validarLote(codigos, quantidade, referenciaFaixas);
+        assertArrayEquals(referenciaFaixas, resultadosFaixas, "Os dois caminhos devem aplicar as mesmas faixas");
+
+        for (int i = 0; i < quantidade; i++) {
+            if (resultadosVetorial[i] == ValidadorCodigoBarras.PREFIXO_INVALIDO) {
+                continue;
+            }
+            String codigo = new String(codigos, i * 44, 44, StandardCharsets.US_ASCII);
+            assertEquals(ValidacaoUtil.validarDVFEBRABAN(codigo), resultadosVetorial[i] != ValidadorCodigoBarras.DV_INVALIDO,
+                    "Resultado do DV deve coincidir com a referência para o código " + i);
+        }
+    }
+
+    private static byte[] gerarLote(int quantidade) {
+        long[] centavos = new long[quantidade];
+        int[] dias = new int[quantidade];
+        long[] guias = new long[quantidade];
+        long[] cpfs = new long[quantidade];
+        int diaBase = (int) LocalDate.of(2025, 3, 1).toEpochDay();
+        for (int i = 0; i < quantidade; i++) {
+            centavos[i] = 100 + i * 31L;
+            dias[i] = diaBase + i % 90;
+            guias[i] = 2025000000L + i;
+            cpfs[i] = 1234567890L + i * 7L;
+        }
+
+        byte[] codigos = new byte[quantidade * 44];
+        new CodigoBarrasLoteService().gerarCodigosBarras(centavos, dias, guias, cpfs, codigos);
+        return codigos;
+    }
+
+    private static String alterar(String codigo, int posicao, char valor) {
+        char[] caracteres = codigo.toCharArray();
+        caracteres[posicao] = valor;
+        return new String(caracteres);
+    }
+}
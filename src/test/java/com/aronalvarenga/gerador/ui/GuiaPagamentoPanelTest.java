@@ -0,0 +1,107 @@
+package com.aronalvarenga.gerador.ui;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.LayoutGuia;
+import com.aronalvarenga.gerador.service.LayoutGuiaService;
+import com.aronalvarenga.gerador.util.CacheSimbolos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guiaComCodigos;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do GuiaPagamentoPanel - Imagem da Página")
+class GuiaPagamentoPanelTest {
+
+    @Test
+    @DisplayName("Deve repintar copiando a imagem, sem consultar os símbolos novamente")
+    void deveRepintarSemConsultarSimbolos() {
+        CacheSimbolos cache = new CacheSimbolos(1024 * 1024);
+        GuiaPagamentoPanel painel = new GuiaPagamentoPanel(cache);
+        painel.setSize(800, 600);
+        painel.exibirGuia(guiaComCodigos());
+
+        BufferedImage primeira = pintar(painel);
+        BufferedImage pagina = painel.obterImagemPagina(1);
+        long consultas = cache.getAcertos() + cache.getFalhas();
+
+        BufferedImage segunda = pintar(painel);
+
+        assertSame(pagina, painel.obterImagemPagina(1), "A imagem da página deve ser reaproveitada");
+        assertEquals(consultas, cache.getAcertos() + cache.getFalhas(), "Repintar não deve gerar símbolos");
+        assertEquals(primeira.getRGB(400, 300), segunda.getRGB(400, 300));
+    }
+
+    @Test
+    @DisplayName("Deve refazer a imagem quando a guia ou o tamanho mudam")
+    void deveRefazerImagemQuandoGuiaOuTamanhoMudam() {
+        GuiaPagamentoPanel painel = new GuiaPagamentoPanel(new CacheSimbolos(1024 * 1024));
+        painel.setSize(800, 600);
+        painel.exibirGuia(guiaComCodigos());
+        BufferedImage inicial = painel.obterImagemPagina(1);
+
+        painel.setSize(900, 700);
+        BufferedImage redimensionada = painel.obterImagemPagina(1);
+        assertNotSame(inicial, redimensionada);
+        assertEquals(900, redimensionada.getWidth());
+        assertEquals(700, redimensionada.getHeight());
+
+        painel.exibirGuia(painel.getGuia());
+        assertNotSame(redimensionada, painel.obterImagemPagina(1), "Guia exibida novamente deve ser redesenhada");
+
+        BufferedImage ampliada = painel.obterImagemPagina(2);
+        assertEquals(1800, ampliada.getWidth(), "Escala de tela deve gerar a imagem na resolução do dispositivo");
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar o layout da visualização até a guia ser exibida novamente")
+    void deveReaproveitarLayoutDaVisualizacao() {
+        GuiaPagamentoPanel painel = new GuiaPagamentoPanel(new CacheSimbolos(1024 * 1024));
+        assertNull(painel.getLayoutGuia());
+
+        painel.setSize(800, 600);
+        painel.exibirGuia(guiaComCodigos());
+        LayoutGuia layout = painel.getLayoutGuia();
+        assertNotNull(layout);
+
+        painel.setSize(900, 700);
+        painel.obterImagemPagina(1);
+        assertSame(layout, painel.getLayoutGuia(), "Redimensionar não deve diagramar a guia de novo");
+
+        painel.exibirGuia(painel.getGuia());
+        assertNotSame(layout, painel.getLayoutGuia());
+
+        painel.limpar();
+        assertNull(painel.getLayoutGuia());
+    }
+
+    @Test
+    @DisplayName("Deve exibir a guia com o layout calculado fora da thread da interface, sem diagramar de novo")
+    void deveExibirGuiaComLayoutCalculado() throws Exception {
+        CacheSimbolos cache = new CacheSimbolos(1024 * 1024);
+        GuiaPagamento guia = guiaComCodigos();
+        LayoutGuia layout = new LayoutGuiaService(cache).calcular(guia);
+        long consultas = cache.getAcertos() + cache.getFalhas();
+
+        GuiaPagamentoPanel painel = new GuiaPagamentoPanel(cache);
+        painel.exibirGuia(guia, layout);
+
+        assertSame(guia, painel.getGuia());
+        assertSame(layout, painel.getLayoutGuia());
+        assertEquals(consultas, cache.getAcertos() + cache.getFalhas(), "O layout informado deve ser usado");
+    }
+
+    private static BufferedImage pintar(GuiaPagamentoPanel painel) {
+        BufferedImage tela = new BufferedImage(painel.getWidth(), painel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = tela.createGraphics();
+        try {
+            painel.paint(g2d);
+        } finally {
+            g2d.dispose();
+        }
+        return tela;
+    }
+}
@@ -0,0 +1,80 @@
+package com.aronalvarenga.gerador.ui;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.aronalvarenga.gerador.util.GuiasTeste.guia;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes das Miniaturas do Lote de Guias")
+class MiniaturasGuiasTest {
+
+    @Test
+    @DisplayName("Deve desenhar em segundo plano apenas as linhas visíveis")
+    void deveDesenharApenasLinhasVisiveis() throws Exception {
+        List<Integer> concluidas = new CopyOnWriteArrayList<>();
+        CountDownLatch pronta = new CountDownLatch(1);
+        MiniaturasGuias miniaturas = new MiniaturasGuias(1, 10, 0.2, indice -> {
+            concluidas.add(indice);
+            pronta.countDown();
+        });
+        try {
+            AtomicReference<BufferedImage> primeiraConsulta = new AtomicReference<>();
+            // Sem código de barras nem payload PIX: a thread da miniatura os gera em uma cópia da guia
+            GuiaPagamento guiaVisivel = guia("202400000");
+            SwingUtilities.invokeAndWait(() -> {
+                miniaturas.definirFaixaVisivel(0, 0);
+                // Linha 10 saiu da tela antes de a tarefa começar; a thread única atende na ordem
+                miniaturas.obter(10, guia("2024000010"));
+                primeiraConsulta.set(miniaturas.obter(0, guiaVisivel));
+            });
+            assertNull(primeiraConsulta.get(), "A consulta não deve esperar o desenho");
+
+            assertTrue(pronta.await(30, TimeUnit.SECONDS));
+            SwingUtilities.invokeAndWait(() -> {
+                BufferedImage miniatura = miniaturas.obter(0, guia("202400000"));
+                assertNotNull(miniatura);
+                assertEquals(119, miniatura.getWidth(), "Página A4 reduzida pela escala");
+                assertEquals(169, miniatura.getHeight());
+            });
+            assertEquals(List.of(0), concluidas);
+            assertNull(guiaVisivel.getCodigoBarras(), "A thread da miniatura não deve alterar a guia do lote");
+            assertNull(guiaVisivel.getQrCodePix());
+        } finally {
+            miniaturas.encerrar();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter no máximo o limite de miniaturas e descartá-las ao trocar o lote")
+    void deveLimitarMiniaturasEmCache() throws Exception {
+        CountDownLatch prontas = new CountDownLatch(5);
+        MiniaturasGuias miniaturas = new MiniaturasGuias(2, 3, 0.1, indice -> prontas.countDown());
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                miniaturas.definirFaixaVisivel(0, 4);
+                for (int i = 0; i < 5; i++) {
+                    miniaturas.obter(i, guia("20240000" + i));
+                }
+            });
+            assertTrue(prontas.await(30, TimeUnit.SECONDS));
+
+            SwingUtilities.invokeAndWait(() -> {
+                assertEquals(3, miniaturas.getQuantidade());
+                miniaturas.limpar();
+                assertEquals(0, miniaturas.getQuantidade());
+            });
+        } finally {
+            miniaturas.encerrar();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.aronalvarenga.gerador.util;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.service.PdfService;
+import com.google.zxing.common.BitMatrix;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Cache de Símbolos - QR Code e Código de Barras")
+class CacheSimbolosTest {
+
+    // Golden file caso-pix-001 e caso-001
+    private static final String PAYLOAD = "00020101021226330014br.gov.bcb.pix0111123456789015204000053039865406100.505802BR5910JOAO SILVA6012CAMPO GRANDE6214051012345678906304C3F5";
+    private static final String CODIGO = "00191959600000100501234567890000011234567890";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve devolver o mesmo símbolo e contar acertos e falhas")
+    void deveDevolverMesmoSimboloEContarAcertos() throws Exception {
+        CacheSimbolos cache = new CacheSimbolos(8L * 1024 * 1024);
+
+        BitMatrix matriz = cache.obterMatrizQRCode(PAYLOAD, 150);
+        assertSame(matriz, cache.obterMatrizQRCode(PAYLOAD, 150));
+        assertNotSame(matriz, cache.obterMatrizQRCode(PAYLOAD, 160), "Tamanho diferente é outro símbolo");
+
+        BufferedImage codigo = cache.obterImagemCodigoBarras(CODIGO, 200, 15.0, 0.8);
+        assertSame(codigo, cache.obterImagemCodigoBarras(CODIGO, 200, 15.0, 0.8));
+        assertNotSame(codigo, cache.obterImagemCodigoBarras(CODIGO, 300, 15.0, 0.8), "DPI diferente é outro símbolo");
+
+        assertEquals(2, cache.getAcertos());
+        assertEquals(4, cache.getFalhas());
+        assertEquals(4, cache.getQuantidade());
+    }
+
+    @Test
+    @DisplayName("Deve descartar os símbolos menos usados ao atingir o limite de bytes")
+    void deveDescartarMenosUsadosAoAtingirLimite() throws Exception {
+        CacheSimbolos medidor = new CacheSimbolos(Long.MAX_VALUE);
+        medidor.obterMatrizQRCode(PAYLOAD, 150);
+        long bytesPorMatriz = medidor.getBytesOcupados();
+
+        CacheSimbolos cache = new CacheSimbolos(bytesPorMatriz * 2);
+        BitMatrix primeira = cache.obterMatrizQRCode(PAYLOAD, 150);
+        BitMatrix segunda = cache.obterMatrizQRCode(PAYLOAD + "A", 150);
+        assertSame(primeira, cache.obterMatrizQRCode(PAYLOAD, 150), "Acesso torna a primeira a mais recente");
+
+        cache.obterMatrizQRCode(PAYLOAD + "B", 150);
+        assertEquals(2, cache.getQuantidade());
+        assertTrue(cache.getBytesOcupados() <= bytesPorMatriz * 2);
+        assertSame(primeira, cache.obterMatrizQRCode(PAYLOAD, 150), "A mais recente deve permanecer");
+        assertNotSame(segunda, cache.obterMatrizQRCode(PAYLOAD + "A", 150), "A menos usada deve ser descartada");
+
+        CacheSimbolos pequeno = new CacheSimbolos(1);
+        pequeno.obterMatrizQRCode(PAYLOAD, 150);
+        assertEquals(0, pequeno.getQuantidade(), "Símbolo maior que o limite não fica no cache");
+        assertEquals(0, pequeno.getBytesOcupados());
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar os símbolos ao reimprimir o PDF")
+    void deveReaproveitarSimbolosAoReimprimirPdf() throws Exception {
+        GuiaPagamento guia = GuiasTeste.guiaComCodigos();
+
+        CacheSimbolos cache = new CacheSimbolos(8L * 1024 * 1024);
+        PdfService pdfService = new PdfService(cache);
+        pdfService.gerarPdf(guia, diretorio.resolve("guia.pdf").toString());
+        long falhasPrimeiraImpressao = cache.getFalhas();
+
+        pdfService.gerarPdf(guia, diretorio.resolve("reimpressao.pdf").toString());
+
+        assertEquals(falhasPrimeiraImpressao, cache.getFalhas(), "Reimpressão não deve codificar novamente");
+        assertTrue(cache.getAcertos() >= 2);
+        assertTrue(Files.size(diretorio.resolve("reimpressao.pdf")) > 0);
+    }
+}
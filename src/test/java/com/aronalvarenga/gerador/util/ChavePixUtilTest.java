@@ -0,0 +1,89 @@
+package com.aronalvarenga.gerador.util;
+
+import com.aronalvarenga.gerador.model.TipoChavePix;
+import com.aronalvarenga.gerador.service.PixService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Classificador de Chave PIX")
+class ChavePixUtilTest {
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource({
+            "52998224725, CPF",
+            "'  52998224725  ', CPF",
+            "52998224726, INVALIDA",
+            "11111111111, INVALIDA",
+            "12345678901, INVALIDA",
+            "11222333000181, CNPJ",
+            "11222333000182, INVALIDA",
+            "00000000000000, INVALIDA",
+            "+5511999999999, TELEFONE",
+            "+556799999999, TELEFONE",
+            "+5411999999999, INVALIDA",
+            "+55119999999, INVALIDA",
+            "maria.santos@email.com, EMAIL",
+            "1@email.com.br, EMAIL",
+            "joao_silva-1@sub.dominio.org, EMAIL",
+            "sem-arroba.com, INVALIDA",
+            "dois@@email.com, INVALIDA",
+            "@email.com, INVALIDA",
+            "usuario@email.c, INVALIDA",
+            "usuario@email.c0m, INVALIDA",
+            "usuario@.com, INVALIDA",
+            "usuário@email.com, INVALIDA",
+            "550e8400-e29b-41d4-a716-446655440000, ALEATORIA",
+            "550E8400-E29B-41D4-A716-446655440000, ALEATORIA",
+            "550e8400-e29b-41d4-a716-44665544000g, INVALIDA",
+            "550e8400e29b-41d4-a716-4466554400000, INVALIDA",
+            "'   ', INVALIDA"
+    })
+    @DisplayName("Deve classificar chaves conhecidas")
+    void deveClassificarChavesConhecidas(String chave, TipoChavePix esperado) {
+        assertEquals(esperado, ChavePixUtil.classificar(chave));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar os mesmos formatos das expressões regulares anteriores")
+    void deveAceitarMesmosFormatosDasExpressoesRegulares() {
+        Random random = new Random(10);
+        String alfabeto = "abcXYZ0123456789@.-_+ ";
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder chave = new StringBuilder();
+            int tamanho = 1 + random.nextInt(20);
+            for (int i = 0; i < tamanho; i++) {
+                chave.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+            }
+            String texto = chave.toString();
+            String semEspacos = texto.trim();
+
+            TipoChavePix tipo = ChavePixUtil.classificar(texto);
+            boolean emailRegex = semEspacos.contains("@") && semEspacos.matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$");
+            boolean telefoneRegex = semEspacos.matches("^\\+55\\d{10,11}$");
+
+            assertEquals(emailRegex, tipo == TipoChavePix.EMAIL, texto);
+            assertEquals(telefoneRegex, tipo == TipoChavePix.TELEFONE, texto);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar chave inválida em PixService.validarChavePix")
+    void deveRejeitarChaveInvalidaNoPixService() {
+        PixService pixService = new PixService();
+
+        assertTrue(pixService.validarChavePix("52998224725"));
+        assertTrue(pixService.validarChavePix("usuario@email.com"));
+        assertEquals(TipoChavePix.CNPJ, pixService.classificarChavePix("11222333000181"));
+
+        assertFalse(pixService.validarChavePix(null));
+        assertFalse(pixService.validarChavePix(""));
+        assertFalse(pixService.validarChavePix("chave qualquer"), "Formato desconhecido não deve ser aceito");
+        assertFalse(pixService.validarChavePix("52998224700"), "CPF com DV inválido não deve ser aceito");
+    }
+}
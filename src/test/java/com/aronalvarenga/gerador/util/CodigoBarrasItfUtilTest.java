@@ -0,0 +1,106 @@
+package com.aronalvarenga.gerador.util;
+
+import com.itextpdf.text.Document;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Código de Barras ITF (Interleaved 2 of 5)")
+class CodigoBarrasItfUtilTest {
+
+    // Golden file caso-001
+    private static final String CODIGO = "00191959600000100501234567890000011234567890";
+
+    @Test
+    @DisplayName("Deve codificar os pares de dígitos com início e fim do padrão ITF")
+    void deveCodificarParesComInicioEFim() {
+        // '1' = WNNNW nas barras e '2' = NWNNW nos espaços
+        assertArrayEquals(new int[]{1, 1, 1, 1, 3, 1, 1, 3, 1, 1, 1, 1, 3, 3, 3, 1, 1},
+                CodigoBarrasItfUtil.codificar("12"));
+
+        int[] barras = CodigoBarrasItfUtil.codificar(CODIGO);
+        assertEquals(4 + 44 * 5 + 3, barras.length);
+        assertEquals(405 + 2 * CodigoBarrasItfUtil.ZONA_SILENCIO, CodigoBarrasItfUtil.larguraModulos(barras));
+        assertEquals(CODIGO, decodificar(barras));
+
+        assertThrows(IllegalArgumentException.class, () -> CodigoBarrasItfUtil.codificar("123"));
+        assertThrows(IllegalArgumentException.class, () -> CodigoBarrasItfUtil.codificar("12A4"));
+        assertThrows(IllegalArgumentException.class, () -> CodigoBarrasItfUtil.codificar(""));
+    }
+
+    @Test
+    @DisplayName("Deve rasterizar em 1 bit por pixel com as barras nas colunas esperadas")
+    void deveRasterizarEmUmBitPorPixel() {
+        int[] barras = CodigoBarrasItfUtil.codificar(CODIGO);
+        BufferedImage imagem = CodigoBarrasItfUtil.rasterizar(barras, 2, 7);
+
+        assertEquals(BufferedImage.TYPE_BYTE_BINARY, imagem.getType());
+        assertEquals(CodigoBarrasItfUtil.larguraModulos(barras) * 2, imagem.getWidth());
+        assertEquals(7, imagem.getHeight());
+
+        for (int linha = 0; linha < imagem.getHeight(); linha++) {
+            int coluna = 0;
+            for (int px = 0; px < CodigoBarrasItfUtil.ZONA_SILENCIO * 2; px++) {
+                assertEquals(0xFFFFFF, imagem.getRGB(coluna++, linha) & 0xFFFFFF, "Zona de silêncio deve ser branca");
+            }
+            for (int i = 0; i < barras.length; i++) {
+                int esperado = i % 2 == 0 ? 0x000000 : 0xFFFFFF;
+                for (int px = 0; px < barras[i] * 2; px++) {
+                    assertEquals(esperado, imagem.getRGB(coluna, linha) & 0xFFFFFF, "Coluna " + coluna);
+                    coluna++;
+                }
+            }
+            while (coluna < imagem.getWidth()) {
+                assertEquals(0xFFFFFF, imagem.getRGB(coluna++, linha) & 0xFFFFFF, "Zona de silêncio deve ser branca");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gerar PDF menor que a imagem Code128 do Barcode4J")
+    void deveGerarPdfMenorQueImagemCode128() throws Exception {
+        ByteArrayOutputStream vetorial = new ByteArrayOutputStream();
+        Document documento = new Document(PageSize.A4);
+        PdfWriter writer = PdfWriter.getInstance(documento, vetorial);
+        documento.open();
+        documento.add(CodigoBarrasItfUtil.criarImagem(writer.getDirectContent(), CodigoBarrasItfUtil.codificar(CODIGO),
+                CodigoBarrasItfUtil.LARGURA_MODULO_PADRAO, CodigoBarrasItfUtil.ALTURA_PADRAO));
+        documento.close();
+
+        ByteArrayOutputStream code128 = new ByteArrayOutputStream();
+        documento = new Document(PageSize.A4);
+        PdfWriter.getInstance(documento, code128);
+        documento.open();
+        documento.add(Image.getInstance(BarcodeUtil.gerarCodigoBarrasImagem(CODIGO, 200, 15.0, 0.8), null));
+        documento.close();
+
+        assertTrue(vetorial.size() < code128.size(),
+                "ITF vetorial: " + vetorial.size() + " bytes, Code128: " + code128.size() + " bytes");
+    }
+
+    /**
+     * Leitura inversa das larguras: cada par de dígitos ocupa 10 elementos após os 4 do início
+     */
+    private static String decodificar(int[] barras) {
+        String padroes = "NNWWN WNNNW NWNNW WWNNN NNWNW WNWNN NWWNN NNNWW WNNWN NWNWN";
+        StringBuilder digitos = new StringBuilder();
+        for (int inicio = 4; inicio + 10 <= barras.length - 3; inicio += 10) {
+            StringBuilder primeiro = new StringBuilder();
+            StringBuilder segundo = new StringBuilder();
+            for (int i = 0; i < 10; i += 2) {
+                primeiro.append(barras[inicio + i] == 1 ? 'N' : 'W');
+                segundo.append(barras[inicio + i + 1] == 1 ? 'N' : 'W');
+            }
+            digitos.append(padroes.indexOf(primeiro.toString()) / 6);
+            digitos.append(padroes.indexOf(segundo.toString()) / 6);
+        }
+        return digitos.toString();
+    }
+}
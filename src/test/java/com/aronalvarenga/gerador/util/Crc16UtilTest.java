@@ -0,0 +1,79 @@
+package com.aronalvarenga.gerador.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do CRC16 com Tabelas - Slicing-by-8")
+class Crc16UtilTest {
+
+    @Test
+    @DisplayName("Deve calcular o mesmo CRC16 que o algoritmo bit a bit")
+    void deveCalcularMesmoCRC16QueAlgoritmoBitABit() {
+        Random random = new Random(7);
+        for (int tamanho = 0; tamanho < 300; tamanho++) {
+            char[] texto = new char[tamanho];
+            for (int i = 0; i < tamanho; i++) {
+                texto[i] = (char) (0x20 + random.nextInt(0x5F));
+            }
+            String payload = new String(texto);
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+
+            String esperado = ValidacaoUtil.calcularCRC16(payload);
+            assertEquals(esperado, hex(Crc16Util.calcular(bytes, 0, bytes.length)), "byte[] com tamanho " + tamanho);
+            assertEquals(esperado, hex(Crc16Util.calcular(payload)), "CharSequence com tamanho " + tamanho);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve codificar texto não ASCII em UTF-8 durante o cálculo")
+    void deveCodificarTextoNaoAsciiEmUtf8() {
+        String payload = "5913JOÃO DA SILVA6009SÃO PAULO€😀";
+        assertEquals(ValidacaoUtil.calcularCRC16(payload), hex(Crc16Util.calcular(payload)));
+    }
+
+    @Test
+    @DisplayName("Deve permitir cálculo incremental em trechos e em ByteBuffer direto")
+    void devePermitirCalculoIncremental() {
+        byte[] bytes = "00020101021226360014br.gov.bcb.pix0114123456789015204000053039865406100.505802BR6304"
+                .getBytes(StandardCharsets.US_ASCII);
+        int completo = Crc16Util.calcular(bytes, 0, bytes.length);
+
+        for (int corte = 0; corte <= bytes.length; corte++) {
+            int estado = Crc16Util.atualizar(Crc16Util.ESTADO_INICIAL, bytes, 0, corte);
+            estado = Crc16Util.atualizar(estado, bytes, corte, bytes.length - corte);
+            assertEquals(completo, Crc16Util.finalizar(estado), "Corte na posição " + corte);
+        }
+
+        ByteBuffer direto = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        assertEquals(completo, Crc16Util.finalizar(Crc16Util.atualizar(Crc16Util.ESTADO_INICIAL, direto)));
+        assertEquals(0, direto.position(), "A posição do buffer não deve ser alterada");
+    }
+
+    @Test
+    @DisplayName("Deve verificar o CRC de payloads recebidos")
+    void deveVerificarCRCDePayloads() {
+        String semCrc = "00020101021226360014br.gov.bcb.pix0114123456789015204000053039865802BR6304";
+        String payload = semCrc + ValidacaoUtil.calcularCRC16(semCrc);
+        byte[] bytes = payload.getBytes(StandardCharsets.US_ASCII);
+
+        assertTrue(Crc16Util.verificarPayload(payload));
+        assertTrue(Crc16Util.verificarPayload(bytes, 0, bytes.length));
+        assertTrue(Crc16Util.verificarPayload(semCrc + ValidacaoUtil.calcularCRC16(semCrc).toLowerCase()),
+                "Dígitos hexadecimais minúsculos devem ser aceitos");
+
+        bytes[10]++;
+        assertFalse(Crc16Util.verificarPayload(bytes, 0, bytes.length), "Payload alterado deve ser rejeitado");
+        assertFalse(Crc16Util.verificarPayload(semCrc + "ZZZZ"));
+        assertFalse(Crc16Util.verificarPayload("6304"));
+    }
+
+    private static String hex(int crc) {
+        return Crc16Util.anexarHex(crc, new StringBuilder()).toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.aronalvarenga.gerador.util;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.service.CodigoBarrasService;
+import com.aronalvarenga.gerador.service.PixService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Guias de exemplo para os testes, todas com os mesmos dados do proprietário
+ * Variam apenas o número da guia e o endereço; as versões "com códigos" já trazem código de barras e payload PIX
+ */
+public class GuiasTeste {
+
+    public static final String NUMERO_GUIA = "1234567890";
+    public static final String ENDERECO = "Rua Teste, 123 - Centro - Campo Grande/MS";
+
+    private static final CodigoBarrasService CODIGO_BARRAS_SERVICE = new CodigoBarrasService();
+    private static final PixService PIX_SERVICE = new PixService();
+
+    /**
+     * Guia de exemplo sem código de barras nem payload PIX
+     * @param numeroGuia Número da guia
+     * @param endereco Endereço do proprietário, de onde o PIX extrai a cidade
+     * @return Nova guia
+     */
+    public static GuiaPagamento guia(String numeroGuia, String endereco) {
+        return new GuiaPagamento(
+                "JOAO SILVA",
+                "12345678901",
+                endereco,
+                "12345678901",
+                new BigDecimal("100.50"),
+                "Teste",
+                LocalDate.of(2024, 1, 15),
+                numeroGuia
+        );
+    }
+
+    public static GuiaPagamento guia(String numeroGuia) {
+        return guia(numeroGuia, ENDERECO);
+    }
+
+    /**
+     * Guia de um lote, numerada com 10 dígitos a partir da sequência (1 vira "0000000001")
+     */
+    public static GuiaPagamento guia(int sequencia) {
+        return guia(numeroGuia(sequencia));
+    }
+
+    public static GuiaPagamento guia() {
+        return guia(NUMERO_GUIA);
+    }
+
+    /**
+     * Guia de exemplo com código de barras e payload PIX, pronta para o layout e o PDF
+     * @param numeroGuia Número da guia
+     * @param endereco Endereço do proprietário, de onde o PIX extrai a cidade
+     * @return Nova guia
+     */
+    public static GuiaPagamento guiaComCodigos(String numeroGuia, String endereco) {
+        GuiaPagamento guia = guia(numeroGuia, endereco);
+        guia.setCodigoBarras(CODIGO_BARRAS_SERVICE.gerarCodigoBarras(guia));
+        guia.setQrCodePix(PIX_SERVICE.gerarQRCodePix(guia));
+        return guia;
+    }
+
+    public static GuiaPagamento guiaComCodigos(String numeroGuia) {
+        return guiaComCodigos(numeroGuia, ENDERECO);
+    }
+
+    public static GuiaPagamento guiaComCodigos(int sequencia) {
+        return guiaComCodigos(numeroGuia(sequencia));
+    }
+
+    public static GuiaPagamento guiaComCodigos() {
+        return guiaComCodigos(NUMERO_GUIA);
+    }
+
+    /**
+     * Número de 10 dígitos da guia na posição informada do lote
+     */
+    public static String numeroGuia(int sequencia) {
+        return String.format("%010d", sequencia);
+    }
+}
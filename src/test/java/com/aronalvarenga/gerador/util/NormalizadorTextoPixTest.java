@@ -0,0 +1,88 @@
+package com.aronalvarenga.gerador.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do Normalizador de Nome e Cidade do PIX")
+class NormalizadorTextoPixTest {
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', value = {
+            "João da Silva Santos|JOAO DA SILVA SANTOS",
+            "  Conceição Araújo  |CONCEICAO ARAUJO",
+            "Açaí & Cia. Ltda.|ACAI  CIA LTDA",
+            "Straße Ærø Œuvre|STRASSE AERO OEUVRE",
+            "Łódź Dvořák|LODZ DVORAK",
+            "Maria Aparecida dos Santos Oliveira|MARIA APARECIDA DOS SANTO",
+            "Nome com espaço no corte X|'NOME COM ESPACO NO CORTE '",
+            "???|PROPRIETARIO",
+            "'   '|PROPRIETARIO"
+    })
+    @DisplayName("Deve converter acentos, remover símbolos e truncar o nome em 25 caracteres")
+    void deveNormalizarNome(String nome, String esperado) {
+        assertEquals(esperado, new NormalizadorTextoPix().normalizarNome(nome));
+    }
+
+    @Test
+    @DisplayName("Deve extrair a cidade como a implementação anterior para endereços sem acento")
+    void deveExtrairCidadeComoImplementacaoAnterior() {
+        NormalizadorTextoPix normalizador = new NormalizadorTextoPix(16);
+        assertEquals("SAO PAULO", normalizador.extrairCidade("Av. Principal, 456 - Jardim - São Paulo/SP"));
+        assertEquals("SAO JOSE DOS CA", normalizador.extrairCidade("Rua A - Centro - São José dos Campos/SP"));
+        assertEquals("CAMPO GRANDE", normalizador.extrairCidade("Rua sem cidade"));
+        assertEquals("CAMPO GRANDE", normalizador.extrairCidade(null));
+
+        Random random = new Random(11);
+        String alfabeto = "abcXYZ019 -/.,";
+        for (int n = 0; n < 100_000; n++) {
+            StringBuilder endereco = new StringBuilder();
+            int tamanho = random.nextInt(30);
+            for (int i = 0; i < tamanho; i++) {
+                endereco.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+            }
+            String texto = endereco.toString();
+            assertEquals(extrairCidadeAnterior(texto), normalizador.extrairCidade(texto), texto);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar resultados do cache e descartar os menos usados")
+    void deveReaproveitarResultadosDoCache() {
+        NormalizadorTextoPix normalizador = new NormalizadorTextoPix(2);
+        String primeiro = normalizador.normalizarNome("José");
+        assertSame(primeiro, normalizador.normalizarNome("José"), "Nome repetido deve vir do cache");
+
+        normalizador.normalizarNome("Ana");
+        normalizador.normalizarNome("Pedro");
+        assertNotSame(primeiro, normalizador.normalizarNome("José"), "Nome menos usado deve ser descartado");
+        assertEquals("JOSE", normalizador.normalizarNome("José"));
+    }
+
+    /**
+     * Implementação anterior do PixService (split, toUpperCase e replaceAll)
+     */
+    private static String extrairCidadeAnterior(String endereco) {
+        if (endereco == null || endereco.trim().isEmpty()) {
+            return "CAMPO GRANDE";
+        }
+        String[] partes = endereco.split("-");
+        if (partes.length >= 2) {
+            String cidade = partes[partes.length - 1].trim();
+            if (cidade.contains("/")) {
+                cidade = cidade.substring(0, cidade.indexOf("/")).trim();
+            }
+            cidade = cidade.toUpperCase().replaceAll("[^A-Z0-9\\s]", "").trim();
+            if (cidade.length() > 15) {
+                cidade = cidade.substring(0, 15);
+            }
+            return cidade.isEmpty() ? "CAMPO GRANDE" : cidade;
+        }
+        return "CAMPO GRANDE";
+    }
+}
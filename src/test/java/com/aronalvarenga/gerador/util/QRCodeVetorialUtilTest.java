@@ -0,0 +1,92 @@
+package com.aronalvarenga.gerador.util;
+
+import com.aronalvarenga.gerador.model.GuiaPagamento;
+import com.aronalvarenga.gerador.model.PerfilRenderizacao;
+import com.aronalvarenga.gerador.service.PdfService;
+import com.google.zxing.common.BitMatrix;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do QR Code Vetorial no PDF")
+class QRCodeVetorialUtilTest {
+
+    // Golden file caso-pix-001 e caso-pix-003
+    private static final String[] PAYLOADS = {
+            "00020101021226330014br.gov.bcb.pix0111123456789015204000053039865406100.505802BR5910JOAO SILVA6012CAMPO GRANDE6214051012345678906304C3F5",
+            "00020101021226580014br.gov.bcb.pix0136550e8400-e29b-41d4-a716-446655440000520400005303986540550.005802BR5911PEDRO COSTA6014RIO DE JANEIRO6214051011111111116304BDD2"
+    };
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve cobrir exatamente os módulos escuros com retângulos unidos")
+    void deveCobrirExatamenteOsModulosEscuros() throws Exception {
+        CacheSimbolos cache = new CacheSimbolos(1024 * 1024);
+        for (String payload : PAYLOADS) {
+            BitMatrix modulos = cache.obterModulosQRCode(payload);
+            int[][] cobertura = new int[modulos.getHeight()][modulos.getWidth()];
+
+            int retangulos = QRCodeVetorialUtil.percorrerRetangulos(modulos, (coluna, linha, largura, altura) -> {
+                for (int l = linha; l < linha + altura; l++) {
+                    for (int c = coluna; c < coluna + largura; c++) {
+                        cobertura[l][c]++;
+                    }
+                }
+            });
+
+            int escuros = 0;
+            for (int l = 0; l < modulos.getHeight(); l++) {
+                for (int c = 0; c < modulos.getWidth(); c++) {
+                    assertEquals(modulos.get(c, l) ? 1 : 0, cobertura[l][c], "Módulo (" + c + ", " + l + ")");
+                    escuros += modulos.get(c, l) ? 1 : 0;
+                }
+            }
+            assertTrue(retangulos < escuros / 2, retangulos + " retângulos para " + escuros + " módulos escuros");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve desenhar o QR Code no PDF sem imagem rasterizada")
+    void deveDesenharQRCodeSemImagemRasterizada() throws Exception {
+        GuiaPagamento guia = GuiasTeste.guiaComCodigos();
+
+        CacheSimbolos cache = new CacheSimbolos(8L * 1024 * 1024);
+        Path vetorial = diretorio.resolve("vetorial.pdf");
+        Path rasterizado = diretorio.resolve("rasterizado.pdf");
+        new PdfService(cache, PerfilRenderizacao.VETORIAL).gerarPdf(guia, vetorial.toString());
+        assertEquals(2, cache.getQuantidade(), "Apenas a matriz de módulos e as barras ITF devem ser geradas");
+        new PdfService(cache, PerfilRenderizacao.TELA).gerarPdf(guia, rasterizado.toString());
+
+        assertArrayEquals(new int[]{0, 3}, contarXObjects(vetorial), "Fundo, código de barras e QR Code como form");
+        assertArrayEquals(new int[]{2, 1}, contarXObjects(rasterizado), "Código de barras e QR Code como imagens de 1 bit");
+    }
+
+    /**
+     * Quantidade de XObjects de imagem e de form na primeira página
+     */
+    private static int[] contarXObjects(Path pdf) throws IOException {
+        PdfReader leitor = new PdfReader(Files.readAllBytes(pdf));
+        try {
+            PdfDictionary xObjects = leitor.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            int[] contagem = new int[2];
+            for (PdfName nome : xObjects.getKeys()) {
+                PdfName tipo = ((PdfDictionary) PdfReader.getPdfObject(xObjects.get(nome))).getAsName(PdfName.SUBTYPE);
+                contagem[PdfName.IMAGE.equals(tipo) ? 0 : 1]++;
+            }
+            return contagem;
+        } finally {
+            leitor.close();
+        }
+    }
+}
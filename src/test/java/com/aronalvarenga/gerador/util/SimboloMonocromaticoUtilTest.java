@@ -0,0 +1,73 @@
+package com.aronalvarenga.gerador.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.codec.TIFFFaxDecoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Testes do SimboloMonocromaticoUtil - Imagens de 1 Bit")
+class SimboloMonocromaticoUtilTest {
+
+    @Test
+    @DisplayName("Deve ampliar cada módulo do QR Code em bits empacotados")
+    void deveAmpliarModulosEmBitsEmpacotados() throws Exception {
+        BitMatrix modulos = new QRCodeWriter().encode("00020126", BarcodeFormat.QR_CODE, 0, 0);
+        int pixelsPorModulo = 3;
+
+        Image imagem = SimboloMonocromaticoUtil.criarQRCode(modulos, pixelsPorModulo, false, 9);
+
+        int largura = modulos.getWidth() * pixelsPorModulo;
+        assertEquals(largura, (int) imagem.getWidth());
+        assertEquals(modulos.getHeight() * pixelsPorModulo, (int) imagem.getHeight());
+        assertEquals(1, imagem.getBpc());
+        assertTrue(imagem.isInverted(), "Bits com 1 = preto exigem /Decode [1 0]");
+        assertBitsIguais(modulos, pixelsPorModulo, imagem.getRawData(), largura);
+    }
+
+    @Test
+    @DisplayName("Deve codificar o código de barras em CCITT G4 sem perda")
+    void deveCodificarCodigoBarrasEmCcittSemPerda() throws Exception {
+        int[] barras = CodigoBarrasItfUtil.codificar("23797975500000370003381260007827136950000630");
+        int altura = 20;
+
+        Image imagem = SimboloMonocromaticoUtil.criarCodigoBarras(barras, 2, altura, true, -1);
+
+        int largura = CodigoBarrasItfUtil.larguraModulos(barras) * 2;
+        assertEquals(largura, (int) imagem.getWidth());
+        assertEquals(Image.CCITTG4, imagem.getBpc());
+        byte[] linha = CodigoBarrasItfUtil.empacotarLinha(barras, 2);
+        assertTrue(imagem.getRawData().length < linha.length * altura / 2,
+                imagem.getRawData().length + " bytes para " + linha.length * altura + " bytes de bits");
+
+        byte[] decodificado = new byte[linha.length * altura];
+        new TIFFFaxDecoder(1, largura, altura).decodeT6(decodificado, imagem.getRawData(), 0, altura, 0);
+        for (int y = 0; y < altura; y++) {
+            for (int i = 0; i < linha.length; i++) {
+                assertEquals(linha[i], decodificado[y * linha.length + i], "Linha " + y + ", byte " + i);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve calcular pixels por módulo com mínimo de um")
+    void deveCalcularPixelsPorModulo() {
+        assertEquals(6, SimboloMonocromaticoUtil.pixelsPorModulo(0.72f, 600));
+        assertEquals(1, SimboloMonocromaticoUtil.pixelsPorModulo(0.72f, 96));
+        assertEquals(1, SimboloMonocromaticoUtil.pixelsPorModulo(0.1f, 72));
+    }
+
+    private static void assertBitsIguais(BitMatrix modulos, int pixelsPorModulo, byte[] bits, int largura) {
+        int bytesPorLinha = (largura + 7) / 8;
+        for (int y = 0; y < modulos.getHeight() * pixelsPorModulo; y++) {
+            for (int x = 0; x < largura; x++) {
+                boolean preto = (bits[y * bytesPorLinha + (x >> 3)] & (0x80 >> (x & 7))) != 0;
+                assertEquals(modulos.get(x / pixelsPorModulo, y / pixelsPorModulo), preto, "Pixel " + x + "," + y);
+            }
+        }
+    }
+}